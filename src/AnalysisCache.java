@@ -0,0 +1,115 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of finished analyses, keyed by position and by the
+ * budget they were searched with, so a position revisited in a session
+ * (undo, redo, a new game, a repeated hint) gets its answer back at once.
+ * The least recently used entry is evicted when the cache is full.
+ *
+ * Unlike a {@link TranspositionTable}, which only speeds up the next
+ * search, an entry here is the whole result: a hit skips the search.
+ * The budget is part of the key because a result searched on a small
+ * budget must not stand in for a stronger level's. Thread-safe; hits,
+ * misses and evictions are counted for tuning the size.
+ */
+final class AnalysisCache<V> {
+    private final int capacity;
+    private final LinkedHashMap<Key, V> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Position plus budget, the budget being any value with equals (a difficulty, a depth, a name). */
+    private static final class Key {
+        final Position position;
+        final Object budget;
+
+        Key(Position position, Object budget) {
+            this.position = position;
+            this.budget = budget;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return position.equals(other.position) && budget.equals(other.budget);
+        }
+
+        @Override
+        public int hashCode() {
+            return position.hashCode() * 31 + budget.hashCode();
+        }
+    }
+
+    AnalysisCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry: " + capacity);
+        }
+        this.capacity = capacity;
+        // Access order: every hit moves the entry to the young end
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                if (size() > AnalysisCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** The cached result, or null (counted as a miss). */
+    synchronized V get(Position position, Object budget) {
+        V value = entries.get(new Key(position, budget));
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /** Stores a result, replacing any earlier one for the same position and budget. */
+    synchronized void put(Position position, Object budget, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot cache a null result");
+        }
+        entries.put(new Key(position, budget), value);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("%d/%d entries, %d hits, %d misses (%.0f%% hit rate), %d evictions",
+                entries.size(), capacity, hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+}
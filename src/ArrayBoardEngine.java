@@ -0,0 +1,169 @@
+import java.util.List;
+
+/**
+ * Generic {@link BoardEngine} for any even board size, backed by an int[][]
+ * and direction walks. Used for research sizes such as 6x6 and 10x10.
+ */
+class ArrayBoardEngine implements BoardEngine {
+    // Direction arrays for checking all 8 directions
+    private static final int[] ROW_DIRECTIONS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] COL_DIRECTIONS = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int NUM_DIRECTIONS = 8;
+
+    private final int size;
+    private final int[][] board;
+
+    ArrayBoardEngine(int size) {
+        this.size = size;
+        this.board = new int[size][size];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return board[row][col];
+    }
+
+    @Override
+    public void set(int row, int col, int value) {
+        board[row][col] = value;
+    }
+
+    @Override
+    public boolean isValidMove(int row, int col, int player) {
+        if (board[row][col] != OthelloModel.EMPTY) {
+            return false;
+        }
+        // Check all 8 directions
+        for (int i = 0; i < NUM_DIRECTIONS; i++) {
+            if (canFlipInDirection(row, col, ROW_DIRECTIONS[i], COL_DIRECTIONS[i], player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canFlipInDirection(int startRow, int startCol, int rowDir, int colDir, int player) {
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.count(ModelProfiler.Op.CAN_FLIP_IN_DIRECTION);
+        }
+        int opponent = OthelloModel.opponentOf(player);
+        int currentRow = startRow + rowDir;
+        int currentCol = startCol + colDir;
+        // Must have at least one opponent piece adjacent
+        if (!isValidPosition(currentRow, currentCol) || board[currentRow][currentCol] != opponent) {
+            return false;
+        }
+        // Continue in the direction until we find our own piece or an empty cell
+        while (isValidPosition(currentRow, currentCol)) {
+            if (board[currentRow][currentCol] == OthelloModel.EMPTY) {
+                return false;
+            }
+            if (board[currentRow][currentCol] == player) {
+                return true;
+            }
+            currentRow += rowDir;
+            currentCol += colDir;
+        }
+        return false;
+    }
+
+    private boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    @Override
+    public boolean hasValidMoves(int player) {
+        // Quick check - just find the first valid move
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] == OthelloModel.EMPTY && isValidMove(row, col, player)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void collectValidMoves(int player, List<int[]> out) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] == OthelloModel.EMPTY && isValidMove(row, col, player)) {
+                    out.add(new int[]{row, col});
+                }
+            }
+        }
+    }
+
+    @Override
+    public int countFlips(int row, int col, int player) {
+        int opponent = OthelloModel.opponentOf(player);
+        int totalFlips = 0;
+
+        for (int i = 0; i < NUM_DIRECTIONS; i++) {
+            int rowDir = ROW_DIRECTIONS[i];
+            int colDir = COL_DIRECTIONS[i];
+
+            if (canFlipInDirection(row, col, rowDir, colDir, player)) {
+                // Count pieces that would be flipped in this direction
+                int currentRow = row + rowDir;
+                int currentCol = col + colDir;
+                while (board[currentRow][currentCol] == opponent) {
+                    totalFlips++;
+                    currentRow += rowDir;
+                    currentCol += colDir;
+                }
+            }
+        }
+        return totalFlips;
+    }
+
+    @Override
+    public void applyMove(int row, int col, int player) {
+        int opponent = OthelloModel.opponentOf(player);
+        board[row][col] = player;
+
+        for (int i = 0; i < NUM_DIRECTIONS; i++) {
+            int rowDir = ROW_DIRECTIONS[i];
+            int colDir = COL_DIRECTIONS[i];
+
+            if (canFlipInDirection(row, col, rowDir, colDir, player)) {
+                // Flip pieces in this direction
+                int currentRow = row + rowDir;
+                int currentCol = col + colDir;
+                while (board[currentRow][currentCol] == opponent) {
+                    board[currentRow][currentCol] = player;
+                    currentRow += rowDir;
+                    currentCol += colDir;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int count(int player) {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (board[i][j] == player) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public BoardEngine copy() {
+        ArrayBoardEngine copy = new ArrayBoardEngine(size);
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(board[row], 0, copy.board[row], 0, size);
+        }
+        return copy;
+    }
+}
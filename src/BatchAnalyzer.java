@@ -0,0 +1,262 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch analysis of 8x8 positions.
+ *
+ * Positions are streamed from a file or stdin, searched in parallel and
+ * written to stdout in input order, one line per position:
+ * {@code index <TAB> move <TAB> score <TAB> depth <TAB> nodes <TAB> pv},
+ * where pv is the expected line as space-separated squares.
+ * At most a fixed window of positions is in flight at any time, so memory
+ * stays bounded however long the input is.
+ *
+ * Text input has one position per line: 64 board characters in row-major
+ * order ({@code X}/{@code *} black, {@code O} white, {@code -}/{@code .} empty),
+ * a space, then the side to move ({@code X} or {@code O}). Binary input
+ * ({@code --binary}) is a sequence of 17-byte records: black long, white long,
+ * side byte (1 = black, 2 = white), big-endian.
+ *
+ * {@code --probcut T} searches selectively with {@link ProbCut} at
+ * confidence T, reaching deeper for the same time. {@code --hash MB} shares
+ * one off-heap {@link TranspositionTable} of that size between the worker
+ * threads; scores can then depend on which positions were searched before.
+ * {@code --cache FILE} uses a table mapped from that file instead (sized by
+ * {@code --hash}, default {@value #DEFAULT_CACHE_MEGABYTES} MB), so results
+ * are kept for later runs and shared with other processes using the file.
+ * With {@code --probcut} the file is versioned apart, so pruned scores never
+ * reach full-width searches through it.
+ */
+public class BatchAnalyzer {
+    public static final int DEFAULT_DEPTH = 6;
+    public static final long DEFAULT_CACHE_MEGABYTES = 256;
+    private static final int WINDOW_PER_THREAD = 4;
+
+    private final int depth;
+    private final int threads;
+    private final ProbCut probCut;
+    private final TranspositionTable table;
+    private final ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(this::newEngine);
+
+    public BatchAnalyzer(int depth, int threads) {
+        this(depth, threads, null, null);
+    }
+
+    /** With probCut non-null, positions are searched selectively; table may be null. */
+    BatchAnalyzer(int depth, int threads, ProbCut probCut, TranspositionTable table) {
+        if (depth < 1 || threads < 1) {
+            throw new IllegalArgumentException("depth and threads must be positive");
+        }
+        this.depth = depth;
+        this.threads = threads;
+        this.probCut = probCut;
+        this.table = table;
+    }
+
+    private SearchEngine newEngine() {
+        SearchEngine engine = new SearchEngine();
+        engine.setProbCut(probCut);
+        if (table != null) {
+            engine.shareTranspositionTable(table);
+        }
+        return engine;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int depth = DEFAULT_DEPTH;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean binary = false;
+        ProbCut probCut = null;
+        long hashMegabytes = 0;
+        String cache = null;
+        String file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--binary": binary = true; break;
+                case "--probcut":
+                    probCut = ProbCut.defaultProbCut().withConfidence(Double.parseDouble(args[++i]));
+                    break;
+                case "--hash": hashMegabytes = Long.parseLong(args[++i]); break;
+                case "--cache": cache = args[++i]; break;
+                default: file = args[i];
+            }
+        }
+
+        TranspositionTable table = null;
+        long cacheMegabytes = hashMegabytes > 0 ? hashMegabytes : DEFAULT_CACHE_MEGABYTES;
+        if (cache != null) {
+            try {
+                table = TranspositionTable.mapCache(Paths.get(cache), cacheMegabytes, probCut);
+            } catch (IOException e) {
+                // E.g. the GUI has the file mapped at another size: keep the results in memory only
+                System.err.println("Ignoring cache file " + cache + ": " + e.getMessage());
+                table = TranspositionTable.ofMegabytes(cacheMegabytes);
+            }
+        } else if (hashMegabytes > 0) {
+            table = TranspositionTable.ofMegabytes(hashMegabytes);
+        }
+        InputStream in = file == null || file.equals("-") ? System.in : new FileInputStream(file);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (InputStream input = new BufferedInputStream(in)) {
+            BatchAnalyzer analyzer = new BatchAnalyzer(depth, threads, probCut, table);
+            long count = binary ? analyzer.analyzeBinary(input, out) : analyzer.analyzeText(input, out);
+            System.err.println("Analysed " + count + " positions");
+        }
+    }
+
+    /** Analyses text-encoded positions; returns the number of records processed. */
+    public long analyzeText(InputStream in, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return run(() -> {
+            String line = reader.readLine();
+            while (line != null && (line.isBlank() || line.startsWith("#"))) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            String record = line;
+            return () -> parseText(record);
+        }, out);
+    }
+
+    /** Analyses binary-encoded positions; returns the number of records processed. */
+    public long analyzeBinary(InputStream in, Writer out) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        return run(() -> {
+            long black;
+            try {
+                black = data.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+            long white = data.readLong();
+            int side = data.readByte();
+            return () -> validate(black, white, side);
+        }, out);
+    }
+
+    /** Supplies the next record lazily, or null at end of input. */
+    private interface RecordSource {
+        RecordParser next() throws IOException;
+    }
+
+    /** Parsing runs on the worker so the reader thread only does I/O. */
+    private interface RecordParser {
+        long[] parse();
+    }
+
+    private long run(RecordSource source, Writer out) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-analyzer");
+            t.setDaemon(true);
+            return t;
+        });
+        if (table != null) {
+            table.newSearch(); // once for the batch: the workers search it concurrently
+        }
+        ArrayDeque<Future<String>> window = new ArrayDeque<>();
+        int windowSize = threads * WINDOW_PER_THREAD;
+        long index = 0;
+        try {
+            for (RecordParser next = source.next(); next != null; next = source.next()) {
+                long recordIndex = index++;
+                RecordParser record = next;
+                window.add(pool.submit(() -> analyze(recordIndex, record)));
+                if (window.size() >= windowSize) {
+                    write(window.poll(), out);
+                }
+            }
+            while (!window.isEmpty()) {
+                write(window.poll(), out);
+            }
+        } finally {
+            out.flush();
+            pool.shutdownNow();
+        }
+        return index;
+    }
+
+    private static void write(Future<String> result, Writer out) throws IOException {
+        try {
+            out.write(result.get());
+            out.write('\n');
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for analysis", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Analysis failed", e.getCause());
+        }
+    }
+
+    private String analyze(long index, RecordParser record) {
+        long[] position;
+        try {
+            position = record.parse();
+        } catch (IllegalArgumentException e) {
+            return index + "\terror\t" + e.getMessage();
+        }
+        long black = position[0];
+        long white = position[1];
+        boolean blackToMove = position[2] == OthelloModel.BLACK;
+        SearchEngine.Result result = engines.get().search(blackToMove ? black : white,
+                blackToMove ? white : black, depth);
+        String move = result.square < 0 ? "pass" : Bitboard.squareName(result.square);
+        return index + "\t" + move + "\t" + result.score + "\t" + result.depth + "\t" + result.nodes
+                + "\t" + result.principalVariation();
+    }
+
+    /** Parses a text record into {black, white, side}. */
+    static long[] parseText(String line) {
+        String trimmed = line.trim();
+        if (trimmed.length() < Bitboard.SQUARES + 2) {
+            throw new IllegalArgumentException("expected 64 squares and a side to move");
+        }
+        long black = 0L;
+        long white = 0L;
+        for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+            char c = trimmed.charAt(sq);
+            if (c == 'X' || c == 'x' || c == '*') {
+                black |= 1L << sq;
+            } else if (c == 'O' || c == 'o') {
+                white |= 1L << sq;
+            } else if (c != '-' && c != '.') {
+                throw new IllegalArgumentException("bad square character '" + c + "'");
+            }
+        }
+        char side = Character.toUpperCase(trimmed.charAt(trimmed.length() - 1));
+        if (side != 'X' && side != 'O' && side != '*') {
+            throw new IllegalArgumentException("bad side to move '" + side + "'");
+        }
+        return validate(black, white, side == 'O' ? OthelloModel.WHITE : OthelloModel.BLACK);
+    }
+
+    private static long[] validate(long black, long white, int side) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("black and white discs overlap");
+        }
+        if (side != OthelloModel.BLACK && side != OthelloModel.WHITE) {
+            throw new IllegalArgumentException("bad side to move " + side);
+        }
+        return new long[]{black, white, side};
+    }
+}
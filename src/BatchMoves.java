@@ -0,0 +1,149 @@
+/**
+ * Move generation and flips for many independent 8x8 positions at once.
+ *
+ * Positions are passed as parallel arrays (own[i], opp[i]) and each kernel
+ * is one branch-free loop over them with every ray unrolled into constant
+ * shifts and masks. That keeps the lanes independent, so the loop is free
+ * to be pipelined (and vectorized, where the JIT manages to) instead of
+ * going through Bitboard's per-direction switch. The scalar kernels do the
+ * same work one position at a time through {@link Bitboard}; set
+ * {@code -Dothello.batch.scalar=true} to use them instead.
+ */
+final class BatchMoves {
+    static final boolean SCALAR = Boolean.getBoolean("othello.batch.scalar");
+
+    private static final long NOT_A = Bitboard.NOT_A_FILE;
+    private static final long NOT_H = Bitboard.NOT_H_FILE;
+
+    private BatchMoves() {
+    }
+
+    /** out[i] = legal-move mask of own[i] against opp[i], for i < count. */
+    static void moves(long[] own, long[] opp, long[] out, int count) {
+        if (SCALAR) {
+            movesScalar(own, opp, out, count);
+        } else {
+            movesBatched(own, opp, out, count);
+        }
+    }
+
+    static void movesScalar(long[] own, long[] opp, long[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = Bitboard.moves(own[i], opp[i]);
+        }
+    }
+
+    /**
+     * Kogge-Stone fill in all eight directions, written out so every shift
+     * is a constant. Horizontal and diagonal rays only walk through opponent
+     * discs off the wrapping file, so one mask per ray replaces the mask
+     * after every step.
+     */
+    static void movesBatched(long[] own, long[] opp, long[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            long p = own[i];
+            long o = opp[i];
+            long empty = ~(p | o);
+            long oh = o & 0x7E7E7E7E7E7E7E7EL; // interior columns: rays with a sideways step
+            long result;
+
+            long x = oh & (p << 1);
+            x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1);
+            result = x << 1;
+            x = oh & (p >>> 1);
+            x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1);
+            result |= x >>> 1;
+
+            x = o & (p << 8);
+            x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8);
+            result |= x << 8;
+            x = o & (p >>> 8);
+            x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8);
+            result |= x >>> 8;
+
+            x = oh & (p << 7);
+            x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7);
+            result |= x << 7;
+            x = oh & (p >>> 7);
+            x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7);
+            result |= x >>> 7;
+
+            x = oh & (p << 9);
+            x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9);
+            result |= x << 9;
+            x = oh & (p >>> 9);
+            x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9);
+            result |= x >>> 9;
+
+            out[i] = result & empty;
+        }
+    }
+
+    /**
+     * out[i] = discs flipped when own[i] plays squares[i]; zero when that
+     * square is occupied or flips nothing.
+     */
+    static void flips(long[] own, long[] opp, int[] squares, long[] out, int count) {
+        if (SCALAR) {
+            flipsScalar(own, opp, squares, out, count);
+        } else {
+            flipsBatched(own, opp, squares, out, count);
+        }
+    }
+
+    static void flipsScalar(long[] own, long[] opp, int[] squares, long[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = Bitboard.flips(squares[i], own[i], opp[i]);
+        }
+    }
+
+    /**
+     * Same fills outward from the move; a ray's discs are kept only if the
+     * disc past its end is our own, selected without branches.
+     */
+    static void flipsBatched(long[] own, long[] opp, int[] squares, long[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            long p = own[i];
+            long o = opp[i];
+            long m = 1L << squares[i];
+            long oh = o & 0x7E7E7E7E7E7E7E7EL;
+            long flipped = 0L;
+
+            long x = oh & (m << 1);
+            x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1); x |= oh & (x << 1);
+            flipped |= x & select(p & ((x << 1) & NOT_A));
+            x = oh & (m >>> 1);
+            x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1); x |= oh & (x >>> 1);
+            flipped |= x & select(p & ((x >>> 1) & NOT_H));
+
+            x = o & (m << 8);
+            x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8); x |= o & (x << 8);
+            flipped |= x & select(p & (x << 8));
+            x = o & (m >>> 8);
+            x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8); x |= o & (x >>> 8);
+            flipped |= x & select(p & (x >>> 8));
+
+            x = oh & (m << 7);
+            x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7); x |= oh & (x << 7);
+            flipped |= x & select(p & ((x << 7) & NOT_H));
+            x = oh & (m >>> 7);
+            x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7); x |= oh & (x >>> 7);
+            flipped |= x & select(p & ((x >>> 7) & NOT_A));
+
+            x = oh & (m << 9);
+            x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9); x |= oh & (x << 9);
+            flipped |= x & select(p & ((x << 9) & NOT_A));
+            x = oh & (m >>> 9);
+            x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9); x |= oh & (x >>> 9);
+            flipped |= x & select(p & ((x >>> 9) & NOT_H));
+
+            // An occupied square flips nothing
+            out[i] = flipped & ~select(m & (p | o));
+        }
+    }
+
+    /** All ones when x is non-zero, else zero. */
+    private static long select(long x) {
+        return (x | -x) >> 63;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Static helpers for the 8x8 bitboard representation. Square (row, col) maps
+ * to bit {@code row * 8 + col}; a position is a pair of masks, one per colour.
+ * All methods are allocation-free so they can be used on search hot paths.
+ */
+final class Bitboard {
+    static final int SIZE = 8;
+    static final int SQUARES = SIZE * SIZE;
+
+    static final long NOT_A_FILE = 0xFEFEFEFEFEFEFEFEL; // clears column 0
+    static final long NOT_H_FILE = 0x7F7F7F7F7F7F7F7FL; // clears column 7
+    static final long CORNERS = 0x8100000000000081L;
+
+    /** Black's and White's discs in the standard starting position. */
+    static final long START_BLACK = (1L << 28) | (1L << 35);
+    static final long START_WHITE = (1L << 27) | (1L << 36);
+
+    static final int NUM_DIRECTIONS = 8;
+
+    private Bitboard() {
+    }
+
+    static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /** Standard coordinate name such as "d3" (column letter, then row number). */
+    static String squareName(int sq) {
+        return "" + (char) ('a' + sq % SIZE) + (sq / SIZE + 1);
+    }
+
+    /** Inverse of {@link #squareName}; returns -1 for anything that is not a square. */
+    static int parseSquare(String name) {
+        if (name.length() != 2) {
+            return -1;
+        }
+        int col = Character.toLowerCase(name.charAt(0)) - 'a';
+        int row = name.charAt(1) - '1';
+        if (col < 0 || col >= SIZE || row < 0 || row >= SIZE) {
+            return -1;
+        }
+        return square(row, col);
+    }
+
+    /** Shifts every disc one step in direction dir (0..7), dropping discs that leave the board. */
+    static long shift(long x, int dir) {
+        switch (dir) {
+            case 0: return (x >>> 9) & NOT_H_FILE; // up-left
+            case 1: return x >>> 8;                // up
+            case 2: return (x >>> 7) & NOT_A_FILE; // up-right
+            case 3: return (x >>> 1) & NOT_H_FILE; // left
+            case 4: return (x << 1) & NOT_A_FILE;  // right
+            case 5: return (x << 7) & NOT_H_FILE;  // down-left
+            case 6: return x << 8;                 // down
+            default: return (x << 9) & NOT_A_FILE; // down-right
+        }
+    }
+
+    /** Legal-move mask for the side owning own, against opp. */
+    static long moves(long own, long opp) {
+        long empty = ~(own | opp);
+        long result = 0L;
+        for (int dir = 0; dir < NUM_DIRECTIONS; dir++) {
+            // At most six opponent discs can sit between a move and an anchor
+            long x = shift(own, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            result |= shift(x, dir) & empty;
+        }
+        return result;
+    }
+
+    /** Discs flipped when own plays square sq; zero if the move is illegal. */
+    static long flips(int sq, long own, long opp) {
+        long move = 1L << sq;
+        if (((own | opp) & move) != 0) {
+            return 0L;
+        }
+        // Walk each ray from the lookup table: the first square that is not an
+        // opponent disc ends the run, which flips if that square is our own
+        long[] rays = LookupTables.rays();
+        int base = sq * NUM_DIRECTIONS;
+        long flipped = 0L;
+        for (int dir = 0; dir < NUM_DIRECTIONS / 2; dir++) {
+            // Directions 0-3 run towards lower squares: the nearest blocker is the highest bit
+            long ray = rays[base + dir];
+            long blocker = Long.highestOneBit(ray & ~opp);
+            if ((blocker & own) != 0) {
+                flipped |= ray & -(blocker << 1);
+            }
+        }
+        for (int dir = NUM_DIRECTIONS / 2; dir < NUM_DIRECTIONS; dir++) {
+            // Directions 4-7 run towards higher squares: the nearest blocker is the lowest bit
+            long ray = rays[base + dir];
+            long blocker = Long.lowestOneBit(ray & ~opp);
+            if ((blocker & own) != 0) {
+                flipped |= ray & (blocker - 1);
+            }
+        }
+        return flipped;
+    }
+}
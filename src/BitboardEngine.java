@@ -0,0 +1,109 @@
+import java.util.List;
+
+/**
+ * Specialised {@link BoardEngine} for the standard 8x8 board. Discs are kept
+ * in two longs and moves are generated with {@link Bitboard} shifts, so the
+ * production board size pays nothing for the configurable-size support.
+ */
+class BitboardEngine implements BoardEngine {
+    private long black;
+    private long white;
+
+    @Override
+    public int size() {
+        return Bitboard.SIZE;
+    }
+
+    long bits(int player) {
+        if (player == OthelloModel.BLACK) return black;
+        if (player == OthelloModel.WHITE) return white;
+        return 0L;
+    }
+
+    void setBits(long black, long white) {
+        this.black = black;
+        this.white = white;
+    }
+
+    @Override
+    public int get(int row, int col) {
+        long mask = 1L << Bitboard.square(row, col);
+        if ((black & mask) != 0) return OthelloModel.BLACK;
+        if ((white & mask) != 0) return OthelloModel.WHITE;
+        return OthelloModel.EMPTY;
+    }
+
+    @Override
+    public void set(int row, int col, int value) {
+        long mask = 1L << Bitboard.square(row, col);
+        black &= ~mask;
+        white &= ~mask;
+        if (value == OthelloModel.BLACK) {
+            black |= mask;
+        } else if (value == OthelloModel.WHITE) {
+            white |= mask;
+        }
+    }
+
+    private long legalMoves(int player) {
+        if (player != OthelloModel.BLACK && player != OthelloModel.WHITE) {
+            return 0L;
+        }
+        return Bitboard.moves(bits(player), bits(OthelloModel.opponentOf(player)));
+    }
+
+    @Override
+    public boolean isValidMove(int row, int col, int player) {
+        return (legalMoves(player) & (1L << Bitboard.square(row, col))) != 0;
+    }
+
+    @Override
+    public boolean hasValidMoves(int player) {
+        return legalMoves(player) != 0;
+    }
+
+    @Override
+    public void collectValidMoves(int player, List<int[]> out) {
+        // Lowest bit first gives row-major order, matching ArrayBoardEngine
+        for (long moves = legalMoves(player); moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            out.add(new int[]{sq / Bitboard.SIZE, sq % Bitboard.SIZE});
+        }
+    }
+
+    @Override
+    public int countFlips(int row, int col, int player) {
+        long own = bits(player);
+        long opp = bits(OthelloModel.opponentOf(player));
+        return Long.bitCount(Bitboard.flips(Bitboard.square(row, col), own, opp));
+    }
+
+    @Override
+    public void applyMove(int row, int col, int player) {
+        int sq = Bitboard.square(row, col);
+        long own = bits(player);
+        long opp = bits(OthelloModel.opponentOf(player));
+        long flipped = Bitboard.flips(sq, own, opp);
+        own |= flipped | (1L << sq);
+        opp &= ~flipped;
+        if (player == OthelloModel.BLACK) {
+            black = own;
+            white = opp;
+        } else {
+            white = own;
+            black = opp;
+        }
+    }
+
+    @Override
+    public int count(int player) {
+        return Long.bitCount(bits(player));
+    }
+
+    @Override
+    public BoardEngine copy() {
+        BitboardEngine copy = new BitboardEngine();
+        copy.setBits(black, white);
+        return copy;
+    }
+}
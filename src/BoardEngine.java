@@ -0,0 +1,40 @@
+import java.util.List;
+
+/**
+ * Storage and move generation behind an {@link OthelloModel}.
+ * The standard 8x8 board uses {@link BitboardEngine} (two 64-bit masks);
+ * every other size falls back to the generic {@link ArrayBoardEngine}.
+ * Callers are expected to bounds-check coordinates before calling in.
+ */
+interface BoardEngine {
+
+    static BoardEngine create(int size) {
+        if (size == Bitboard.SIZE) {
+            return new BitboardEngine();
+        }
+        return new ArrayBoardEngine(size);
+    }
+
+    int size();
+
+    int get(int row, int col);
+
+    void set(int row, int col, int value);
+
+    boolean isValidMove(int row, int col, int player);
+
+    boolean hasValidMoves(int player);
+
+    /** Appends every legal move for player to out, in row-major order. */
+    void collectValidMoves(int player, List<int[]> out);
+
+    int countFlips(int row, int col, int player);
+
+    /** Places a disc for player and flips the captured discs. The move must be legal. */
+    void applyMove(int row, int col, int player);
+
+    int count(int player);
+
+    /** An independent engine holding the same discs. */
+    BoardEngine copy();
+}
@@ -0,0 +1,107 @@
+/**
+ * Bitboard positional features used by evaluation and endgame pruning:
+ * stable discs (discs that can never be flipped again), frontier discs and
+ * potential mobility. Everything is computed with whole-board shifts and
+ * masks; stability is a fixed-point iteration bounded by the disc count.
+ */
+final class BoardFeatures {
+    private static final long ALL = -1L;
+
+    // Square masks of every line along each axis: rows, columns and both diagonals
+    private static final long[] ROWS = new long[Bitboard.SIZE];
+    private static final long[] COLUMNS = new long[Bitboard.SIZE];
+    private static final long[] DIAGONALS = new long[2 * Bitboard.SIZE - 1];      // up-left to down-right
+    private static final long[] ANTI_DIAGONALS = new long[2 * Bitboard.SIZE - 1]; // up-right to down-left
+
+    // EDGE[d]: squares whose neighbour in direction d is off the board
+    private static final long[] EDGE = new long[Bitboard.NUM_DIRECTIONS];
+
+    // Axes as pairs of opposite directions (see Bitboard.shift): horizontal, vertical, diagonal, anti-diagonal
+    private static final int[][] AXES = {{3, 4}, {1, 6}, {0, 7}, {2, 5}};
+
+    static {
+        for (int row = 0; row < Bitboard.SIZE; row++) {
+            for (int col = 0; col < Bitboard.SIZE; col++) {
+                long bit = 1L << Bitboard.square(row, col);
+                ROWS[row] |= bit;
+                COLUMNS[col] |= bit;
+                DIAGONALS[row - col + Bitboard.SIZE - 1] |= bit;
+                ANTI_DIAGONALS[row + col] |= bit;
+            }
+        }
+        for (int dir = 0; dir < Bitboard.NUM_DIRECTIONS; dir++) {
+            EDGE[dir] = ~Bitboard.shift(ALL, opposite(dir));
+        }
+    }
+
+    private BoardFeatures() {
+    }
+
+    private static int opposite(int dir) {
+        return Bitboard.NUM_DIRECTIONS - 1 - dir;
+    }
+
+    /** Squares adjacent (in any of the 8 directions) to at least one square of x. */
+    static long neighbours(long x) {
+        long result = 0L;
+        for (int dir = 0; dir < Bitboard.NUM_DIRECTIONS; dir++) {
+            result |= Bitboard.shift(x, dir);
+        }
+        return result;
+    }
+
+    /** Own discs next to an empty square: the discs that give the opponent moves. */
+    static long frontier(long own, long opp) {
+        return own & neighbours(~(own | opp));
+    }
+
+    /** Empty squares next to an opponent disc: an upper bound on future mobility. */
+    static long potentialMobility(long own, long opp) {
+        return ~(own | opp) & neighbours(opp);
+    }
+
+    /** Squares whose line along the given axis is completely occupied. */
+    private static long fullLines(long occupied, long[] lines) {
+        long result = 0L;
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                result |= line;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Own discs that can never be flipped. A disc is stable when, along each
+     * of the four axes, its line is full or it is anchored on one side by
+     * the board edge or another stable own disc. This covers corner- and
+     * edge-anchored chains as well as discs locked by full lines; it can
+     * miss some exotic stable discs but never reports an unstable one.
+     */
+    static long stableDiscs(long own, long opp) {
+        long occupied = own | opp;
+        long[] full = {
+                fullLines(occupied, ROWS),
+                fullLines(occupied, COLUMNS),
+                fullLines(occupied, DIAGONALS),
+                fullLines(occupied, ANTI_DIAGONALS)
+        };
+
+        long stable = 0L;
+        // Each round adds at least one disc or stops, so at most 64 rounds
+        while (true) {
+            long next = own;
+            for (int axis = 0; axis < AXES.length; axis++) {
+                int a = AXES[axis][0];
+                int b = AXES[axis][1];
+                long anchored = EDGE[a] | EDGE[b]
+                        | Bitboard.shift(stable, b) | Bitboard.shift(stable, a);
+                next &= full[axis] | anchored;
+            }
+            if (next == stable) {
+                return stable;
+            }
+            stable = next;
+        }
+    }
+}
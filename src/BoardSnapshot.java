@@ -0,0 +1,132 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable state of an {@link OthelloModel} after one change: the discs,
+ * the player to move and whether the game is over. The model publishes a
+ * new snapshot after every move, undo or redo, so any number of threads can
+ * read a consistent board from {@link OthelloModel#snapshot()} without
+ * locking, while the game goes on.
+ */
+public final class BoardSnapshot {
+    private final BoardEngine board; // private copy, never modified
+    private final int currentPlayer;
+    private final boolean gameOver;
+    private final int blackCount;
+    private final int whiteCount;
+
+    // Legal moves per player, worked out on first use. Racing threads compute
+    // the same immutable list, so either one may win.
+    private List<int[]> blackMoves;
+    private List<int[]> whiteMoves;
+
+    BoardSnapshot(BoardEngine board, int currentPlayer, boolean gameOver) {
+        this.board = board.copy();
+        this.currentPlayer = currentPlayer;
+        this.gameOver = gameOver;
+        this.blackCount = board.count(OthelloModel.BLACK);
+        this.whiteCount = board.count(OthelloModel.WHITE);
+    }
+
+    public int getBoardSize() {
+        return board.size();
+    }
+
+    /** The disc on a square: EMPTY, BLACK or WHITE. */
+    public int get(int row, int col) {
+        return board.get(row, col);
+    }
+
+    public int[][] getBoard() {
+        int size = board.size();
+        int[][] copy = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                copy[i][j] = board.get(i, j);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Raw 8x8 bitboard for a player.
+     * @throws IllegalStateException if the snapshot is not of the standard 8x8 board
+     */
+    public long getBitboard(int player) {
+        if (!(board instanceof BitboardEngine)) {
+            throw new IllegalStateException("Bitboards are only available on the "
+                    + OthelloModel.BOARD_SIZE + "x" + OthelloModel.BOARD_SIZE + " board");
+        }
+        return ((BitboardEngine) board).bits(player);
+    }
+
+    /**
+     * The 8x8 position.
+     * @throws IllegalStateException if the snapshot is not of the standard 8x8 board
+     */
+    public Position getPosition() {
+        return new Position(getBitboard(OthelloModel.BLACK), getBitboard(OthelloModel.WHITE), currentPlayer);
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /** Legal moves ({row, col}) for the player, in row-major order. */
+    public List<int[]> getValidMoves(int player) {
+        if (player != OthelloModel.BLACK && player != OthelloModel.WHITE) {
+            return new ArrayList<>();
+        }
+        List<int[]> moves = player == OthelloModel.BLACK ? blackMoves : whiteMoves;
+        if (moves == null) {
+            List<int[]> found = new ArrayList<>();
+            board.collectValidMoves(player, found);
+            moves = List.copyOf(found);
+            if (player == OthelloModel.BLACK) {
+                blackMoves = moves;
+            } else {
+                whiteMoves = moves;
+            }
+        }
+        List<int[]> copy = new ArrayList<>(moves.size());
+        for (int[] move : moves) {
+            copy.add(move.clone());
+        }
+        return copy;
+    }
+
+    public boolean hasValidMoves(int player) {
+        long start = ModelProfiler.start();
+        boolean any = board.hasValidMoves(player);
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.HAS_VALID_MOVES, start);
+        }
+        return any;
+    }
+
+    /** Discs the player would flip by playing on the square, or 0 if the move is not legal. */
+    public int countFlips(int row, int col, int player) {
+        if (row < 0 || row >= board.size() || col < 0 || col >= board.size()
+                || !board.isValidMove(row, col, player)) {
+            return 0;
+        }
+        return board.countFlips(row, col, player);
+    }
+
+    /** {black discs, white discs}. */
+    public int[] getScore() {
+        return new int[]{blackCount, whiteCount};
+    }
+
+    /** BLACK or WHITE once the game is over and one side has more discs, otherwise EMPTY. */
+    public int getWinner() {
+        if (!gameOver || blackCount == whiteCount) {
+            return OthelloModel.EMPTY;
+        }
+        return blackCount > whiteCount ? OthelloModel.BLACK : OthelloModel.WHITE;
+    }
+}
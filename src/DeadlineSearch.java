@@ -0,0 +1,448 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Root-split search with a hard per-move deadline, for serving many games
+ * from one process. Each iteration searches the previous best move first
+ * to set alpha, then fans the remaining root moves out to a shared pool;
+ * every subtask reads the shared alpha when it starts, scouts with a null
+ * window and re-searches only if it beats it.
+ *
+ * The subtasks of one iteration live in a {@link Scope}: on the deadline,
+ * or as soon as one move is proven to win, the scope stops every running
+ * engine and drops the queued tasks, and {@link #search} does not return
+ * until all of them have finished. No subtask outlives the call, so a
+ * session that timed out cannot keep burning a worker that the next
+ * session's move is waiting for.
+ *
+ * Returns the best move of the last completed iteration, or of the
+ * current one if the first move finished there and a later move finished
+ * with a better score. Engines are kept per pool thread and share one
+ * transposition table (or none).
+ *
+ * Run {@code java DeadlineSearch [--threads N] [--sessions S] [--moves M]
+ * [--millis D]} to measure how far past its deadline each move returns
+ * with S games searching at once.
+ */
+public final class DeadlineSearch implements AutoCloseable {
+    private static final int MAX_DEPTH = Bitboard.SQUARES;
+    private static final long AGE_NANOS = 1_000_000_000L; // oldest a table age gets under steady load
+
+    private final ExecutorService pool;
+    private final TranspositionTable table;
+    private final ThreadLocal<SearchEngine> engines;
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final AtomicInteger activeSearches = new AtomicInteger();
+    private final AtomicLong lastAgedNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param threads pool threads shared by all concurrent searches
+     * @param table shared by every engine, or null for none
+     */
+    public DeadlineSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.table = table;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "deadline-search");
+            t.setDaemon(true);
+            return t;
+        });
+        this.engines = ThreadLocal.withInitial(() -> {
+            SearchEngine engine = new SearchEngine();
+            if (table != null) {
+                engine.shareTranspositionTable(table);
+            }
+            return engine;
+        });
+    }
+
+    /** Subtasks currently executing on the pool, across all searches. */
+    int runningTasks() {
+        return runningTasks.get();
+    }
+
+    /**
+     * Best move for the side to move, searched no deeper than maxDepth and
+     * returning by millis from now (plus the time for the running subtasks
+     * to notice, a few thousand nodes). Safe to call from many threads.
+     */
+    public SearchEngine.Result search(long own, long opp, int maxDepth, long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long movesMask = Bitboard.moves(own, opp);
+        if (movesMask == 0) {
+            // Pass or game over: nothing to split, search on the caller's thread
+            SearchEngine engine = new SearchEngine();
+            engine.setLimits(0, Math.max(1, millis));
+            return engine.search(own, opp, maxDepth);
+        }
+        activeSearches.incrementAndGet();
+        try {
+            ageTable();
+            return splitSearch(own, opp, movesMask, maxDepth, deadline);
+        } finally {
+            activeSearches.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ages the shared table when this search is the only one running, or
+     * at most once a second under a steady load. Aging it per search would
+     * let each session's searches age out the entries the others are
+     * writing, and depth-preferred replacement would then replace anything.
+     */
+    private void ageTable() {
+        if (table == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastAgedNanos.get();
+        if ((activeSearches.get() == 1 || now - last >= AGE_NANOS) && lastAgedNanos.compareAndSet(last, now)) {
+            table.newSearch();
+        }
+    }
+
+    private SearchEngine.Result splitSearch(long own, long opp, long movesMask, int maxDepth, long deadline) {
+        int[] moves = new int[Long.bitCount(movesMask)];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = Long.numberOfTrailingZeros(movesMask);
+            movesMask &= movesMask - 1;
+        }
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        LongAdder nodes = new LongAdder();
+        int bestSquare = moves[0];
+        int bestScore = -SearchEngine.INFINITY;
+        int completedDepth = 0;
+
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            Iteration it = new Iteration(own, opp, depth, deadline, nodes);
+            try {
+                it.fork(0, moves[0]);
+                if (!it.scope.joinUntil(deadline) || it.proven) {
+                    if (it.proven) {
+                        return it.result(depth, nodes);
+                    }
+                    break; // the first move did not finish: keep the last iteration
+                }
+                it.firstScore = it.bestScore;
+                for (int i = 1; i < moves.length; i++) {
+                    it.fork(i, moves[i]);
+                }
+                boolean finished = it.scope.joinUntil(deadline);
+                if (finished || it.proven) {
+                    bestSquare = it.bestSquare;
+                    bestScore = it.bestScore;
+                    completedDepth = depth;
+                    if (it.proven) {
+                        break;
+                    }
+                    orderForNextIteration(moves, it.scores);
+                } else {
+                    it.scope.shutdown();
+                    it.scope.join();
+                    if (it.bestScore > it.firstScore) {
+                        // A later move finished and beat the first one at this depth
+                        bestSquare = it.bestSquare;
+                        bestScore = it.bestScore;
+                        completedDepth = depth;
+                    }
+                    break;
+                }
+            } finally {
+                it.scope.shutdown();
+                it.scope.join();
+            }
+            if (depth >= empties) {
+                break; // solved to the end: deeper iterations give the same answer
+            }
+        }
+        return new SearchEngine.Result(bestSquare, bestScore, completedDepth, nodes.sum(), new int[]{bestSquare});
+    }
+
+    /** Best scores first, unfinished moves after them in their previous order. */
+    private static void orderForNextIteration(int[] moves, int[] scores) {
+        Integer[] index = new Integer[moves.length];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (a, b) -> Integer.compare(scores[b], scores[a])); // stable
+        int[] sorted = new int[moves.length];
+        for (int i = 0; i < index.length; i++) {
+            sorted[i] = moves[index[i]];
+        }
+        System.arraycopy(sorted, 0, moves, 0, moves.length);
+    }
+
+    /** One depth of the root move loop: a shared alpha and the best move finished so far. */
+    private final class Iteration {
+        final long own;
+        final long opp;
+        final int depth;
+        final long deadline;
+        final LongAdder nodes;
+        final Scope scope = new Scope();
+        final AtomicInteger alpha = new AtomicInteger(-SearchEngine.INFINITY);
+        final int[] scores;
+        int bestSquare = -1;
+        int bestScore = -SearchEngine.INFINITY;
+        int firstScore = -SearchEngine.INFINITY;
+        volatile boolean proven;
+
+        Iteration(long own, long opp, int depth, long deadline, LongAdder nodes) {
+            this.own = own;
+            this.opp = opp;
+            this.depth = depth;
+            this.deadline = deadline;
+            this.nodes = nodes;
+            this.scores = new int[Long.bitCount(Bitboard.moves(own, opp))];
+            Arrays.fill(scores, -SearchEngine.INFINITY);
+        }
+
+        void fork(int index, int sq) {
+            scope.fork(engine -> {
+                long flipped = Bitboard.flips(sq, own, opp);
+                long childOwn = opp & ~flipped;
+                long childOpp = own | flipped | (1L << sq);
+                int a = alpha.get();
+                if (a == -SearchEngine.INFINITY) {
+                    int full = engine.scoreWithin(childOwn, childOpp, depth - 1,
+                            -SearchEngine.INFINITY, SearchEngine.INFINITY, deadline);
+                    nodes.add(engine.getNodes());
+                    if (full != SearchEngine.ABORTED) {
+                        alpha.accumulateAndGet(-full, Math::max);
+                        completed(index, sq, -full, true);
+                    }
+                    return;
+                }
+                int score = engine.scoreWithin(childOwn, childOpp, depth - 1, -a - 1, -a, deadline);
+                nodes.add(engine.getNodes());
+                if (score == SearchEngine.ABORTED) {
+                    return;
+                }
+                score = -score;
+                if (score > a) {
+                    // Beat the scout: search again for the exact score
+                    int full = engine.scoreWithin(childOwn, childOpp, depth - 1,
+                            -SearchEngine.INFINITY, -Math.max(a, alpha.get()), deadline);
+                    nodes.add(engine.getNodes());
+                    if (full == SearchEngine.ABORTED) {
+                        return;
+                    }
+                    score = Math.max(score, -full);
+                }
+                alpha.accumulateAndGet(score, Math::max);
+                completed(index, sq, score, score > a);
+            });
+        }
+
+        /** Records a finished move; a scout that failed low only bounds its score and cannot become best. */
+        private synchronized void completed(int index, int sq, int score, boolean candidate) {
+            scores[index] = score;
+            if (candidate && score > bestScore) {
+                bestScore = score;
+                bestSquare = sq;
+            }
+            if (score >= SearchEngine.FINAL_DISC_WEIGHT) {
+                // A forced win: no other move can do better than winning
+                proven = true;
+                scope.shutdown();
+            }
+        }
+
+        synchronized SearchEngine.Result result(int completedDepth, LongAdder total) {
+            return new SearchEngine.Result(bestSquare, bestScore, completedDepth, total.sum(), new int[]{bestSquare});
+        }
+    }
+
+    interface Subtask {
+        void run(SearchEngine engine);
+    }
+
+    /**
+     * Stand-in for StructuredTaskScope, which Java 17 does not have. Each
+     * forked subtask is claimed exactly once, either by the pool thread
+     * that starts it or by {@link #shutdown()}, so join() knows when the
+     * last one is done without waiting for queued tasks to reach a thread.
+     * The count of unfinished subtasks is only touched under the scope's
+     * monitor, so a subtask finishing while more are being forked cannot
+     * make a join return early.
+     */
+    final class Scope {
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final List<AtomicBoolean> claims = new ArrayList<>();
+        private final List<SearchEngine> running = new ArrayList<>();
+        private int outstanding;
+        private boolean cancelled;
+
+        synchronized void fork(Subtask task) {
+            if (cancelled) {
+                return;
+            }
+            outstanding++;
+            AtomicBoolean claim = new AtomicBoolean();
+            claims.add(claim);
+            futures.add(pool.submit(() -> {
+                if (!claim.compareAndSet(false, true)) {
+                    return; // dropped by shutdown, which accounted for it
+                }
+                runningTasks.incrementAndGet();
+                SearchEngine engine = engines.get();
+                try {
+                    engine.clearStop();
+                    if (enter(engine)) {
+                        try {
+                            task.run(engine);
+                        } finally {
+                            exit(engine);
+                        }
+                    }
+                } finally {
+                    runningTasks.decrementAndGet();
+                    done();
+                }
+            }));
+        }
+
+        private synchronized boolean enter(SearchEngine engine) {
+            if (cancelled) {
+                return false;
+            }
+            running.add(engine);
+            return true;
+        }
+
+        private synchronized void exit(SearchEngine engine) {
+            running.remove(engine);
+        }
+
+        private synchronized void done() {
+            if (--outstanding == 0) {
+                notifyAll();
+            }
+        }
+
+        /** Stops the running subtasks and drops the queued ones. Idempotent. */
+        synchronized void shutdown() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            for (SearchEngine engine : running) {
+                engine.stop();
+            }
+            for (int i = 0; i < claims.size(); i++) {
+                if (claims.get(i).compareAndSet(false, true)) {
+                    futures.get(i).cancel(false);
+                    done();
+                }
+            }
+        }
+
+        /** Waits for every subtask to finish; true unless the deadline came first. */
+        synchronized boolean joinUntil(long deadlineNanos) {
+            try {
+                while (outstanding > 0) {
+                    long left = deadlineNanos - System.nanoTime();
+                    if (left <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /** Waits, however long it takes, for every subtask to finish. */
+        synchronized void join() {
+            boolean interrupted = false;
+            while (outstanding > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int sessions = 4;
+        int movesPerSession = 20;
+        long millis = 100;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--sessions" -> sessions = Integer.parseInt(args[++i]);
+                case "--moves" -> movesPerSession = Integer.parseInt(args[++i]);
+                case "--millis" -> millis = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Usage: DeadlineSearch [--threads N] [--sessions S] [--moves M] [--millis D]");
+                    System.exit(2);
+                }
+            }
+        }
+        Position[] positions = SearchBenchmark.positions(sessions * movesPerSession, 1);
+        long[] overrunMicros = new long[positions.length];
+        int[] depths = new int[positions.length];
+        long budget = millis;
+        int perSession = movesPerSession;
+        try (DeadlineSearch search = new DeadlineSearch(threads, new TranspositionTable(64 << 20, true))) {
+            Thread[] clients = new Thread[sessions];
+            for (int s = 0; s < sessions; s++) {
+                int session = s;
+                clients[s] = new Thread(() -> {
+                    for (int m = 0; m < perSession; m++) {
+                        int i = session * perSession + m;
+                        long start = System.nanoTime();
+                        SearchEngine.Result r = search.search(positions[i].own(), positions[i].opp(), MAX_DEPTH, budget);
+                        overrunMicros[i] = (System.nanoTime() - start) / 1000 - budget * 1000;
+                        depths[i] = r.depth;
+                    }
+                }, "session-" + s);
+                clients[s].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            System.out.printf("%d sessions x %d moves, %d ms per move, %d threads, %d subtasks left running%n",
+                    sessions, movesPerSession, millis, threads, search.runningTasks());
+        }
+        long[] sorted = overrunMicros.clone();
+        Arrays.sort(sorted);
+        System.out.printf("overrun past deadline: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.99) / 1000.0,
+                sorted[sorted.length - 1] / 1000.0);
+        System.out.printf("mean completed depth %.1f%n", Arrays.stream(depths).average().orElse(0));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
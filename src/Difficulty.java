@@ -0,0 +1,58 @@
+import java.util.Arrays;
+
+/**
+ * Computer player strength levels. Alpha-beta levels are bounded by a node
+ * budget, so a position always gets the same move and the same amount of
+ * work; timed levels stop after a fixed wall-clock budget instead.
+ */
+public enum Difficulty {
+    EASY("Easy", 1_000, 0, false),
+    MEDIUM("Medium", 100_000, 0, false),
+    HARD("Hard", 10_000_000, 0, false),
+    TIMED("1 second", 0, 1000, false),
+    MONTE_CARLO("Monte Carlo", 0, 500, true);
+
+    public static final Difficulty DEFAULT = MEDIUM;
+
+    private final String label;
+    private final long nodes;   // 0: no node budget
+    private final long millis;  // 0: no time budget
+    private final boolean mcts;
+
+    Difficulty(String label, long nodes, long millis, boolean mcts) {
+        this.label = label;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.mcts = mcts;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /** True for the Monte Carlo level, which searches with {@link MctsEngine} instead of alpha-beta. */
+    public boolean usesMcts() {
+        return mcts;
+    }
+
+    /** Parses a level by name, ignoring case and treating '-' as '_' (e.g. "monte-carlo"). */
+    public static Difficulty parse(String name) {
+        String key = name.trim().toUpperCase().replace('-', '_');
+        for (Difficulty level : values()) {
+            if (level.name().equals(key)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown difficulty '" + name + "', expected one of "
+                + Arrays.toString(values()).toLowerCase());
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
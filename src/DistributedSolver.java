@@ -0,0 +1,497 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
+
+/**
+ * Perft counts and exact endgame solves spread over several local worker
+ * JVMs, each with its own heap and cores.
+ *
+ * The coordinator walks the game tree from the root to the split depth
+ * (a pass counts as a ply) and makes every position there, or every game
+ * that ends sooner, a work unit. Units are dealt out to one queue per
+ * worker; a worker takes its next unit from the front of its own queue
+ * and, once that is empty, steals from the back of the longest other
+ * queue. Workers connect back over a loopback socket and get one unit at
+ * a time, so a worker that dies only loses the unit it was working on,
+ * which goes back on a queue. Perft results are summed; solve results are
+ * combined by minimax over the split tree.
+ *
+ * With {@code --checkpoint FILE}, every result is appended to the file as
+ * it arrives. Rerunning the same problem with the same file skips the
+ * units already done, so an interrupted solve picks up where it stopped.
+ *
+ * Usage: {@code DistributedSolver perft|solve [--moves f5d6...] [--position BOARD SIDE]
+ * [--depth D] [--split S] [--workers N] [--checkpoint FILE] [--in-process]}
+ */
+public class DistributedSolver {
+    public static final int DEFAULT_SPLIT = 4;
+    public static final int DEFAULT_PERFT_DEPTH = 9;
+
+    static final int PERFT = 0;
+    static final int SOLVE = 1;
+
+    private static final int ACCEPT_TIMEOUT_MILLIS = 60_000;
+    private static final int DONE = -1; // unit id that tells a worker to exit
+    private static final int DROP_DELAY_MILLIS = 300; // how long a worker told to drop a unit holds it first
+
+    /** One subtree to count or solve: the position, its remaining depth and its place in the split order. */
+    static final class Unit {
+        final int id;
+        final long own;
+        final long opp;
+        final int depth;
+
+        Unit(int id, long own, long opp, int depth) {
+            this.id = id;
+            this.own = own;
+            this.opp = opp;
+            this.depth = depth;
+        }
+    }
+
+    private final int mode;
+    private final long black;
+    private final long white;
+    private final int sideToMove;
+    private final int depth;
+    private final int split;
+    private final int workers;
+    private final Path checkpoint; // null: none
+    private int dropUnit = -1; // for tests: the unit an in-process worker dies holding, or -1
+
+    // Coordinator state, guarded by this
+    private List<Unit> units;
+    private long[] results;
+    private boolean[] done;
+    private int remaining;
+    private List<ArrayDeque<Unit>> queues;
+    private Writer checkpointWriter;
+
+    DistributedSolver(int mode, long black, long white, int sideToMove, int depth, int split, int workers,
+                      Path checkpoint) {
+        if (mode != PERFT && mode != SOLVE || depth < 0 || split < 0 || workers < 1) {
+            throw new IllegalArgumentException("Invalid solver settings");
+        }
+        this.mode = mode;
+        this.black = black;
+        this.white = white;
+        this.sideToMove = sideToMove;
+        this.depth = depth;
+        this.split = mode == PERFT ? Math.min(split, depth) : split;
+        this.workers = workers;
+        this.checkpoint = checkpoint;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--worker")) {
+            work(Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length == 0 || !(args[0].equals("perft") || args[0].equals("solve"))) {
+            throw new IllegalArgumentException("Expected perft or solve");
+        }
+        int mode = args[0].equals("perft") ? PERFT : SOLVE;
+        Position position = Position.START;
+        int depth = DEFAULT_PERFT_DEPTH;
+        int split = DEFAULT_SPLIT;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Path checkpoint = null;
+        boolean inProcess = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--moves":
+                    List<Position> line = GameRecord.parse(args[++i]).getPositions();
+                    position = line.get(line.size() - 1);
+                    break;
+                case "--position":
+                    long[] parsed = BatchAnalyzer.parseText(args[++i] + " " + args[++i]);
+                    position = new Position(parsed[0], parsed[1], (int) parsed[2]);
+                    break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--split": split = Integer.parseInt(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--checkpoint": checkpoint = Paths.get(args[++i]); break;
+                case "--in-process": inProcess = true; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        DistributedSolver solver = new DistributedSolver(mode, position.getBlack(), position.getWhite(),
+                position.getSideToMove(), depth, split, workers, checkpoint);
+        long start = System.nanoTime();
+        long result = solver.run(inProcess);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (mode == PERFT) {
+            System.out.printf("perft(%d) = %d (%.1fs, %d units)%n", depth, result, seconds, solver.unitCount());
+        } else {
+            System.out.printf("score %d discs for the side to move (%.1fs, %d units)%n",
+                    result / SearchEngine.FINAL_DISC_WEIGHT, seconds, solver.unitCount());
+        }
+    }
+
+    /**
+     * Solves the problem with worker JVMs, or with worker threads in this
+     * JVM (still over loopback sockets) when inProcess is set.
+     */
+    long run(boolean inProcess) throws IOException, InterruptedException {
+        long own = sideToMove == OthelloModel.BLACK ? black : white;
+        long opp = sideToMove == OthelloModel.BLACK ? white : black;
+        units = new ArrayList<>();
+        collect(own, opp, 0, units);
+        results = new long[units.size()];
+        done = new boolean[units.size()];
+        remaining = units.size();
+        openCheckpoint();
+        try {
+            if (remaining > 0) {
+                dispatch(inProcess);
+            }
+        } finally {
+            if (checkpointWriter != null) {
+                checkpointWriter.close();
+            }
+        }
+        if (mode == PERFT) {
+            long total = 0;
+            for (long count : results) {
+                total += count;
+            }
+            return total;
+        }
+        return combine(own, opp, 0, new int[1]);
+    }
+
+    /** Work units in depth-first order: positions at the split depth and games that end before it. */
+    private void collect(long own, long opp, int ply, List<Unit> out) {
+        long moves = Bitboard.moves(own, opp);
+        boolean over = moves == 0 && Bitboard.moves(opp, own) == 0;
+        if (ply == split || over) {
+            out.add(new Unit(out.size(), own, opp, mode == PERFT ? depth - ply : 0));
+            return;
+        }
+        if (moves == 0) {
+            collect(opp, own, ply + 1, out);
+            return;
+        }
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(sq, own, opp);
+            collect(opp & ~flipped, own | flipped | (1L << sq), ply + 1, out);
+        }
+    }
+
+    /** Minimax over the split tree, reading unit scores in the order collect produced them. */
+    private long combine(long own, long opp, int ply, int[] next) {
+        long moves = Bitboard.moves(own, opp);
+        if (ply == split || moves == 0 && Bitboard.moves(opp, own) == 0) {
+            return results[next[0]++];
+        }
+        if (moves == 0) {
+            return -combine(opp, own, ply + 1, next);
+        }
+        long best = -SearchEngine.INFINITY;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(sq, own, opp);
+            best = Math.max(best, -combine(opp & ~flipped, own | flipped | (1L << sq), ply + 1, next));
+        }
+        return best;
+    }
+
+    /** The work a worker does for one unit. */
+    static long compute(int mode, long own, long opp, int depth, SearchEngine engine) {
+        if (mode == PERFT) {
+            return perft(own, opp, depth);
+        }
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        return engine.score(own, opp, empties);
+    }
+
+    /** Leaf count of the game tree to the given depth; a pass is a ply and a finished game one leaf. */
+    static long perft(long own, long opp, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = Bitboard.moves(own, opp);
+        if (moves == 0) {
+            return Bitboard.moves(opp, own) == 0 ? 1 : perft(opp, own, depth - 1);
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+        long count = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(sq, own, opp);
+            count += perft(opp & ~flipped, own | flipped | (1L << sq), depth - 1);
+        }
+        return count;
+    }
+
+    private String problem() {
+        return "problem " + (mode == PERFT ? "perft" : "solve") + " " + Long.toHexString(black) + " "
+                + Long.toHexString(white) + " " + sideToMove + " " + depth + " " + split;
+    }
+
+    /**
+     * Loads results already in the checkpoint and opens it for appending
+     * new ones. Only newline-terminated lines count: a line the interruption
+     * cut short is dropped from the file and its unit solved again.
+     */
+    private void openCheckpoint() throws IOException {
+        if (checkpoint == null) {
+            return;
+        }
+        String contents = Files.exists(checkpoint) ? Files.readString(checkpoint, StandardCharsets.UTF_8) : "";
+        int complete = contents.lastIndexOf('\n') + 1;
+        if (complete > 0) {
+            String[] lines = contents.substring(0, complete).split("\n");
+            if (!lines[0].equals(problem())) {
+                throw new IOException("Checkpoint " + checkpoint + " is for another problem: " + lines[0]);
+            }
+            try {
+                for (int i = 1; i < lines.length; i++) {
+                    String[] parts = lines[i].trim().split("\\s+");
+                    int id = Integer.parseInt(parts[0]);
+                    if (parts.length != 2 || id < 0 || id >= done.length) {
+                        throw new IOException("Corrupt checkpoint " + checkpoint + " at line " + (i + 1));
+                    }
+                    if (!done[id]) {
+                        results[id] = Long.parseLong(parts[1]);
+                        done[id] = true;
+                        remaining--;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Corrupt checkpoint " + checkpoint, e);
+            }
+        }
+        if (complete < contents.length()) {
+            try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.WRITE)) {
+                channel.truncate(contents.substring(0, complete).getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+        checkpointWriter = new BufferedWriter(Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        if (complete == 0) {
+            checkpointWriter.write(problem() + "\n");
+            checkpointWriter.flush();
+        }
+    }
+
+    private void dispatch(boolean inProcess) throws IOException, InterruptedException {
+        queues = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            queues.add(new ArrayDeque<>());
+        }
+        int next = 0;
+        for (Unit unit : units) {
+            if (!done[unit.id]) {
+                queues.get(next++ % workers).add(unit);
+            }
+        }
+
+        List<Process> processes = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicBoolean dropped = new AtomicBoolean();
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            for (int w = 0; w < workers; w++) {
+                if (inProcess) {
+                    Thread worker = new Thread(() -> {
+                        try {
+                            work(server.getLocalPort(), id -> id == dropUnit && dropped.compareAndSet(false, true));
+                        } catch (IOException e) {
+                            System.err.println("Worker failed: " + e.getMessage());
+                        }
+                    }, "solver-worker");
+                    worker.setDaemon(true);
+                    worker.start();
+                } else {
+                    processes.add(startWorker(server.getLocalPort()));
+                }
+            }
+            for (int w = 0; w < workers; w++) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    break; // carry on with the workers that did connect
+                }
+                int queue = w;
+                Thread handler = new Thread(() -> serve(socket, queue), "solver-coordinator-" + w);
+                handler.start();
+                threads.add(handler);
+            }
+            for (Thread handler : threads) {
+                handler.join();
+            }
+        } finally {
+            for (Process process : processes) {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        synchronized (this) {
+            if (remaining > 0) {
+                throw new IOException(remaining + " units were not solved; rerun to resume from the checkpoint");
+            }
+        }
+    }
+
+    private Process startWorker(int port) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DistributedSolver.class.getName(), "--worker", String.valueOf(port));
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    /**
+     * Feeds one worker until every unit is done, then tells it to exit. A
+     * worker that finds the queues empty while units are still out with
+     * other workers waits, in case one of those workers dies and its unit
+     * comes back.
+     */
+    private void serve(Socket socket, int queue) {
+        Unit unit = null;
+        try (socket;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while ((unit = take(queue)) != null) {
+                out.writeInt(unit.id);
+                out.writeInt(mode);
+                out.writeLong(unit.own);
+                out.writeLong(unit.opp);
+                out.writeInt(unit.depth);
+                out.flush();
+                int id = in.readInt();
+                long result = in.readLong();
+                if (id != unit.id) {
+                    throw new IOException("Worker answered unit " + id + " instead of " + unit.id);
+                }
+                complete(unit, result);
+                unit = null;
+            }
+            out.writeInt(DONE);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Lost a worker: " + e.getMessage());
+            if (unit != null) {
+                requeue(queue, unit);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The next unit for a worker: its own queue first, else stolen from the
+     * back of the longest queue. Waits while the queues are empty but units
+     * are still out; null once every unit is done.
+     */
+    private synchronized Unit take(int queue) throws InterruptedException {
+        while (remaining > 0) {
+            Unit unit = queues.get(queue).pollFirst();
+            if (unit != null) {
+                return unit;
+            }
+            ArrayDeque<Unit> victim = null;
+            for (ArrayDeque<Unit> other : queues) {
+                if (victim == null || other.size() > victim.size()) {
+                    victim = other;
+                }
+            }
+            unit = victim.pollLast();
+            if (unit != null) {
+                return unit;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private synchronized void requeue(int queue, Unit unit) {
+        queues.get(queue).addFirst(unit);
+        notifyAll();
+    }
+
+    private synchronized void complete(Unit unit, long result) throws IOException {
+        if (done[unit.id]) {
+            return;
+        }
+        results[unit.id] = result;
+        done[unit.id] = true;
+        if (--remaining == 0) {
+            notifyAll();
+        }
+        if (checkpointWriter != null) {
+            checkpointWriter.write(unit.id + " " + result + "\n");
+            checkpointWriter.flush();
+        }
+    }
+
+    /** Worker loop: connects to the coordinator and computes units until told to stop. */
+    static void work(int port) throws IOException {
+        work(port, id -> false);
+    }
+
+    private static void work(int port, IntPredicate dies) throws IOException {
+        SearchEngine engine = new SearchEngine();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                int id = in.readInt();
+                if (id == DONE) {
+                    return;
+                }
+                int mode = in.readInt();
+                long own = in.readLong();
+                long opp = in.readLong();
+                int depth = in.readInt();
+                if (dies.test(id)) {
+                    try {
+                        Thread.sleep(DROP_DELAY_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return; // closing the socket mid-unit, as a crashed worker would
+                }
+                out.writeInt(id);
+                out.writeLong(compute(mode, own, opp, depth, engine));
+                out.flush();
+            }
+        }
+    }
+
+    /** For tests: the first in-process worker to get this unit holds it for a moment, then dies without answering. */
+    void dropUnit(int id) {
+        dropUnit = id;
+    }
+
+    int unitCount() {
+        return units == null ? 0 : units.size();
+    }
+}
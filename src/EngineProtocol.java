@@ -0,0 +1,291 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Headless engine driven by text commands on stdin, answering on stdout,
+ * after the NBoard protocol. Started with {@code Main --engine}; only the
+ * engine classes are loaded, never AWT or Swing.
+ *
+ * Commands, one per line:
+ * <pre>
+ * nboard V                      greeting; answered with "set myname NAME"
+ * ping N                        answered with "pong N" once earlier commands are done
+ * set depth D                   deepest search for go (default: to the end of the game)
+ * set game GGF                  position from an NBoard GGF game: start board (BO) and moves (B, W)
+ * set position BOARD SIDE       64 squares (X/* black, O white, -/. empty) then X or O to move
+ * set nnue FILE                 scores with the neural network in FILE ("set nnue off" to stop)
+ * move MV                       plays a move ("d3", or "pa" to pass); NBoard's "/eval/time" suffix is ignored
+ * go [depth D] [movetime MS] [nodes N] [btime MS wtime MS [binc MS winc MS]]
+ * stop                          stops the running search, which then answers as usual
+ * quit
+ * </pre>
+ * While {@code go} searches, an {@code info} line reports each completed
+ * depth: {@code info depth D score S nodes N nps R pv d3 c5 ...}. The search
+ * ends with {@code === MV/SCORE/SECONDS}, the move ({@code PA} for a pass)
+ * in NBoard's format. Scores are in evaluation units for the side to move;
+ * proven results are {@link SearchEngine#FINAL_DISC_WEIGHT} per disc. A
+ * command that cannot be carried out is answered with {@code error MESSAGE}.
+ *
+ * A search runs on its own thread so that {@code stop} can reach it; every
+ * other command waits for the running search to finish first.
+ */
+public class EngineProtocol {
+    public static final String NAME = "Othello";
+
+    // Share of the remaining clock spent on one move: the moves still to play, plus a reserve
+    private static final int RESERVE_MOVES = 2;
+
+    private static final Pattern GGF_BOARD = Pattern.compile("BO\\[8\\s+([^\\]]+)\\]");
+    private static final Pattern GGF_MOVE = Pattern.compile("(?<![A-Z])([BW])\\[([^\\]/]+)[^\\]]*\\]");
+
+    private final PrintWriter out;
+    private final SearchEngine engine;
+    private long black = Bitboard.START_BLACK;
+    private long white = Bitboard.START_WHITE;
+    private int sideToMove = OthelloModel.BLACK;
+    private int maxDepth = Bitboard.SQUARES;
+    private Thread searchThread; // non-null while a search may be running
+
+    public EngineProtocol(Writer out) {
+        this(out, new SearchEngine());
+    }
+
+    EngineProtocol(Writer out, SearchEngine engine) {
+        this.out = new PrintWriter(out, true);
+        this.engine = engine;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        new EngineProtocol(out).run(System.in);
+    }
+
+    /** Handles commands until quit or the end of the input, then waits for any running search. */
+    public void run(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!handle(line.trim())) {
+                    break;
+                }
+            }
+        } finally {
+            awaitSearch();
+        }
+    }
+
+    /** Handles one command; false for quit. */
+    boolean handle(String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String[] words = line.split("\\s+");
+        String command = words[0];
+        if (command.equals("stop")) {
+            engine.stop();
+            return true;
+        }
+        if (command.equals("quit")) {
+            engine.stop();
+            return false;
+        }
+        awaitSearch();
+        try {
+            switch (command) {
+                case "nboard":
+                    send("set myname " + NAME);
+                    break;
+                case "ping":
+                    send("pong" + (words.length > 1 ? " " + words[1] : ""));
+                    break;
+                case "set":
+                    set(line, words);
+                    break;
+                case "move":
+                    play(words.length > 1 ? words[1] : "");
+                    break;
+                case "go":
+                    go(words);
+                    break;
+                default:
+                    send("error unknown command " + command);
+            }
+        } catch (IllegalArgumentException e) {
+            send("error " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void set(String line, String[] words) {
+        if (words.length < 3) {
+            throw new IllegalArgumentException("set needs a name and a value");
+        }
+        switch (words[1]) {
+            case "depth":
+                int depth = Integer.parseInt(words[2]);
+                if (depth < 1) {
+                    throw new IllegalArgumentException("depth must be positive");
+                }
+                maxDepth = depth;
+                break;
+            case "game":
+                setGame(line.substring(line.indexOf("game") + 4).trim());
+                break;
+            case "position":
+                long[] position = BatchAnalyzer.parseText(line.substring(line.indexOf("position") + 8));
+                setPosition(position[0], position[1], (int) position[2]);
+                break;
+            case "nnue":
+                String file = line.substring(line.indexOf("nnue") + 4).trim();
+                try {
+                    engine.setNnue(file.equals("off") ? null : NnueNetwork.load(Paths.get(file)));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("cannot load network " + file + ": " + e.getMessage());
+                }
+                break;
+            case "contempt":
+                break; // NBoard sends this; the engine has no notion of it
+            default:
+                throw new IllegalArgumentException("unknown setting " + words[1]);
+        }
+    }
+
+    private void setGame(String ggf) {
+        Matcher board = GGF_BOARD.matcher(ggf);
+        if (!board.find()) {
+            setPosition(Bitboard.START_BLACK, Bitboard.START_WHITE, OthelloModel.BLACK);
+        } else {
+            String squares = board.group(1).replaceAll("\\s+", "");
+            long[] start = BatchAnalyzer.parseText(squares.substring(0, squares.length() - 1)
+                    + " " + squares.charAt(squares.length() - 1));
+            setPosition(start[0], start[1], (int) start[2]);
+        }
+        Matcher moves = GGF_MOVE.matcher(ggf);
+        while (moves.find()) {
+            int player = moves.group(1).equals("B") ? OthelloModel.BLACK : OthelloModel.WHITE;
+            if (player != sideToMove) {
+                throw new IllegalArgumentException("game has " + moves.group(1) + " moving out of turn");
+            }
+            play(moves.group(2));
+        }
+    }
+
+    private void setPosition(long black, long white, int sideToMove) {
+        this.black = black;
+        this.white = white;
+        this.sideToMove = sideToMove;
+    }
+
+    private void play(String move) {
+        String name = move.split("/")[0].trim();
+        long own = own();
+        long opp = opp();
+        long legal = Bitboard.moves(own, opp);
+        if (name.equalsIgnoreCase("pa") || name.equalsIgnoreCase("pass")) {
+            if (legal != 0) {
+                throw new IllegalArgumentException("cannot pass with a legal move");
+            }
+        } else {
+            int sq = Bitboard.parseSquare(name);
+            if (sq < 0 || (legal & (1L << sq)) == 0) {
+                throw new IllegalArgumentException("illegal move " + move);
+            }
+            long flipped = Bitboard.flips(sq, own, opp);
+            own |= flipped | (1L << sq);
+            opp &= ~flipped;
+        }
+        if (sideToMove == OthelloModel.BLACK) {
+            setPosition(own, opp, OthelloModel.WHITE);
+        } else {
+            setPosition(opp, own, OthelloModel.BLACK);
+        }
+    }
+
+    private void go(String[] words) {
+        int depth = maxDepth;
+        long nodes = 0;
+        long millis = 0;
+        long[] clock = new long[3];   // indexed by player
+        long[] increment = new long[3];
+        for (int i = 1; i + 1 < words.length; i += 2) {
+            long value = Long.parseLong(words[i + 1]);
+            switch (words[i]) {
+                case "depth": depth = (int) value; break;
+                case "nodes": nodes = value; break;
+                case "movetime": millis = value; break;
+                case "btime": clock[OthelloModel.BLACK] = value; break;
+                case "wtime": clock[OthelloModel.WHITE] = value; break;
+                case "binc": increment[OthelloModel.BLACK] = value; break;
+                case "winc": increment[OthelloModel.WHITE] = value; break;
+                default: throw new IllegalArgumentException("unknown go option " + words[i]);
+            }
+        }
+        long own = own();
+        long opp = opp();
+        if (Bitboard.moves(own, opp) == 0 && Bitboard.moves(opp, own) == 0) {
+            throw new IllegalArgumentException("game is over");
+        }
+        if (millis == 0 && clock[sideToMove] > 0) {
+            int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+            millis = moveTime(clock[sideToMove], increment[sideToMove], empties);
+        }
+        engine.setLimits(nodes, millis);
+        int searchDepth = Math.max(1, depth);
+        long start = System.nanoTime();
+        engine.setSearchListener(result -> {
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            send("info depth " + result.depth + " score " + result.score + " nodes " + result.nodes
+                    + " nps " + result.nodes * 1_000_000_000L / elapsed + " pv " + result.principalVariation());
+        });
+        // Cleared here, not on the search thread: a stop read before that thread starts must still count
+        engine.clearStop();
+        searchThread = new Thread(() -> {
+            SearchEngine.Result result = engine.searchUnlessStopped(own, opp, searchDepth);
+            String move = result.square < 0 ? "PA" : Bitboard.squareName(result.square).toUpperCase();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            send(String.format("=== %s/%d/%.3f", move, result.score, seconds));
+            StartupTiming.mark("first engine move");
+        }, "engine-search");
+        searchThread.start();
+    }
+
+    /** Time for one move from the remaining clock: an even share over this side's remaining moves. */
+    static long moveTime(long remaining, long increment, int empties) {
+        return Math.max(1, Math.min(remaining / 2, remaining / (empties / 2 + RESERVE_MOVES) + increment));
+    }
+
+    private long own() {
+        return sideToMove == OthelloModel.BLACK ? black : white;
+    }
+
+    private long opp() {
+        return sideToMove == OthelloModel.BLACK ? white : black;
+    }
+
+    private void awaitSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            engine.stop();
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Static evaluation of an 8x8 bitboard position from the side to move's
+ * point of view: a weighted sum of own-minus-opponent feature counts, with a
+ * separate weight row for each game phase.
+ *
+ * The built-in weights are the old evaluatePosition heuristic (corners,
+ * edges, mobility, disc count), doubled so everything stays in integers.
+ * Fitted weights from {@link WeightTrainer} are picked up at startup from
+ * the file named by the {@code othello.weights} system property, or from
+ * {@code othello-weights.properties} in the working directory.
+ */
+class Evaluator {
+    static final long EDGES = 0xFF818181818181FFL;
+    static final long X_SQUARES = 0x0042000000004200L;
+    static final long C_SQUARES = 0x4281000000008142L;
+    static final long PLAIN_EDGES = EDGES & ~Bitboard.CORNERS & ~C_SQUARES;
+
+    static final int PHASES = 4;
+    static final String[] FEATURE_NAMES = {"corners", "xSquares", "cSquares", "edges", "mobility", "discs",
+            "stable", "frontier", "potentialMobility"};
+    static final int FEATURES = FEATURE_NAMES.length;
+
+    static final String WEIGHTS_PROPERTY = "othello.weights";
+    static final String DEFAULT_WEIGHTS_FILE = "othello-weights.properties";
+
+    // Old heuristic: corner 25 (+3 as an edge), edge 3, mobility 2, disc 0.5 (doubled).
+    // Stability and frontier terms are off until fitted weights supply them.
+    private static final int[] DEFAULT_ROW = {56, 0, 6, 6, 4, 1, 0, 0, 0};
+
+    private final int[][] weights; // [phase][feature]
+
+    Evaluator() {
+        this(defaultWeights());
+    }
+
+    Evaluator(int[][] weights) {
+        if (weights.length != PHASES) {
+            throw new IllegalArgumentException("Expected " + PHASES + " phases, got " + weights.length);
+        }
+        this.weights = new int[PHASES][];
+        for (int p = 0; p < PHASES; p++) {
+            if (weights[p].length != FEATURES) {
+                throw new IllegalArgumentException("Expected " + FEATURES + " weights in phase " + p);
+            }
+            this.weights[p] = weights[p].clone();
+        }
+    }
+
+    static int[][] defaultWeights() {
+        int[][] result = new int[PHASES][];
+        for (int p = 0; p < PHASES; p++) {
+            result[p] = DEFAULT_ROW.clone();
+        }
+        return result;
+    }
+
+    int[][] getWeights() {
+        int[][] copy = new int[PHASES][];
+        for (int p = 0; p < PHASES; p++) {
+            copy[p] = weights[p].clone();
+        }
+        return copy;
+    }
+
+    /** Identifies these weights, so results computed with other weights can be recognised. */
+    long fingerprint() {
+        long h = FEATURES;
+        for (int[] row : weights) {
+            for (int w : row) {
+                h = (h ^ w) * 0x100000001B3L;
+            }
+        }
+        return h;
+    }
+
+    /** Game phase from 0 (opening) to PHASES - 1 (endgame), by number of discs on the board. */
+    static int phase(long occupied) {
+        int discs = Long.bitCount(occupied);
+        return Math.min(PHASES - 1, (discs - 4) * PHASES / (Bitboard.SQUARES - 4));
+    }
+
+    int evaluate(long own, long opp) {
+        int[] w = weights[phase(own | opp)];
+        int score = w[0] * diff(own, opp, Bitboard.CORNERS)
+                + w[1] * diff(own, opp, X_SQUARES)
+                + w[2] * diff(own, opp, C_SQUARES)
+                + w[3] * diff(own, opp, PLAIN_EDGES)
+                + w[4] * (Long.bitCount(Bitboard.moves(own, opp)) - Long.bitCount(Bitboard.moves(opp, own)))
+                + w[5] * (Long.bitCount(own) - Long.bitCount(opp));
+        // The shape terms cost more than the rest together; skip them when unweighted
+        if (w[6] != 0) {
+            score += w[6] * (Long.bitCount(BoardFeatures.stableDiscs(own, opp))
+                    - Long.bitCount(BoardFeatures.stableDiscs(opp, own)));
+        }
+        if (w[7] != 0 || w[8] != 0) {
+            score += w[7] * (Long.bitCount(BoardFeatures.frontier(own, opp))
+                    - Long.bitCount(BoardFeatures.frontier(opp, own)));
+            score += w[8] * (Long.bitCount(BoardFeatures.potentialMobility(own, opp))
+                    - Long.bitCount(BoardFeatures.potentialMobility(opp, own)));
+        }
+        return score;
+    }
+
+    /** Fills out with the feature values that {@link #evaluate} weighs, in FEATURE_NAMES order. */
+    static void features(long own, long opp, int[] out) {
+        out[0] = diff(own, opp, Bitboard.CORNERS);
+        out[1] = diff(own, opp, X_SQUARES);
+        out[2] = diff(own, opp, C_SQUARES);
+        out[3] = diff(own, opp, PLAIN_EDGES);
+        out[4] = Long.bitCount(Bitboard.moves(own, opp)) - Long.bitCount(Bitboard.moves(opp, own));
+        out[5] = Long.bitCount(own) - Long.bitCount(opp);
+        out[6] = Long.bitCount(BoardFeatures.stableDiscs(own, opp)) - Long.bitCount(BoardFeatures.stableDiscs(opp, own));
+        out[7] = Long.bitCount(BoardFeatures.frontier(own, opp)) - Long.bitCount(BoardFeatures.frontier(opp, own));
+        out[8] = Long.bitCount(BoardFeatures.potentialMobility(own, opp))
+                - Long.bitCount(BoardFeatures.potentialMobility(opp, own));
+    }
+
+    private static int diff(long own, long opp, long mask) {
+        return Long.bitCount(own & mask) - Long.bitCount(opp & mask);
+    }
+
+    void save(Path file, String comment) throws IOException {
+        Properties props = new Properties();
+        for (int p = 0; p < PHASES; p++) {
+            for (int f = 0; f < FEATURES; f++) {
+                props.setProperty("phase." + p + "." + FEATURE_NAMES[f], String.valueOf(weights[p][f]));
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            props.store(out, comment);
+        }
+    }
+
+    /** Loads a weights file; features missing from the file keep their default weight. */
+    static Evaluator load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        int[][] result = defaultWeights();
+        for (int p = 0; p < PHASES; p++) {
+            for (int f = 0; f < FEATURES; f++) {
+                String value = props.getProperty("phase." + p + "." + FEATURE_NAMES[f]);
+                if (value != null) {
+                    try {
+                        result[p][f] = Integer.parseInt(value.trim());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad weight for phase " + p + " " + FEATURE_NAMES[f] + ": " + value, e);
+                    }
+                }
+            }
+        }
+        return new Evaluator(result);
+    }
+
+    /** The evaluator engines use by default: fitted weights if a weights file exists, else the built-in ones. */
+    static Evaluator defaultEvaluator() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final Evaluator INSTANCE = loadStartupWeights();
+
+        private static Evaluator loadStartupWeights() {
+            Path file = Paths.get(System.getProperty(WEIGHTS_PROPERTY, DEFAULT_WEIGHTS_FILE));
+            if (!Files.isRegularFile(file)) {
+                return new Evaluator();
+            }
+            try {
+                return load(file);
+            } catch (IOException e) {
+                System.err.println("Ignoring weights file " + file + ": " + e.getMessage());
+                return new Evaluator();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Turns over the discs a move flipped, on screen only. The model has
+ * already moved on when an animation starts, so clicks, undo and the
+ * computer's search carry on while discs are still turning; the animator
+ * just overrides how the flipped cells are drawn until they finish.
+ *
+ * A fixed-rate Swing timer drives the frames. Each disc's progress comes
+ * from the clock rather than from counting frames, so a late or coalesced
+ * tick skips ahead instead of slowing the flip down. A disc shrinks to its
+ * edge showing the old colour and widens again showing the new one; the
+ * widths are quantised to {@link #STEPS} sprites per colour, rendered once,
+ * and a tick repaints only the cells whose sprite changed.
+ *
+ * Discs further from the placed one start later, so the flip ripples out.
+ * Everything here runs on the event thread.
+ */
+final class FlipAnimator {
+    static final int STEPS = 12; // sprite widths per colour, edge-on excluded
+    static final long FLIP_NANOS = 260_000_000L;
+    static final long RIPPLE_NANOS = 45_000_000L; // extra delay per cell of distance from the placed disc
+    private static final int FRAME_MILLIS = 16; // about 60 frames a second
+    private static final int SPRITE_SIZE = 36;
+
+    /** Repaints one board cell. */
+    interface CellPainter {
+        void repaintCell(int row, int col);
+    }
+
+    private static final class Flip {
+        final int row;
+        final int col;
+        final int from;
+        final int to;
+        final long start;
+        int shownFrame = Integer.MIN_VALUE;
+
+        Flip(int row, int col, int from, int to, long start) {
+            this.row = row;
+            this.col = col;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+        }
+    }
+
+    private final Color blackPiece;
+    private final Color whitePiece;
+    private final CellPainter painter;
+    private final LongSupplier clock;
+    private final Timer timer;
+    // Active flips by cell, row * boardSize + col; a new flip of a cell replaces the old one
+    private final Map<Integer, Flip> flips = new LinkedHashMap<>();
+    private BufferedImage[] blackSprites;
+    private BufferedImage[] whiteSprites;
+    private int boardSize;
+
+    FlipAnimator(Color blackPiece, Color whitePiece, CellPainter painter) {
+        this(blackPiece, whitePiece, painter, System::nanoTime);
+    }
+
+    FlipAnimator(Color blackPiece, Color whitePiece, CellPainter painter, LongSupplier clock) {
+        this.blackPiece = blackPiece;
+        this.whitePiece = whitePiece;
+        this.painter = painter;
+        this.clock = clock;
+        this.timer = new Timer(FRAME_MILLIS, e -> tick());
+    }
+
+    /**
+     * Animates every disc that changed colour between the two boards.
+     * The placed disc, the one cell that was empty before, sets the ripple
+     * origin and is not animated.
+     */
+    void start(int[][] before, int[][] after) {
+        long now = clock.getAsLong();
+        boardSize = after.length;
+        int placedRow = -1;
+        int placedCol = -1;
+        for (int row = 0; row < after.length; row++) {
+            for (int col = 0; col < after.length; col++) {
+                if (before[row][col] == OthelloModel.EMPTY && after[row][col] != OthelloModel.EMPTY) {
+                    placedRow = row;
+                    placedCol = col;
+                }
+            }
+        }
+        for (int row = 0; row < after.length; row++) {
+            for (int col = 0; col < after.length; col++) {
+                int from = before[row][col];
+                int to = after[row][col];
+                if (from != OthelloModel.EMPTY && to != OthelloModel.EMPTY && from != to) {
+                    int distance = placedRow < 0 ? 0 : Math.max(Math.abs(row - placedRow), Math.abs(col - placedCol));
+                    long delay = Math.max(0, distance - 1) * RIPPLE_NANOS;
+                    flips.put(row * boardSize + col, new Flip(row, col, from, to, now + delay));
+                }
+            }
+        }
+        if (!flips.isEmpty() && !timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /** Drops every animation; the board shows the model as it is. */
+    void cancel() {
+        timer.stop();
+        for (Flip flip : flips.values()) {
+            painter.repaintCell(flip.row, flip.col);
+        }
+        flips.clear();
+    }
+
+    boolean isAnimating() {
+        return !flips.isEmpty();
+    }
+
+    /**
+     * Draws the disc of one cell centred on (x, y): the current frame if
+     * the cell is turning over to the given colour, the plain disc otherwise.
+     */
+    void drawDisc(Graphics2D g2d, int row, int col, int color, int x, int y) {
+        Flip flip = flips.isEmpty() ? null : flips.get(row * boardSize + col);
+        if (flip == null || flip.to != color) {
+            // Not animating, or the board changed under the animation (undo, jump)
+            g2d.drawImage(sprite(color, STEPS), x - SPRITE_SIZE / 2, y - SPRITE_SIZE / 2, null);
+            return;
+        }
+        int frame = frame(clock.getAsLong() - flip.start);
+        if (frame != 0) {
+            int shown = frame < 0 ? flip.from : flip.to;
+            g2d.drawImage(sprite(shown, Math.abs(frame)), x - SPRITE_SIZE / 2, y - SPRITE_SIZE / 2, null);
+        }
+    }
+
+    /**
+     * The frame elapsed nanoseconds into a flip: -STEPS..-1 for the old
+     * colour narrowing, 0 edge-on, 1..STEPS for the new colour widening.
+     */
+    static int frame(long elapsed) {
+        if (elapsed <= 0) {
+            return -STEPS;
+        }
+        if (elapsed >= FLIP_NANOS) {
+            return STEPS;
+        }
+        double t = (double) elapsed / FLIP_NANOS;
+        t = t * t * (3 - 2 * t); // ease in and out
+        int width = (int) Math.round(Math.abs(Math.cos(Math.PI * t)) * STEPS);
+        return t < 0.5 ? -width : width;
+    }
+
+    /** Advances every flip to the clock, repainting cells that changed; the timer calls this each frame. */
+    void tick() {
+        long now = clock.getAsLong();
+        Iterator<Flip> it = flips.values().iterator();
+        while (it.hasNext()) {
+            Flip flip = it.next();
+            long elapsed = now - flip.start;
+            int frame = frame(elapsed);
+            if (frame != flip.shownFrame) {
+                flip.shownFrame = frame;
+                painter.repaintCell(flip.row, flip.col);
+            }
+            if (elapsed >= FLIP_NANOS) {
+                it.remove(); // the final frame is the plain disc
+            }
+        }
+        if (flips.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    private BufferedImage sprite(int color, int step) {
+        if (blackSprites == null) {
+            blackSprites = new BufferedImage[STEPS + 1];
+            whiteSprites = new BufferedImage[STEPS + 1];
+        }
+        BufferedImage[] sprites = color == OthelloModel.BLACK ? blackSprites : whiteSprites;
+        if (sprites[step] == null) {
+            sprites[step] = render(color == OthelloModel.BLACK ? blackPiece : whitePiece, (double) step / STEPS);
+        }
+        return sprites[step];
+    }
+
+    // The disc as the board has always drawn it, squeezed horizontally to the given width
+    private static BufferedImage render(Color color, double width) {
+        BufferedImage image = new BufferedImage(SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.translate(SPRITE_SIZE / 2, SPRITE_SIZE / 2);
+            g2d.scale(width, 1);
+
+            // Draw shadow
+            g2d.setColor(new Color(0, 0, 0, 50));
+            g2d.fillOval(-18, -18, 36, 36);
+
+            // Draw piece
+            g2d.setColor(color);
+            g2d.fillOval(-16, -16, 32, 32);
+
+            // Draw highlight
+            g2d.setColor(color.brighter());
+            g2d.fillOval(-12, -12, 8, 8);
+
+            // Draw border
+            g2d.setColor(Color.BLACK);
+            g2d.setStroke(new BasicStroke(1));
+            g2d.drawOval(-16, -16, 32, 32);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move history as a tree of {@link Position}s, so that undone lines survive
+ * as variations. The current line (root to the tip of the active variation)
+ * is kept in an array, so undo, redo and jumping to a ply are O(1); playing
+ * a move appends one node.
+ */
+class GameHistory {
+    private static final class Node {
+        final Position position;
+        final int square; // move that led here, -1 for the root
+        final List<Node> children = new ArrayList<>(1);
+        Node preferred; // child to follow on redo: the most recently visited one
+
+        Node(Position position, int square) {
+            this.position = position;
+            this.square = square;
+        }
+    }
+
+    private final List<Node> line = new ArrayList<>();
+    private int cursor;
+
+    GameHistory(Position start) {
+        line.add(new Node(start, -1));
+        cursor = 0;
+    }
+
+    Position current() {
+        return line.get(cursor).position;
+    }
+
+    int ply() {
+        return cursor;
+    }
+
+    /** Number of plies on the active line, including any redo tail. */
+    int length() {
+        return line.size() - 1;
+    }
+
+    boolean canUndo() {
+        return cursor > 0;
+    }
+
+    boolean canRedo() {
+        return cursor < line.size() - 1;
+    }
+
+    Position undo() {
+        if (canUndo()) {
+            cursor--;
+        }
+        return current();
+    }
+
+    Position redo() {
+        if (canRedo()) {
+            cursor++;
+        }
+        return current();
+    }
+
+    Position jumpTo(int ply) {
+        if (ply < 0 || ply >= line.size()) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " outside 0.." + length());
+        }
+        cursor = ply;
+        return current();
+    }
+
+    /** Squares played from the start position up to the current ply. */
+    List<Integer> moves() {
+        List<Integer> result = new ArrayList<>(cursor);
+        for (int i = 1; i <= cursor; i++) {
+            result.add(line.get(i).square);
+        }
+        return result;
+    }
+
+    /** Squares of every variation branching from the current ply, most recent last. */
+    List<Integer> variations() {
+        List<Integer> result = new ArrayList<>();
+        for (Node child : line.get(cursor).children) {
+            result.add(child.square);
+        }
+        return result;
+    }
+
+    /**
+     * Records that square was played from the current position, reaching after.
+     * Replaying a known move follows its existing variation instead of adding one.
+     */
+    void play(int square, Position after) {
+        Node node = line.get(cursor);
+        if (canRedo() && line.get(cursor + 1).square == square) {
+            cursor++;
+            return;
+        }
+
+        Node next = null;
+        for (Node child : node.children) {
+            if (child.square == square) {
+                next = child;
+                break;
+            }
+        }
+        if (next == null) {
+            next = new Node(after, square);
+            node.children.add(next);
+        }
+        node.preferred = next;
+
+        // Switch the active line to the chosen branch and its remembered continuation
+        line.subList(cursor + 1, line.size()).clear();
+        for (Node n = next; n != null; n = n.preferred) {
+            line.add(n);
+        }
+        cursor++;
+    }
+}
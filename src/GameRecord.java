@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded 8x8 game as a move transcript such as {@code "f5d6c3d3c4"}.
+ * Moves may be separated by whitespace or commas; passes are implicit.
+ * Parsing replays the game once and keeps the position at every ply.
+ */
+public final class GameRecord {
+    private final List<Integer> squares;
+    private final List<Position> positions;
+
+    private GameRecord(List<Integer> squares, List<Position> positions) {
+        this.squares = Collections.unmodifiableList(squares);
+        this.positions = Collections.unmodifiableList(positions);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the transcript has a malformed or illegal move
+     */
+    public static GameRecord parse(String transcript) {
+        String compact = transcript.replaceAll("[\\s,]+", "");
+        if (compact.length() % 2 != 0) {
+            throw new IllegalArgumentException("Transcript has a dangling character");
+        }
+        OthelloModel model = new OthelloModel();
+        List<Integer> squares = new ArrayList<>();
+        List<Position> positions = new ArrayList<>();
+        positions.add(model.getPosition());
+        for (int i = 0; i < compact.length(); i += 2) {
+            String name = compact.substring(i, i + 2);
+            int sq = Bitboard.parseSquare(name);
+            if (sq < 0) {
+                throw new IllegalArgumentException("Bad move '" + name + "' at ply " + (squares.size() + 1));
+            }
+            if (!model.makeMove(sq / Bitboard.SIZE, sq % Bitboard.SIZE, model.getCurrentPlayer())) {
+                throw new IllegalArgumentException("Illegal move " + name + " at ply " + (squares.size() + 1));
+            }
+            squares.add(sq);
+            positions.add(model.getPosition());
+        }
+        return new GameRecord(squares, positions);
+    }
+
+    public static GameRecord of(OthelloModel model) {
+        StringBuilder sb = new StringBuilder();
+        for (int[] move : model.getMoveHistory()) {
+            sb.append(Bitboard.squareName(Bitboard.square(move[0], move[1])));
+        }
+        return parse(sb.toString());
+    }
+
+    public int plies() {
+        return squares.size();
+    }
+
+    /** Squares played, in order. */
+    public List<Integer> getSquares() {
+        return squares;
+    }
+
+    /** Position before the first move (index 0) through the final position (index plies()). */
+    public List<Position> getPositions() {
+        return positions;
+    }
+
+    /** Builds a model with the whole game in its history, positioned at the last ply. */
+    public OthelloModel toModel() {
+        OthelloModel model = new OthelloModel();
+        for (int sq : squares) {
+            model.makeMove(sq / Bitboard.SIZE, sq % Bitboard.SIZE, model.getCurrentPlayer());
+        }
+        return model;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(squares.size() * 2);
+        for (int sq : squares) {
+            sb.append(Bitboard.squareName(sq));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Precomputed masks for the engine, generated ahead of time into the
+ * binary resource {@value #RESOURCE} and loaded on first use.
+ *
+ * Regenerate the resource after changing a table (run from the compiled
+ * classes, writing into the source tree so it is packaged with them):
+ * <pre>java LookupTables src/othello-tables.bin</pre>
+ * The file is a header (magic, version, table count) followed by each
+ * table as a length and that many big-endian longs; it is read with one
+ * bulk {@code LongBuffer} copy per table. Nothing is read until an engine
+ * first asks for a table, so starting the GUI or the text engine pays
+ * nothing. If the resource is missing or out of date the tables are
+ * computed instead, which gives the same values a little more slowly.
+ */
+final class LookupTables {
+    static final String RESOURCE = "othello-tables.bin";
+
+    private static final int MAGIC = 0x4F544C54; // "OTLT"
+    private static final int VERSION = 1;
+    private static final int TABLES = 1;
+
+    private LookupTables() {
+    }
+
+    /**
+     * RAYS[sq * 8 + dir]: the squares beyond sq in direction dir (see
+     * {@link Bitboard#shift}), up to the edge of the board.
+     */
+    static long[] rays() {
+        return Holder.RAYS;
+    }
+
+    /** True if the tables came from the generated resource rather than being computed. */
+    static boolean loadedFromResource() {
+        return Holder.FROM_RESOURCE;
+    }
+
+    private static final class Holder {
+        static final long[] RAYS;
+        static final boolean FROM_RESOURCE;
+
+        static {
+            long[][] tables = null;
+            try (InputStream in = LookupTables.class.getResourceAsStream("/" + RESOURCE)) {
+                if (in != null) {
+                    tables = read(in.readAllBytes());
+                }
+            } catch (IOException e) {
+                tables = null;
+            }
+            FROM_RESOURCE = tables != null;
+            RAYS = FROM_RESOURCE ? tables[0] : computeRays();
+        }
+    }
+
+    static long[] computeRays() {
+        long[] rays = new long[Bitboard.SQUARES * Bitboard.NUM_DIRECTIONS];
+        for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+            for (int dir = 0; dir < Bitboard.NUM_DIRECTIONS; dir++) {
+                long ray = 0L;
+                for (long x = Bitboard.shift(1L << sq, dir); x != 0; x = Bitboard.shift(x, dir)) {
+                    ray |= x;
+                }
+                rays[sq * Bitboard.NUM_DIRECTIONS + dir] = ray;
+            }
+        }
+        return rays;
+    }
+
+    /** Every table in resource order, freshly computed. */
+    static long[][] compute() {
+        return new long[][]{computeRays()};
+    }
+
+    static void write(long[][] tables, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(tables.length);
+        for (long[] table : tables) {
+            data.writeInt(table.length);
+            for (long value : table) {
+                data.writeLong(value);
+            }
+        }
+        data.flush();
+    }
+
+    /** The tables in a generated file, or null if it is not one of this version's. */
+    static long[][] read(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 3 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != TABLES) {
+            return null;
+        }
+        long[][] tables = new long[TABLES][];
+        for (int t = 0; t < TABLES; t++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                return null;
+            }
+            int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() < (long) length * Long.BYTES) {
+                return null;
+            }
+            LongBuffer longs = buffer.asLongBuffer();
+            tables[t] = new long[length];
+            longs.get(tables[t]);
+            buffer.position(buffer.position() + length * Long.BYTES);
+        }
+        return buffer.hasRemaining() ? null : tables;
+    }
+
+    /** Build step: writes the generated resource to the given path. */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "src/" + RESOURCE);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(compute(), out);
+        }
+        System.err.println("Wrote " + Files.size(file) + " bytes to " + file);
+    }
+}
@@ -1,9 +1,133 @@
 public class Main {
-    public static void main(String[] args) {
+    private static final long MAX_CACHE_MEGABYTES = 1 << 20;
+    private static final String USAGE = "Usage: Main [--size N] [--level NAME] [--move-delay MS]"
+            + " [--cache FILE] [--cache-size MB] [--timing] [--profile] [--trace FILE]";
+
+    public static void main(String[] args) throws Exception {
+        // "--timing" anywhere reports time to first frame and to the first engine move
+        if (java.util.Arrays.asList(args).contains("--timing")) {
+            StartupTiming.enable();
+            args = java.util.Arrays.stream(args).filter(a -> !a.equals("--timing")).toArray(String[]::new);
+        }
+
+        // "--profile" counts calls to the model's hot operations (see ModelProfiler) and prints
+        // them on exit; it must be set before any model class is loaded
+        if (java.util.Arrays.asList(args).contains("--profile")) {
+            System.setProperty("othello.profile", "true");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> ModelProfiler.report(System.err)));
+            args = java.util.Arrays.stream(args).filter(a -> !a.equals("--profile")).toArray(String[]::new);
+        }
+
+        // "--trace FILE" records every call to the model into FILE for WorkloadTrace to replay;
+        // like "--profile" it must be set before any model class is loaded
+        int trace = java.util.Arrays.asList(args).indexOf("--trace");
+        if (trace >= 0) {
+            System.setProperty("othello.trace", value(args, trace));
+            String[] rest = new String[args.length - 2];
+            System.arraycopy(args, 0, rest, 0, trace);
+            System.arraycopy(args, trace + 2, rest, trace, args.length - trace - 2);
+            args = rest;
+        }
+
+        // Headless text engine on stdin/stdout: "--engine" (see EngineProtocol)
+        if (args.length > 0 && args[0].equals("--engine")) {
+            EngineProtocol.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Headless batch analysis: "--analyze [options] [file]" (see BatchAnalyzer)
+        if (args.length > 0 && args[0].equals("--analyze")) {
+            BatchAnalyzer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Optional "--size N" selects a research board size (default 8x8),
+        // "--level NAME" the computer's strength and "--move-delay MS" its minimum reply time.
+        // "--cache FILE" keeps search results in that file across restarts ("--cache-size MB")
+        int boardSize = OthelloModel.BOARD_SIZE;
+        Difficulty difficulty = Difficulty.DEFAULT;
+        long moveDelay = -1;
+        String cacheFile = null;
+        long cacheMegabytes = BatchAnalyzer.DEFAULT_CACHE_MEGABYTES;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--size")) {
+                long size = number(args, i++);
+                if (size < OthelloModel.MIN_BOARD_SIZE || size > OthelloModel.MAX_BOARD_SIZE || size % 2 != 0) {
+                    usage("--size must be even and between " + OthelloModel.MIN_BOARD_SIZE + " and "
+                            + OthelloModel.MAX_BOARD_SIZE + ": " + args[i]);
+                }
+                boardSize = (int) size;
+            } else if (args[i].equals("--level")) {
+                try {
+                    difficulty = Difficulty.parse(value(args, i++));
+                } catch (IllegalArgumentException e) {
+                    usage(e.getMessage());
+                }
+            } else if (args[i].equals("--move-delay")) {
+                moveDelay = number(args, i++);
+                if (moveDelay < 0) {
+                    usage("--move-delay must not be negative: " + args[i]);
+                }
+            } else if (args[i].equals("--cache")) {
+                cacheFile = value(args, i++);
+            } else if (args[i].equals("--cache-size")) {
+                cacheMegabytes = number(args, i++);
+                if (cacheMegabytes < 1 || cacheMegabytes > MAX_CACHE_MEGABYTES) {
+                    usage("--cache-size must be between 1 and " + MAX_CACHE_MEGABYTES + " MB: " + args[i]);
+                }
+            }
+        }
+
+        TranspositionTable cache = null;
+        if (cacheFile != null) {
+            try {
+                cache = TranspositionTable.mapCache(java.nio.file.Paths.get(cacheFile), cacheMegabytes);
+            } catch (java.io.IOException e) {
+                System.err.println("Ignoring cache file " + cacheFile + ": " + e.getMessage());
+            }
+        }
+
         // Launch the Othello game
+        final int size = boardSize;
+        final Difficulty level = difficulty;
+        final long delay = moveDelay;
+        final TranspositionTable warmStart = cache;
         javax.swing.SwingUtilities.invokeLater(() -> {
-            OthelloGUI game = new OthelloGUI();
+            OthelloGUI game = new OthelloGUI(size);
+            game.setDifficulty(level);
+            if (warmStart != null) {
+                game.setWarmStartCache(warmStart);
+            }
+            if (delay >= 0) {
+                game.setMinimumMoveDelay(delay);
+            }
             game.setVisible(true);
         });
     }
-}
\ No newline at end of file
+
+    /** The value following the option at args[i]; a usage error if there is none. */
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            usage(args[i] + " needs a value");
+        }
+        return args[i + 1];
+    }
+
+    /** The whole number following the option at args[i]; a usage error if it is missing or malformed. */
+    private static long number(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            usage(args[i] + " expects a whole number: " + value);
+            return 0; // not reached
+        }
+    }
+
+    /** Reports bad command-line input and exits, as a usage error rather than a stack trace. */
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -0,0 +1,377 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Parallel Monte Carlo Tree Search (UCT) for the 8x8 board.
+ *
+ * Worker threads share one tree and use virtual loss so they spread out over
+ * different lines. Playouts run directly on bitboards and allocate nothing.
+ * The searched tree is kept between calls: when the next position is a
+ * descendant of the previous root (our move plus the reply), that subtree
+ * becomes the new root and its statistics carry over.
+ *
+ * Strength is an anytime knob: search for a time budget and/or a playout
+ * budget. For a fixed time budget, more threads give more playouts.
+ */
+public class MctsEngine implements AutoCloseable {
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2.0);
+    public static final int PASS = -1;
+
+    private static final int VIRTUAL_LOSS = 1;
+    private static final int REUSE_SEARCH_DEPTH = 4;
+
+    private final int threads;
+    private final double exploration;
+    private final ExecutorService pool;
+
+    private Node root;
+
+    public MctsEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_EXPLORATION);
+    }
+
+    public MctsEngine(int threads, double exploration) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.exploration = exploration;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mcts-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /** Outcome of one search call. */
+    public static final class Result {
+        /** Chosen square (row * 8 + col), or {@link #PASS} if the side to move has no move. */
+        public final int square;
+        public final long playouts;
+        public final long elapsedMillis;
+        /** Expected score of the chosen move for the side to move, 0 (loss) to 1 (win). */
+        public final double winRate;
+        /** Playouts already in the reused subtree when the search started. */
+        public final long reusedVisits;
+
+        Result(int square, long playouts, long elapsedMillis, double winRate, long reusedVisits) {
+            this.square = square;
+            this.playouts = playouts;
+            this.elapsedMillis = elapsedMillis;
+            this.winRate = winRate;
+            this.reusedVisits = reusedVisits;
+        }
+
+        public int[] toMove() {
+            return square == PASS ? null : new int[]{square / Bitboard.SIZE, square % Bitboard.SIZE};
+        }
+
+        public double playoutsPerSecond() {
+            return elapsedMillis == 0 ? playouts * 1000.0 : playouts * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("move=%d playouts=%d (%.0f/s) winRate=%.3f reused=%d",
+                    square, playouts, playoutsPerSecond(), winRate, reusedVisits);
+        }
+    }
+
+    /**
+     * Picks a move for the model's current player on an 8x8 model.
+     * @return {row, col}, or null when the current player has no move
+     */
+    public int[] chooseMove(OthelloModel model, long millis) {
+        int player = model.getCurrentPlayer();
+        Result result = search(model.getBitboard(OthelloModel.BLACK),
+                model.getBitboard(OthelloModel.WHITE), player, millis, Long.MAX_VALUE);
+        return result.toMove();
+    }
+
+    /**
+     * Searches until the time budget or the playout budget runs out, whichever comes first.
+     * @param sideToMove {@link OthelloModel#BLACK} or {@link OthelloModel#WHITE}
+     */
+    public synchronized Result search(long black, long white, int sideToMove, long millis, long maxPlayouts) {
+        long start = System.nanoTime();
+        long deadline = start + Math.max(0, millis) * 1_000_000L;
+
+        root = reuseOrCreateRoot(black, white, sideToMove);
+        long reused = root.visits;
+        if (root.isTerminal() || root.moves == 0) {
+            return new Result(PASS, 0, 0, 0.0, reused);
+        }
+        root.expand();
+
+        AtomicLong budget = new AtomicLong(maxPlayouts);
+        List<Future<Long>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            long seed = System.nanoTime() * 0x9E3779B97F4A7C15L + i;
+            Node searchRoot = root;
+            futures.add(pool.submit(() -> new Worker(seed).run(searchRoot, deadline, budget)));
+        }
+        long playouts = 0;
+        for (Future<Long> future : futures) {
+            try {
+                playouts += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("MCTS worker failed", e.getCause());
+            }
+        }
+
+        Node best = mostVisitedChild(root);
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        double winRate = best.visits == 0 ? 0.0 : best.score / (2.0 * best.visits);
+        return new Result(best.square, playouts, elapsed, winRate, reused);
+    }
+
+    /** Drops the kept tree, e.g. when a new game starts. */
+    public synchronized void reset() {
+        root = null;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private Node reuseOrCreateRoot(long black, long white, int sideToMove) {
+        if (root != null) {
+            Node match = find(root, black, white, sideToMove, REUSE_SEARCH_DEPTH);
+            if (match != null) {
+                return match;
+            }
+        }
+        return new Node(black, white, sideToMove, PASS);
+    }
+
+    private static Node find(Node node, long black, long white, int side, int depth) {
+        if (node.black == black && node.white == white && node.sideToMove == side) {
+            return node;
+        }
+        Node[] children = node.children;
+        if (depth == 0 || children == null) {
+            return null;
+        }
+        for (Node child : children) {
+            Node match = find(child, black, white, side, depth - 1);
+            if (match != null) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    private static Node mostVisitedChild(Node node) {
+        Node best = null;
+        for (Node child : node.children) {
+            if (best == null || child.visits > best.visits) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tree node. Statistics are updated lock-free through field updaters;
+     * only expansion takes the node's monitor.
+     */
+    private static final class Node {
+        private static final AtomicIntegerFieldUpdater<Node> VISITS =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        private static final AtomicIntegerFieldUpdater<Node> IN_FLIGHT =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "inFlight");
+        private static final AtomicLongFieldUpdater<Node> SCORE =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "score");
+
+        final long black;
+        final long white;
+        final int sideToMove;
+        final int square; // move that led here, or PASS
+        final long moves; // legal moves for sideToMove
+        final boolean terminal;
+
+        volatile Node[] children;
+        volatile int visits;
+        volatile int inFlight;
+        // In half points for the player who moved into this node: win 2, draw 1, loss 0
+        volatile long score;
+
+        Node(long black, long white, int sideToMove, int square) {
+            this.black = black;
+            this.white = white;
+            this.sideToMove = sideToMove;
+            this.square = square;
+            long own = sideToMove == OthelloModel.BLACK ? black : white;
+            long opp = sideToMove == OthelloModel.BLACK ? white : black;
+            this.moves = Bitboard.moves(own, opp);
+            this.terminal = moves == 0 && Bitboard.moves(opp, own) == 0;
+        }
+
+        boolean isTerminal() {
+            return terminal;
+        }
+
+        Node[] expand() {
+            Node[] result = children;
+            if (result != null) {
+                return result;
+            }
+            synchronized (this) {
+                if (children == null) {
+                    children = createChildren();
+                }
+                return children;
+            }
+        }
+
+        private Node[] createChildren() {
+            int next = OthelloModel.opponentOf(sideToMove);
+            if (moves == 0) {
+                // Forced pass: a single child with the other side to move
+                return new Node[]{new Node(black, white, next, PASS)};
+            }
+            Node[] result = new Node[Long.bitCount(moves)];
+            long own = sideToMove == OthelloModel.BLACK ? black : white;
+            long opp = sideToMove == OthelloModel.BLACK ? white : black;
+            int i = 0;
+            for (long m = moves; m != 0; m &= m - 1) {
+                int sq = Long.numberOfTrailingZeros(m);
+                long flipped = Bitboard.flips(sq, own, opp);
+                long newOwn = own | flipped | (1L << sq);
+                long newOpp = opp & ~flipped;
+                result[i++] = sideToMove == OthelloModel.BLACK
+                        ? new Node(newOwn, newOpp, next, sq)
+                        : new Node(newOpp, newOwn, next, sq);
+            }
+            return result;
+        }
+    }
+
+    /** One search thread: select, expand, play out, back up. */
+    private final class Worker {
+        private final Node[] path = new Node[Bitboard.SQUARES * 2 + 2];
+        private long rng;
+
+        Worker(long seed) {
+            rng = seed == 0 ? 0x2545F4914F6CDD1DL : seed;
+        }
+
+        long run(Node root, long deadline, AtomicLong budget) {
+            long playouts = 0;
+            while (budget.getAndDecrement() > 0) {
+                iterate(root);
+                playouts++;
+                // Checking the clock every playout is cheap relative to a playout
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+            return playouts;
+        }
+
+        private void iterate(Node root) {
+            int length = 0;
+            Node node = root;
+            path[length++] = node;
+            Node.IN_FLIGHT.addAndGet(node, VIRTUAL_LOSS);
+            while (!node.isTerminal() && node.visits > 0) {
+                node = select(node.expand());
+                path[length++] = node;
+                Node.IN_FLIGHT.addAndGet(node, VIRTUAL_LOSS);
+            }
+
+            int winner = playout(node.black, node.white, node.sideToMove);
+
+            for (int i = 0; i < length; i++) {
+                Node n = path[i];
+                int mover = OthelloModel.opponentOf(n.sideToMove);
+                long points = winner == OthelloModel.EMPTY ? 1 : (winner == mover ? 2 : 0);
+                Node.SCORE.addAndGet(n, points);
+                Node.VISITS.incrementAndGet(n);
+                Node.IN_FLIGHT.addAndGet(n, -VIRTUAL_LOSS);
+                path[i] = null;
+            }
+        }
+
+        private Node select(Node[] children) {
+            int parentVisits = 0;
+            for (Node child : children) {
+                parentVisits += child.visits + child.inFlight;
+            }
+            double logParent = Math.log(Math.max(1, parentVisits));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                // In-flight visits count as losses (virtual loss)
+                int n = child.visits + child.inFlight;
+                double value;
+                if (n == 0) {
+                    value = Double.POSITIVE_INFINITY;
+                } else {
+                    value = child.score / (2.0 * n) + exploration * Math.sqrt(logParent / n);
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /** Uniformly random playout to the end of the game; returns the winner or EMPTY for a draw. */
+        private int playout(long black, long white, int sideToMove) {
+            boolean blackToMove = sideToMove == OthelloModel.BLACK;
+            long own = blackToMove ? black : white;
+            long opp = blackToMove ? white : black;
+            while (true) {
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    if (Bitboard.moves(opp, own) == 0) {
+                        break;
+                    }
+                } else {
+                    for (int k = nextInt(Long.bitCount(moves)); k > 0; k--) {
+                        moves &= moves - 1;
+                    }
+                    int sq = Long.numberOfTrailingZeros(moves);
+                    long flipped = Bitboard.flips(sq, own, opp);
+                    own |= flipped | (1L << sq);
+                    opp &= ~flipped;
+                }
+                long tmp = own;
+                own = opp;
+                opp = tmp;
+                blackToMove = !blackToMove;
+            }
+            int blackCount = Long.bitCount(blackToMove ? own : opp);
+            int whiteCount = Long.bitCount(blackToMove ? opp : own);
+            if (blackCount > whiteCount) return OthelloModel.BLACK;
+            if (whiteCount > blackCount) return OthelloModel.WHITE;
+            return OthelloModel.EMPTY;
+        }
+
+        private int nextInt(int bound) {
+            // xorshift64*
+            rng ^= rng >>> 12;
+            rng ^= rng << 25;
+            rng ^= rng >>> 27;
+            long r = (rng * 0x2545F4914F6CDD1DL) >>> 33;
+            return (int) ((r * bound) >>> 31);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.PrintStream;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts and cumulative time for the model's hot operations, broken
+ * down by the ply the game was at when they were called.
+ *
+ * Off unless the JVM starts with {@code -Dothello.profile=true} (or Main's
+ * {@code --profile}). {@link #ENABLED} is a static final, so once this
+ * class is initialised the JIT treats it as a constant: with profiling off
+ * every {@code if (ModelProfiler.ENABLED)} block is dead code, compiled
+ * out, and the instrumented methods cost nothing. With it on, counters
+ * are {@link LongAdder}s, striped per thread, so GUI, engine and spectator
+ * threads calling in at once do not contend on one cache line.
+ *
+ * Times are inclusive (checkGameOver includes its hasValidMoves calls).
+ * canFlipInDirection is only counted: it runs in nanoseconds, and reading
+ * the clock around it would cost more than the call. The ply is the
+ * number of discs placed since the start position, as last published by
+ * any model, so the breakdown is only meaningful with one game at a time.
+ *
+ * Run {@code java -Dothello.profile=true ModelProfiler [games] [seed] [size]}
+ * to profile random headless games; the GUI prints the report on F12.
+ */
+final class ModelProfiler {
+    static final boolean ENABLED = Boolean.getBoolean("othello.profile");
+
+    enum Op {
+        MAKE_MOVE("makeMove"),
+        IS_VALID_MOVE("isValidMove"),
+        CAN_FLIP_IN_DIRECTION("canFlipInDirection"),
+        HAS_VALID_MOVES("hasValidMoves"),
+        CHECK_GAME_OVER("checkGameOver"),
+        NO_VALID_MOVES("currentPlayerHasNoValidMoves"),
+        GET_VALID_MOVES("getValidMoves"),
+        GET_GREEDY_MOVE("getGreedyMove"),
+        PUBLISH("publish");
+
+        final String label;
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int OPS = Op.values().length;
+    private static final int MAX_PLY = OthelloModel.MAX_BOARD_SIZE * OthelloModel.MAX_BOARD_SIZE - 4;
+
+    // [ply][op], allocated only when profiling
+    private static final LongAdder[][] CALLS = ENABLED ? adders() : null;
+    private static final LongAdder[][] NANOS = ENABLED ? adders() : null;
+    private static volatile int ply;
+
+    private ModelProfiler() {
+    }
+
+    private static LongAdder[][] adders() {
+        LongAdder[][] adders = new LongAdder[MAX_PLY + 1][OPS];
+        for (LongAdder[] row : adders) {
+            for (int op = 0; op < OPS; op++) {
+                row[op] = new LongAdder();
+            }
+        }
+        return adders;
+    }
+
+    /** Start time for {@link #record}, or 0 without reading the clock when profiling is off. */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /** Counts one call that began at startNanos. Callers guard this with ENABLED. */
+    static void record(Op op, long startNanos) {
+        record(op, startNanos, ply);
+    }
+
+    /** As {@link #record(Op, long)}, charged to the given ply rather than the current one. */
+    static void record(Op op, long startNanos, int atPly) {
+        long elapsed = System.nanoTime() - startNanos;
+        CALLS[atPly][op.ordinal()].increment();
+        NANOS[atPly][op.ordinal()].add(elapsed);
+    }
+
+    static int currentPly() {
+        return ply;
+    }
+
+    /** Counts one call without timing it. Callers guard this with ENABLED. */
+    static void count(Op op) {
+        CALLS[ply][op.ordinal()].increment();
+    }
+
+    /** Sets the ply that following calls are charged to, from the discs on the board. */
+    static void setPly(int discs) {
+        ply = Math.max(0, Math.min(MAX_PLY, discs - 4));
+    }
+
+    static long calls(Op op) {
+        return sum(CALLS, op);
+    }
+
+    static long nanos(Op op) {
+        return sum(NANOS, op);
+    }
+
+    private static long sum(LongAdder[][] adders, Op op) {
+        if (adders == null) {
+            return 0;
+        }
+        long total = 0;
+        for (LongAdder[] row : adders) {
+            total += row[op.ordinal()].sum();
+        }
+        return total;
+    }
+
+    static void reset() {
+        if (ENABLED) {
+            for (int p = 0; p <= MAX_PLY; p++) {
+                for (int op = 0; op < OPS; op++) {
+                    CALLS[p][op].reset();
+                    NANOS[p][op].reset();
+                }
+            }
+        }
+    }
+
+    /** Totals per operation, then calls per operation for every ply that saw any. */
+    static void report(PrintStream out) {
+        if (!ENABLED) {
+            out.println("Model profiling is off; start the JVM with -Dothello.profile=true");
+            return;
+        }
+        out.printf("%-30s %12s %12s %10s%n", "operation", "calls", "total ms", "ns/call");
+        for (Op op : Op.values()) {
+            long calls = calls(op);
+            if (calls > 0) {
+                long nanos = nanos(op);
+                if (op == Op.CAN_FLIP_IN_DIRECTION) {
+                    out.printf("%-30s %12d %12s %10s%n", op.label, calls, "-", "-");
+                } else {
+                    out.printf("%-30s %12d %12.3f %10d%n", op.label, calls, nanos / 1e6, nanos / calls);
+                }
+            }
+        }
+        out.println();
+        out.print("ply ");
+        for (Op op : Op.values()) {
+            if (calls(op) > 0) {
+                out.printf(" %14s", abbreviate(op.label));
+            }
+        }
+        out.println();
+        for (int p = 0; p <= MAX_PLY; p++) {
+            long any = 0;
+            for (int op = 0; op < OPS; op++) {
+                any += CALLS[p][op].sum();
+            }
+            if (any == 0) {
+                continue;
+            }
+            out.printf("%3d ", p);
+            for (Op op : Op.values()) {
+                if (calls(op) > 0) {
+                    out.printf(" %14d", CALLS[p][op.ordinal()].sum());
+                }
+            }
+            out.println();
+        }
+    }
+
+    private static String abbreviate(String label) {
+        return label.length() <= 14 ? label : label.substring(0, 13) + ".";
+    }
+
+    /** Plays random games through the model's public API, the way the GUI does, and prints the profile. */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : OthelloModel.BOARD_SIZE;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int g = 0; g < games; g++) {
+            OthelloModel model = new OthelloModel(size);
+            while (!model.isGameOver()) {
+                int player = model.getCurrentPlayer();
+                if (model.currentPlayerHasNoValidMoves()) {
+                    break;
+                }
+                List<int[]> moves = model.getValidMoves(player);
+                int[] move = random.nextInt(4) == 0 ? model.getGreedyMove(player)
+                        : moves.get(random.nextInt(moves.size()));
+                model.makeMove(move[0], move[1], player);
+                model.getScore();
+            }
+        }
+        report(System.out);
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.SplittableRandom;
+
+/**
+ * Positions per second for legal-move generation three ways: a fresh
+ * {@link OthelloModel} per position asked for {@code getValidMoves}, one
+ * {@link Bitboard#moves} call per position, and the {@link BatchMoves}
+ * array kernel. Flip computation is timed the same way for the two
+ * bitboard paths.
+ *
+ * Usage: {@code MoveGenBenchmark [--positions N] [--rounds R] [--seed S]}
+ */
+public class MoveGenBenchmark {
+    public static final int DEFAULT_POSITIONS = 1 << 16;
+    public static final int DEFAULT_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int count = DEFAULT_POSITIONS;
+        int rounds = DEFAULT_ROUNDS;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--positions": count = Integer.parseInt(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long[] own = new long[count];
+        long[] opp = new long[count];
+        randomPositions(own, opp, seed);
+        long[] moves = new long[count];
+        int[] squares = new int[count];
+        long[] flips = new long[count];
+        BatchMoves.movesScalar(own, opp, moves, count);
+        for (int i = 0; i < count; i++) {
+            // Lowest legal move, or a random (usually illegal) square when there is none
+            squares[i] = moves[i] != 0 ? Long.numberOfTrailingZeros(moves[i]) : i & 63;
+        }
+
+        // Fewer rounds for the model path, which is orders of magnitude slower
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            boolean last = round == rounds - 1;
+            long start = System.nanoTime();
+            int modelPositions = count / 16;
+            for (int i = 0; i < modelPositions; i++) {
+                sink += OthelloModel.fromBitboards(own[i], opp[i], OthelloModel.BLACK)
+                        .getValidMoves(OthelloModel.BLACK).size();
+            }
+            long model = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BatchMoves.movesScalar(own, opp, moves, count);
+            long scalar = System.nanoTime() - start;
+            sink += moves[round % count];
+
+            start = System.nanoTime();
+            BatchMoves.movesBatched(own, opp, moves, count);
+            long batched = System.nanoTime() - start;
+            sink += moves[round % count];
+
+            start = System.nanoTime();
+            BatchMoves.flipsScalar(own, opp, squares, flips, count);
+            long flipScalar = System.nanoTime() - start;
+            sink += flips[round % count];
+
+            start = System.nanoTime();
+            BatchMoves.flipsBatched(own, opp, squares, flips, count);
+            long flipBatched = System.nanoTime() - start;
+            sink += flips[round % count];
+
+            if (last) {
+                System.out.printf("moves  OthelloModel.getValidMoves %,15.0f positions/s%n", rate(modelPositions, model));
+                System.out.printf("moves  Bitboard.moves             %,15.0f positions/s%n", rate(count, scalar));
+                System.out.printf("moves  BatchMoves                 %,15.0f positions/s%n", rate(count, batched));
+                System.out.printf("flips  Bitboard.flips             %,15.0f positions/s%n", rate(count, flipScalar));
+                System.out.printf("flips  BatchMoves                 %,15.0f positions/s%n", rate(count, flipBatched));
+            }
+        }
+        if (sink == 42) {
+            System.out.println(); // keep the results alive
+        }
+    }
+
+    private static double rate(int positions, long nanos) {
+        return positions * 1e9 / nanos;
+    }
+
+    /** Fills the arrays with positions from random games, side to move as own. */
+    static void randomPositions(long[] own, long[] opp, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int n = 0;
+        while (n < own.length) {
+            long p = Bitboard.START_BLACK;
+            long o = Bitboard.START_WHITE;
+            while (n < own.length) {
+                own[n] = p;
+                opp[n] = o;
+                n++;
+                long moves = Bitboard.moves(p, o);
+                if (moves == 0) {
+                    if (Bitboard.moves(o, p) == 0) {
+                        break;
+                    }
+                    long tmp = p;
+                    p = o;
+                    o = tmp;
+                    continue;
+                }
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                    moves &= moves - 1;
+                }
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, p, o);
+                long next = o & ~flipped;
+                o = p | flipped | (1L << sq);
+                p = next;
+            }
+        }
+    }
+}
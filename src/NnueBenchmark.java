@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Throughput of the neural evaluator against the feature {@link Evaluator}:
+ * leaf evaluations per second scored from scratch, scored through the
+ * incremental accumulators along random games, and fixed-depth search
+ * speed with each.
+ *
+ * Without {@code --net FILE} a random network with {@code --hidden N}
+ * units per side (default {@value #DEFAULT_HIDDEN}) is used; only its
+ * arithmetic matters here.
+ *
+ * Usage: {@code NnueBenchmark [--net FILE | --hidden N] [--games N] [--depth D] [--seed S]}
+ */
+public class NnueBenchmark {
+    public static final int DEFAULT_HIDDEN = 64;
+    public static final int DEFAULT_GAMES = 2000;
+    public static final int DEFAULT_DEPTH = 7;
+
+    private static final int ROUNDS = 5; // the first rounds warm up the JIT; the best is reported
+
+    public static void main(String[] args) throws IOException {
+        String net = null;
+        int hidden = DEFAULT_HIDDEN;
+        int games = DEFAULT_GAMES;
+        int depth = DEFAULT_DEPTH;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--net": net = args[++i]; break;
+                case "--hidden": hidden = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        NnueNetwork network = net != null ? NnueNetwork.load(Paths.get(net)) : NnueNetwork.random(hidden, seed);
+        Evaluator evaluator = Evaluator.defaultEvaluator();
+
+        // Every position of random games, in playing order: own, opp per ply
+        long[][] lines = randomGames(games, seed);
+        int positions = 0;
+        for (long[] line : lines) {
+            positions += line.length / 2;
+        }
+        System.out.printf("%,d positions from %,d random games, %d hidden units per side%n",
+                positions, games, network.hidden);
+
+        double features = 0;
+        double scratch = 0;
+        double incremental = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (long[] line : lines) {
+                for (int i = 0; i < line.length; i += 2) {
+                    sink += evaluator.evaluate(line[i], line[i + 1]);
+                }
+            }
+            features = Math.max(features, positions / seconds(start));
+
+            start = System.nanoTime();
+            for (long[] line : lines) {
+                for (int i = 0; i < line.length; i += 2) {
+                    sink += network.evaluate(line[i], line[i + 1]);
+                }
+            }
+            scratch = Math.max(scratch, positions / seconds(start));
+
+            NnueEvaluator nnue = new NnueEvaluator(network, 2 * Bitboard.SQUARES);
+            start = System.nanoTime();
+            for (long[] line : lines) {
+                for (int i = 0; i < line.length; i += 2) {
+                    nnue.enter(i / 2, line[i], line[i + 1]);
+                    sink += nnue.evaluate(i / 2);
+                }
+            }
+            incremental = Math.max(incremental, positions / seconds(start));
+        }
+        System.out.printf("evaluator                %,15.0f evaluations/s%n", features);
+        System.out.printf("nnue from scratch        %,15.0f evaluations/s%n", scratch);
+        System.out.printf("nnue incremental         %,15.0f evaluations/s%n", incremental);
+
+        Position[] suite = SearchBenchmark.positions(20, seed);
+        SearchEngine plain = new SearchEngine(evaluator);
+        SearchEngine neural = new SearchEngine(evaluator);
+        neural.setNnue(network);
+        for (int round = 0; round < 2; round++) {
+            report(round == 1, "search with evaluator", plain, suite, depth);
+            report(round == 1, "search with nnue", neural, suite, depth);
+        }
+        if (sink == 42) {
+            System.out.println(); // keeps the evaluations from being optimised away
+        }
+    }
+
+    private static void report(boolean print, String name, SearchEngine engine, Position[] suite, int depth) {
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (Position position : suite) {
+            nodes += engine.search(position.own(), position.opp(), depth).nodes;
+        }
+        if (print) {
+            System.out.printf("%-24s %,15.0f nodes/s at depth %d%n", name, nodes / seconds(start), depth);
+        }
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    static long[][] randomGames(int games, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[][] lines = new long[games][];
+        long[] line = new long[2 * 2 * Bitboard.SQUARES];
+        for (int g = 0; g < games; g++) {
+            long own = Bitboard.START_BLACK;
+            long opp = Bitboard.START_WHITE;
+            int n = 0;
+            while (true) {
+                line[n++] = own;
+                line[n++] = opp;
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    if (Bitboard.moves(opp, own) == 0) {
+                        break;
+                    }
+                } else {
+                    for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                        moves &= moves - 1;
+                    }
+                    int sq = Long.numberOfTrailingZeros(moves);
+                    long flipped = Bitboard.flips(sq, own, opp);
+                    own |= flipped | (1L << sq);
+                    opp &= ~flipped;
+                }
+                long swap = own;
+                own = opp;
+                opp = swap;
+            }
+            lines[g] = Arrays.copyOf(line, n);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Per-search state for an {@link NnueNetwork}: a stack of first-layer
+ * accumulators, one pair per ply, updated from the discs a move places
+ * and flips instead of being recomputed. Not thread-safe; each
+ * {@link SearchEngine} owns one.
+ *
+ * The search reports every node it enters with {@link #enter}, which
+ * only records the position. Accumulators are brought up to date when a
+ * node is evaluated: from the deepest ply on the current line whose
+ * accumulator is still valid, each step down applies the difference to
+ * its parent (a placed disc plus flips, or just a swap for a pass), so
+ * interior nodes that are never evaluated cost nothing and a leaf costs
+ * one small update. A ply whose position does not follow from its parent
+ * is recomputed from scratch.
+ */
+final class NnueEvaluator {
+    private final NnueNetwork network;
+    private final long[] own;
+    private final long[] opp;
+    private final boolean[] valid;
+    // [ply][0]: side to move's view, [ply][1]: the other side's
+    private final short[][][] accumulators;
+
+    NnueEvaluator(NnueNetwork network, int maxPly) {
+        this.network = network;
+        own = new long[maxPly + 1];
+        opp = new long[maxPly + 1];
+        valid = new boolean[maxPly + 1];
+        accumulators = new short[maxPly + 1][2][network.hidden];
+    }
+
+    NnueNetwork getNetwork() {
+        return network;
+    }
+
+    /** Records the position searched at ply; anything deeper is from an old line. */
+    void enter(int ply, long own, long opp) {
+        this.own[ply] = own;
+        this.opp[ply] = opp;
+        valid[ply] = false;
+    }
+
+    /** Score of the position last entered at ply, for the side to move. */
+    int evaluate(int ply) {
+        int base = ply;
+        while (base > 0 && !valid[base]) {
+            base--;
+        }
+        if (!valid[base]) {
+            recompute(base);
+        }
+        for (int p = base + 1; p <= ply; p++) {
+            update(p);
+        }
+        short[][] acc = accumulators[ply];
+        return output(network, acc[0], acc[1]);
+    }
+
+    private void recompute(int ply) {
+        refresh(network, own[ply], opp[ply], accumulators[ply][0]);
+        refresh(network, opp[ply], own[ply], accumulators[ply][1]);
+        valid[ply] = true;
+    }
+
+    /** Derives ply's accumulators from ply - 1's, the mover there being the side not to move here. */
+    private void update(int ply) {
+        long moverBefore = own[ply - 1];
+        long waiterBefore = opp[ply - 1];
+        long moverAfter = opp[ply];
+        long waiterAfter = own[ply];
+        long gained = moverAfter & ~moverBefore;
+        long placed = gained & ~(moverBefore | waiterBefore);
+        long flipped = gained & waiterBefore;
+        if ((moverAfter & moverBefore) != moverBefore || Long.bitCount(placed) > 1
+                || waiterAfter != (waiterBefore & ~flipped) || (placed == 0 && flipped != 0)) {
+            recompute(ply);
+            return;
+        }
+        short[] moverView = accumulators[ply][1];
+        short[] waiterView = accumulators[ply][0];
+        System.arraycopy(accumulators[ply - 1][0], 0, moverView, 0, network.hidden);
+        System.arraycopy(accumulators[ply - 1][1], 0, waiterView, 0, network.hidden);
+        if (placed != 0) {
+            int sq = Long.numberOfTrailingZeros(placed);
+            // The mover sees its own new disc; the other side sees an opponent disc
+            add(moverView, sq);
+            add(waiterView, Bitboard.SQUARES + sq);
+            for (long f = flipped; f != 0; f &= f - 1) {
+                int s = Long.numberOfTrailingZeros(f);
+                add(moverView, s);
+                subtract(moverView, Bitboard.SQUARES + s);
+                add(waiterView, Bitboard.SQUARES + s);
+                subtract(waiterView, s);
+            }
+        }
+        valid[ply] = true;
+    }
+
+    private void add(short[] acc, int feature) {
+        short[] w = network.inputWeights;
+        int offset = feature * network.hidden;
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] += w[offset + i];
+        }
+    }
+
+    private void subtract(short[] acc, int feature) {
+        short[] w = network.inputWeights;
+        int offset = feature * network.hidden;
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] -= w[offset + i];
+        }
+    }
+
+    /** First-layer sums of the board seen by the side owning own. */
+    static void refresh(NnueNetwork network, long own, long opp, short[] acc) {
+        System.arraycopy(network.hiddenBias, 0, acc, 0, network.hidden);
+        short[] w = network.inputWeights;
+        for (long m = own; m != 0; m &= m - 1) {
+            int offset = Long.numberOfTrailingZeros(m) * network.hidden;
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += w[offset + i];
+            }
+        }
+        for (long m = opp; m != 0; m &= m - 1) {
+            int offset = (Bitboard.SQUARES + Long.numberOfTrailingZeros(m)) * network.hidden;
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += w[offset + i];
+            }
+        }
+    }
+
+    static int output(NnueNetwork network, short[] sideToMove, short[] other) {
+        byte[] w = network.outputWeights;
+        int hidden = network.hidden;
+        int sum = 0;
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(sideToMove[i], 0), NnueNetwork.CLIP) * w[i];
+        }
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(other[i], 0), NnueNetwork.CLIP) * w[hidden + i];
+        }
+        return (sum + network.outputBias) >> network.outputShift;
+    }
+}
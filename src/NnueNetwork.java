@@ -0,0 +1,186 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Weights of a small efficiently updatable neural evaluator (NNUE), shared
+ * read-only by every {@link NnueEvaluator} that uses them.
+ *
+ * The input is the board seen from one side: feature sq for each of that
+ * side's discs and 64 + sq for each opponent disc. The first layer maps it
+ * to {@code hidden} int16 sums per side, kept up to date move by move. The
+ * two sides' sums, the side to move's first, are clipped to 0..127 and
+ * weighed by int8 output weights; the int32 total shifted right by
+ * {@code outputShift} is the score in evaluation units.
+ *
+ * File format (big-endian): magic "OTNN", version, hidden, outputShift,
+ * then int16 input weights [128][hidden] (feature-major), int16 hidden
+ * biases [hidden], int8 output weights [2 * hidden] and an int32 output
+ * bias.
+ */
+final class NnueNetwork {
+    static final int INPUTS = 2 * Bitboard.SQUARES;
+    static final int CLIP = 127;
+
+    private static final int MAGIC = 0x4F544E4E; // "OTNN"
+    private static final int VERSION = 1;
+    private static final int MAX_HIDDEN = 1024;
+
+    final int hidden;
+    final int outputShift;
+    final short[] inputWeights;  // [feature * hidden + unit]
+    final short[] hiddenBias;    // [unit]
+    final byte[] outputWeights;  // [unit] for the side to move, [hidden + unit] for the other side
+    final int outputBias;
+
+    NnueNetwork(int hidden, int outputShift, short[] inputWeights, short[] hiddenBias,
+                byte[] outputWeights, int outputBias) {
+        if (hidden < 1 || hidden > MAX_HIDDEN || outputShift < 0 || outputShift > 30
+                || inputWeights.length != INPUTS * hidden || hiddenBias.length != hidden
+                || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Inconsistent network shape");
+        }
+        this.hidden = hidden;
+        this.outputShift = outputShift;
+        this.inputWeights = inputWeights.clone();
+        this.hiddenBias = hiddenBias.clone();
+        this.outputWeights = outputWeights.clone();
+        this.outputBias = outputBias;
+    }
+
+    static NnueNetwork load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    static NnueNetwork read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a network file");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported network version " + version);
+        }
+        int hidden = data.readInt();
+        int outputShift = data.readInt();
+        if (hidden < 1 || hidden > MAX_HIDDEN) {
+            throw new IOException("Bad hidden layer size " + hidden);
+        }
+        short[] inputWeights = new short[INPUTS * hidden];
+        for (int i = 0; i < inputWeights.length; i++) {
+            inputWeights[i] = data.readShort();
+        }
+        short[] hiddenBias = new short[hidden];
+        for (int i = 0; i < hidden; i++) {
+            hiddenBias[i] = data.readShort();
+        }
+        byte[] outputWeights = new byte[2 * hidden];
+        data.readFully(outputWeights);
+        int outputBias = data.readInt();
+        try {
+            return new NnueNetwork(hidden, outputShift, inputWeights, hiddenBias, outputWeights, outputBias);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    void save(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(hidden);
+        data.writeInt(outputShift);
+        for (short w : inputWeights) {
+            data.writeShort(w);
+        }
+        for (short b : hiddenBias) {
+            data.writeShort(b);
+        }
+        data.write(outputWeights);
+        data.writeInt(outputBias);
+        data.flush();
+    }
+
+    /** Scores a position from scratch, without an accumulator; the reference for the incremental path. */
+    int evaluate(long own, long opp) {
+        short[] stm = new short[hidden];
+        short[] other = new short[hidden];
+        NnueEvaluator.refresh(this, own, opp, stm);
+        NnueEvaluator.refresh(this, opp, own, other);
+        return NnueEvaluator.output(this, stm, other);
+    }
+
+    /**
+     * A network computing the square-by-square part of the evaluator's
+     * scoring for one phase: corners, X- and C-squares, plain edges and disc
+     * count. Each hidden unit counts one side's discs on one group of
+     * squares; mobility and the shape terms have no such form and are left
+     * out. Useful as a starting point and as a baseline for trained nets.
+     */
+    static NnueNetwork fromEvaluator(Evaluator evaluator, int phase) {
+        long[] groups = {Bitboard.CORNERS, Evaluator.X_SQUARES, Evaluator.C_SQUARES, Evaluator.PLAIN_EDGES, -1L};
+        int[] featureOf = {0, 1, 2, 3, 5};
+        int hidden = groups.length;
+        int[] weights = evaluator.getWeights()[phase];
+        short[] inputWeights = new short[INPUTS * hidden];
+        double[] unitWeight = new double[hidden];
+        for (int g = 0; g < hidden; g++) {
+            int squares = Long.bitCount(groups[g]);
+            int scale = Math.max(1, CLIP / squares); // a full group stays inside the clip range
+            for (long m = groups[g]; m != 0; m &= m - 1) {
+                inputWeights[Long.numberOfTrailingZeros(m) * hidden + g] = (short) scale;
+            }
+            unitWeight[g] = weights[featureOf[g]] / (double) scale;
+        }
+        // Largest shift that keeps every output weight inside int8
+        double largest = 0;
+        for (double w : unitWeight) {
+            largest = Math.max(largest, Math.abs(w));
+        }
+        int shift = 0;
+        while (shift < 20 && largest * (1 << (shift + 1)) <= Byte.MAX_VALUE) {
+            shift++;
+        }
+        byte[] outputWeights = new byte[2 * hidden];
+        for (int g = 0; g < hidden; g++) {
+            // Own discs count for the side to move; the other side's own discs count against it
+            byte w = (byte) Math.round(unitWeight[g] * (1 << shift));
+            outputWeights[g] = w;
+            outputWeights[hidden + g] = (byte) -w;
+        }
+        return new NnueNetwork(hidden, shift, inputWeights, new short[hidden], outputWeights, 0);
+    }
+
+    /** Small random weights, for tests and benchmarks of the arithmetic. */
+    static NnueNetwork random(int hidden, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] inputWeights = new short[INPUTS * hidden];
+        for (int i = 0; i < inputWeights.length; i++) {
+            inputWeights[i] = (short) (random.nextInt(17) - 8);
+        }
+        short[] hiddenBias = new short[hidden];
+        for (int i = 0; i < hidden; i++) {
+            hiddenBias[i] = (short) random.nextInt(64);
+        }
+        byte[] outputWeights = new byte[2 * hidden];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (byte) (random.nextInt(255) - 127);
+        }
+        return new NnueNetwork(hidden, 6, inputWeights, hiddenBias, outputWeights, random.nextInt(200) - 100);
+    }
+}
@@ -2,38 +2,124 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.RoundRectangle2D;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 // import java.io.IOException;
 // import java.io.File;
 
 public class OthelloGUI extends JFrame {
-    private static final int BOARD_SIZE = 8;
     private static final int CELL_SIZE = 65; // Slightly larger for better proportions
-    private static final int BOARD_PIXEL_SIZE = BOARD_SIZE * CELL_SIZE;
+    // Computer moves appear no sooner than this after the human's move; the search runs meanwhile
+    private static final long DEFAULT_MIN_MOVE_DELAY_MILLIS = 400;
+    private static final int REPLAY_ANALYSIS_DEPTH = 6;
+    private static final int EVAL_GRAPH_HEIGHT = 80;
+    private static final int HINT_MAX_DEPTH = 10;
+    private static final long HINT_TABLE_MEGABYTES = 32;
+    private static final long COMPUTER_TABLE_MEGABYTES = 32;
+    private static final int ANALYSIS_CACHE_ENTRIES = 4096; // finished hints and computer moves kept per session
 
     // Classic Othello colors
     private static final Color OTHELLO_GREEN = new Color(34, 139, 34); // Classic green
     private static final Color BOARD_COLOR = OTHELLO_GREEN;
     private static final Color GRID_COLOR = Color.BLACK;
     private static final Color VALID_MOVE_COLOR = new Color(255, 255, 0, 100); // Semi-transparent yellow
-    // private static final Color HINT_COLOR = new Color(255, 0, 0, 150); // Semi-transparent red
+    private static final Color HINT_COLOR = new Color(255, 0, 0, 150); // Semi-transparent red
     private static final Color BUTTON_PRIMARY = new Color(70, 130, 180); // Steel blue
     private static final Color BUTTON_DANGER = new Color(231, 76, 60); // Red
     private static final Color BUTTON_WARNING = new Color(241, 196, 15); // Yellow
     private static final Color TEXT_PRIMARY = Color.WHITE;
     private static final Color WHITE_PIECE = Color.WHITE;
     private static final Color BLACK_PIECE = Color.BLACK;
+    private static final Color GRAPH_BACKGROUND = new Color(20, 90, 20);
 
+    private final int boardSize;
+    private final int boardPixelSize;
     private OthelloModel model;
+    private final MctsEngine mctsEngine; // null on non-standard board sizes (greedy player instead)
+    private final SearchEngine computerEngine; // likewise
+    private TranspositionTable hintTable; // shared by successive hint searches; likewise
+    // Finished analyses by position, so revisited positions skip the search
+    private final AnalysisCache<int[]> moveCache = new AnalysisCache<>(ANALYSIS_CACHE_ENTRIES);
+    private final AnalysisCache<Object[]> hintCache = new AnalysisCache<>(ANALYSIS_CACHE_ENTRIES);
+    // The engines are not thread-safe: computer searches and MCTS resets run one at a time on this thread
+    private final ExecutorService computerThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "computer-search");
+        t.setDaemon(true);
+        return t;
+    });
+    // Advanced when the position changes under a search, which is then stopped and its move dropped
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    private Difficulty difficulty = Difficulty.DEFAULT;
+    private long minMoveDelayMillis = DEFAULT_MIN_MOVE_DELAY_MILLIS;
     private JPanel boardPanel;
+    private FlipAnimator flipAnimator; // draws every disc; turns over the ones the last moves flipped
     private JLabel statusLabel;
     private JLabel scoreLabel;
-    // private int[] hintMove = null; // Store the current hint move
+    private JButton undoButton;
+    private JButton redoButton;
+    private JButton replayButton;
+    private JComboBox<Difficulty> difficultyBox;
+    private JPanel replayPanel;
+    private JSlider replaySlider;
+    private JPanel evalGraph;
+    private ReplayAnalyzer replayAnalyzer; // non-null while in replay mode
+    // Hint heatmap: multi-PV scores for every legal move, refreshed as depth increases
+    private SearchEngine hintEngine; // running hint search, stopped when the position changes
+    private Position hintPosition;
+    private List<SearchEngine.RootMove> hintMoves;
+    private int hintDepth;
 
     public OthelloGUI() {
-        model = new OthelloModel();
+        this(OthelloModel.BOARD_SIZE);
+    }
+
+    public OthelloGUI(int boardSize) {
+        this.boardSize = boardSize;
+        this.boardPixelSize = boardSize * CELL_SIZE;
+        model = new OthelloModel(boardSize);
+        mctsEngine = boardSize == OthelloModel.BOARD_SIZE ? new MctsEngine() : null;
+        computerEngine = boardSize == OthelloModel.BOARD_SIZE ? new SearchEngine() : null;
+        hintTable = boardSize == OthelloModel.BOARD_SIZE ? TranspositionTable.ofMegabytes(HINT_TABLE_MEGABYTES) : null;
+        if (computerEngine != null) {
+            computerEngine.setTranspositionTable(TranspositionTable.ofMegabytes(COMPUTER_TABLE_MEGABYTES));
+        }
         setupGUI();
         updateDisplay();
+        if (ModelProfiler.ENABLED) {
+            // F12 prints the model's call counts so far (see ModelProfiler)
+            getRootPane().registerKeyboardAction(e -> ModelProfiler.report(System.err),
+                    KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        }
+    }
+
+    /** Strength of the computer player from its next move on. */
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+        difficultyBox.setSelectedItem(difficulty);
+    }
+
+    /**
+     * Uses a persistent table (see {@link TranspositionTable#map}) for the
+     * computer's moves and for hints. Results then carry over between games
+     * and restarts, so node-budget levels no longer replay identically.
+     */
+    public void setWarmStartCache(TranspositionTable cache) {
+        if (computerEngine != null) {
+            computerEngine.setTranspositionTable(cache);
+            hintTable = cache;
+        }
+    }
+
+    /** Shortest time between the human's move and the computer's reply; 0 plays as soon as the search ends. */
+    public void setMinimumMoveDelay(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + millis);
+        }
+        this.minMoveDelayMillis = millis;
     }
 
     private void setupGUI() {
@@ -52,11 +138,16 @@ public class OthelloGUI extends JFrame {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 drawBoard(g);
+                StartupTiming.mark("first frame");
             }
         };
-        boardPanel.setPreferredSize(new Dimension(BOARD_PIXEL_SIZE, BOARD_PIXEL_SIZE));
+        boardPanel.setPreferredSize(new Dimension(boardPixelSize, boardPixelSize));
         boardPanel.setBackground(OTHELLO_GREEN);
         boardPanel.addMouseListener(new BoardMouseListener());
+        // paintImmediately rather than repaint: RepaintManager would merge the
+        // flipped cells into their bounding box, often most of the board
+        flipAnimator = new FlipAnimator(BLACK_PIECE, WHITE_PIECE, (row, col) ->
+                boardPanel.paintImmediately(col * CELL_SIZE, row * CELL_SIZE, CELL_SIZE, CELL_SIZE));
 
         // Control panel (classic layout)
         JPanel controlPanel = new JPanel();
@@ -64,21 +155,41 @@ public class OthelloGUI extends JFrame {
         controlPanel.setBackground(OTHELLO_GREEN);
 
         // Create buttons
-        // JButton hintButton = createModernButton("Show Best Move", BUTTON_WARNING);
+        JButton hintButton = createModernButton("Hint", BUTTON_WARNING);
         // JButton saveButton = createModernButton("Save Game", BUTTON_PRIMARY);
         // JButton loadButton = createModernButton("Load Game", BUTTON_PRIMARY);
         JButton newGameButton = createModernButton("New Game", BUTTON_PRIMARY);
+        undoButton = createModernButton("Undo", BUTTON_PRIMARY);
+        redoButton = createModernButton("Redo", BUTTON_PRIMARY);
+        replayButton = createModernButton("Replay...", BUTTON_WARNING);
 
         // Add action listeners
-        // hintButton.addActionListener(e -> showBestMove()); // ADVANCED AI: Shows best strategic move as hint
+        hintButton.addActionListener(e -> showBestMove()); // ADVANCED AI: Shows a score heatmap as hint
         // saveButton.addActionListener(e -> saveGame());
         // loadButton.addActionListener(e -> loadGame());
         newGameButton.addActionListener(e -> newGame());
+        undoButton.addActionListener(e -> undoMove());
+        redoButton.addActionListener(e -> redoMove());
+        replayButton.addActionListener(e -> loadReplay());
+
+        // Difficulty selector (the greedy player on other board sizes has no levels)
+        difficultyBox = new JComboBox<>(Difficulty.values());
+        difficultyBox.setSelectedItem(difficulty);
+        difficultyBox.setFocusable(false);
+        difficultyBox.addActionListener(e -> difficulty = (Difficulty) difficultyBox.getSelectedItem());
 
         // Add buttons to control panel
-        // controlPanel.add(hintButton);
+        if (boardSize == OthelloModel.BOARD_SIZE) {
+            controlPanel.add(difficultyBox);
+            controlPanel.add(hintButton);
+        }
         // controlPanel.add(saveButton);
         // controlPanel.add(loadButton);
+        controlPanel.add(undoButton);
+        controlPanel.add(redoButton);
+        if (boardSize == OthelloModel.BOARD_SIZE) {
+            controlPanel.add(replayButton);
+        }
         controlPanel.add(newGameButton);
 
         // Status panel
@@ -103,9 +214,14 @@ public class OthelloGUI extends JFrame {
         bottomPanel.setLayout(new BorderLayout());
         bottomPanel.setBackground(OTHELLO_GREEN);
         bottomPanel.add(controlPanel, BorderLayout.NORTH);
+        bottomPanel.add(createReplayPanel(), BorderLayout.CENTER);
         bottomPanel.add(statusPanel, BorderLayout.SOUTH);
 
-        mainPanel.add(boardPanel, BorderLayout.CENTER);
+        // Keep the board at its own size when the buttons make the window wider
+        JPanel boardHolder = new JPanel(new GridBagLayout());
+        boardHolder.setBackground(OTHELLO_GREEN);
+        boardHolder.add(boardPanel);
+        mainPanel.add(boardHolder, BorderLayout.CENTER);
         mainPanel.add(bottomPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
@@ -113,6 +229,53 @@ public class OthelloGUI extends JFrame {
         setLocationRelativeTo(null);
     }
 
+    // Replay controls: a ply slider over an evaluation graph, hidden until a game is loaded
+    private JPanel createReplayPanel() {
+        replayPanel = new JPanel(new BorderLayout());
+        replayPanel.setBackground(OTHELLO_GREEN);
+        replayPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+
+        replaySlider = new JSlider(0, 0, 0);
+        replaySlider.setBackground(OTHELLO_GREEN);
+        replaySlider.addChangeListener(e -> {
+            if (replayAnalyzer != null && replaySlider.getValue() != model.getPly()) {
+                model.jumpToPly(replaySlider.getValue()); // O(1): positions are already in the history
+                updateDisplay();
+            }
+        });
+
+        evalGraph = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                drawEvalGraph(g, getWidth(), getHeight());
+            }
+        };
+        evalGraph.setPreferredSize(new Dimension(boardPixelSize, EVAL_GRAPH_HEIGHT));
+        evalGraph.setBackground(GRAPH_BACKGROUND);
+        evalGraph.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (replayAnalyzer != null) {
+                    int plies = replayAnalyzer.size() - 1;
+                    replaySlider.setValue(Math.round((float) e.getX() * plies / Math.max(1, evalGraph.getWidth())));
+                }
+            }
+        });
+
+        JButton resumeButton = createModernButton("Resume Play", BUTTON_DANGER);
+        resumeButton.addActionListener(e -> exitReplay());
+        JPanel resumePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        resumePanel.setBackground(OTHELLO_GREEN);
+        resumePanel.add(resumeButton);
+
+        replayPanel.add(replaySlider, BorderLayout.NORTH);
+        replayPanel.add(evalGraph, BorderLayout.CENTER);
+        replayPanel.add(resumePanel, BorderLayout.SOUTH);
+        replayPanel.setVisible(false);
+        return replayPanel;
+    }
+
     private JButton createModernButton(String text, Color color) {
         JButton button = new JButton(text) {
             @Override
@@ -159,23 +322,23 @@ public class OthelloGUI extends JFrame {
         g2d.setColor(GRID_COLOR);
         g2d.setStroke(new BasicStroke(2));
 
-        for (int i = 0; i <= BOARD_SIZE; i++) {
-            g2d.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, BOARD_PIXEL_SIZE);
-            g2d.drawLine(0, i * CELL_SIZE, BOARD_PIXEL_SIZE, i * CELL_SIZE);
+        for (int i = 0; i <= boardSize; i++) {
+            g2d.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, boardPixelSize);
+            g2d.drawLine(0, i * CELL_SIZE, boardPixelSize, i * CELL_SIZE);
         }
 
-        // Draw pieces
+        // Draw pieces, only in the cells being repainted (an animation frame is one cell)
         int[][] board = model.getBoard();
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
+        Rectangle clip = g2d.getClipBounds();
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                if (board[row][col] == OthelloModel.EMPTY
+                        || clip != null && !clip.intersects(col * CELL_SIZE, row * CELL_SIZE, CELL_SIZE, CELL_SIZE)) {
+                    continue;
+                }
                 int x = col * CELL_SIZE + CELL_SIZE / 2;
                 int y = row * CELL_SIZE + CELL_SIZE / 2;
-
-                if (board[row][col] == OthelloModel.BLACK) {
-                    drawPiece(g2d, x, y, BLACK_PIECE);
-                } else if (board[row][col] == OthelloModel.WHITE) {
-                    drawPiece(g2d, x, y, WHITE_PIECE);
-                }
+                flipAnimator.drawDisc(g2d, row, col, board[row][col], x, y);
             }
         }
 
@@ -190,41 +353,76 @@ public class OthelloGUI extends JFrame {
             }
         }
 
-        // Highlight hint move if available
-        /*
-        if (hintMove != null && !model.isGameOver()) {
-            int x = hintMove[1] * CELL_SIZE + CELL_SIZE / 2;
-            int y = hintMove[0] * CELL_SIZE + CELL_SIZE / 2;
-
-            // Draw a red circle around the hint move
-            g2d.setColor(HINT_COLOR);
-            g2d.setStroke(new BasicStroke(3));
-            g2d.drawOval(x - 20, y - 20, 40, 40);
-
-            // Draw a smaller filled circle
-            g2d.setColor(new Color(255, 0, 0, 80));
-            g2d.fillOval(x - 15, y - 15, 30, 30);
+        // Highlight hint heatmap if available
+        if (hintMoves != null && !hintMoves.isEmpty() && !model.isGameOver()) {
+            drawHintHeatmap(g2d);
         }
-        */
     }
 
-    private void drawPiece(Graphics2D g2d, int x, int y, Color color) {
-        // Draw shadow
-        g2d.setColor(new Color(0, 0, 0, 50));
-        g2d.fillOval(x - 18, y - 18, 36, 36);
+    // Shades each legal square from green (as good as the best move) to red, with its score
+    private void drawHintHeatmap(Graphics2D g2d) {
+        int best = hintMoves.get(0).score;
+        g2d.setFont(new Font("Arial", Font.BOLD, 11));
+        FontMetrics fm = g2d.getFontMetrics();
+        for (SearchEngine.RootMove move : hintMoves) {
+            int row = move.square / Bitboard.SIZE;
+            int col = move.square % Bitboard.SIZE;
+            float badness = (float) Math.tanh((best - move.score) / 150.0);
+            g2d.setColor(new Color(badness, 1f - badness, 0f, 0.45f));
+            g2d.fillRect(col * CELL_SIZE + 3, row * CELL_SIZE + 3, CELL_SIZE - 6, CELL_SIZE - 6);
+
+            // Moves outside the top k only have an upper bound
+            String label = (move.exact ? "" : "<") + move.score;
+            g2d.setColor(TEXT_PRIMARY);
+            g2d.drawString(label, col * CELL_SIZE + (CELL_SIZE - fm.stringWidth(label)) / 2,
+                    row * CELL_SIZE + CELL_SIZE - 6);
+        }
 
-        // Draw piece
-        g2d.setColor(color);
-        g2d.fillOval(x - 16, y - 16, 32, 32);
+        // Draw a red circle around the best move
+        SearchEngine.RootMove top = hintMoves.get(0);
+        int x = (top.square % Bitboard.SIZE) * CELL_SIZE + CELL_SIZE / 2;
+        int y = (top.square / Bitboard.SIZE) * CELL_SIZE + CELL_SIZE / 2;
+        g2d.setColor(HINT_COLOR);
+        g2d.setStroke(new BasicStroke(3));
+        g2d.drawOval(x - 20, y - 20, 40, 40);
+    }
 
-        // Draw highlight
-        g2d.setColor(color.brighter());
-        g2d.fillOval(x - 12, y - 12, 8, 8);
+    // Black's advantage above the midline, White's below; unanalysed plies leave gaps
+    private void drawEvalGraph(Graphics g, int width, int height) {
+        if (replayAnalyzer == null) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int mid = height / 2;
+        int plies = Math.max(1, replayAnalyzer.size() - 1);
+        g2d.setColor(GRID_COLOR);
+        g2d.drawLine(0, mid, width, mid);
+
+        int prevX = -1;
+        int prevY = -1;
+        for (int ply = 0; ply < replayAnalyzer.size(); ply++) {
+            int score = replayAnalyzer.getScore(ply);
+            if (score == ReplayAnalyzer.UNKNOWN) {
+                prevX = -1;
+                continue;
+            }
+            int x = ply * (width - 1) / plies;
+            // tanh keeps exact endgame scores and heuristic scores on one readable axis
+            int y = mid - (int) Math.round(Math.tanh(score / 300.0) * (mid - 4));
+            g2d.setColor(score >= 0 ? BLACK_PIECE : WHITE_PIECE);
+            g2d.fillOval(x - 2, y - 2, 4, 4);
+            if (prevX >= 0) {
+                g2d.setColor(Color.LIGHT_GRAY);
+                g2d.drawLine(prevX, prevY, x, y);
+            }
+            prevX = x;
+            prevY = y;
+        }
 
-        // Draw border
-        g2d.setColor(Color.BLACK);
-        g2d.setStroke(new BasicStroke(1));
-        g2d.drawOval(x - 16, y - 16, 32, 32);
+        int cursorX = model.getPly() * (width - 1) / plies;
+        g2d.setColor(BUTTON_WARNING);
+        g2d.drawLine(cursorX, 0, cursorX, height);
     }
 
     private void updateDisplay() {
@@ -256,26 +454,89 @@ public class OthelloGUI extends JFrame {
             }
         }
 
+        // Drop a hint once the position it was computed for is gone
+        if (hintPosition != null && !hintPosition.equals(model.getPosition())) {
+            clearHint();
+        }
+        if (hintMoves != null) {
+            statusLabel.setText(statusLabel.getText() + " - hint depth " + hintDepth);
+        }
+
+        boolean replaying = replayAnalyzer != null;
+        if (replaying) {
+            statusLabel.setText(String.format("Replay: move %d of %d", model.getPly(), model.getHistoryLength()));
+            replaySlider.setValue(model.getPly());
+            evalGraph.repaint();
+        }
+        undoButton.setEnabled(!replaying && model.canUndo());
+        redoButton.setEnabled(!replaying && model.canRedo());
+        replayButton.setEnabled(!replaying);
         boardPanel.repaint();
     }
 
-    /*
-    // ADVANCED AI: Shows the best strategic move as a hint to the player
-    // Uses the model's getBestMove method to calculate the optimal move and displays it as a red highlight
+    // ADVANCED AI: Shows every legal move's score as a heatmap hint
+    // One multi-PV search scores all moves; the heatmap refreshes after each completed depth
+    // A position hinted before shows its deepest cached heatmap at once
+    @SuppressWarnings("unchecked")
     private void showBestMove() {
-        if (model.isGameOver()) {
+        if (model.isGameOver() || replayAnalyzer != null || boardSize != OthelloModel.BOARD_SIZE) {
             return;
         }
+        clearHint();
 
-        int currentPlayer = model.getCurrentPlayer();
-        int[] bestMove = model.getBestMove(currentPlayer);
+        Position position = model.getPosition();
+        int legalMoves = Long.bitCount(Bitboard.moves(position.own(), position.opp()));
+        if (legalMoves == 0) {
+            return;
+        }
+        hintPosition = position;
+        Object[] cached = hintCache.get(position, HINT_MAX_DEPTH);
+        if (cached != null) {
+            hintDepth = (Integer) cached[0];
+            hintMoves = (List<SearchEngine.RootMove>) cached[1];
+            updateDisplay();
+            if (hintDepth >= HINT_MAX_DEPTH) {
+                return;
+            }
+        }
+        SearchEngine engine = new SearchEngine();
+        engine.setTranspositionTable(hintTable);
+        hintEngine = engine;
+        new SwingWorker<Void, Object[]>() {
+            @Override
+            protected Void doInBackground() {
+                engine.searchMultiPv(position.own(), position.opp(), HINT_MAX_DEPTH, legalMoves,
+                        (depth, moves) -> publish(new Object[]{depth, moves}));
+                return null;
+            }
 
-        if (bestMove != null) {
-            hintMove = bestMove;
-            boardPanel.repaint(); // Redraw to show the hint
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void process(List<Object[]> chunks) {
+                if (engine != hintEngine) {
+                    return; // A newer hint or a move replaced this one
+                }
+                Object[] latest = chunks.get(chunks.size() - 1);
+                if ((Integer) latest[0] <= hintDepth) {
+                    return; // Still short of the cached hint on display
+                }
+                hintCache.put(position, HINT_MAX_DEPTH, latest);
+                hintDepth = (Integer) latest[0];
+                hintMoves = (List<SearchEngine.RootMove>) latest[1];
+                updateDisplay();
+            }
+        }.execute();
+    }
+
+    private void clearHint() {
+        if (hintEngine != null) {
+            hintEngine.stop();
         }
+        hintEngine = null;
+        hintPosition = null;
+        hintMoves = null;
+        hintDepth = 0;
     }
-    */
 
     /*
     private void saveGame() {
@@ -342,12 +603,112 @@ public class OthelloGUI extends JFrame {
     }
     */
 
+    // Loads a move transcript (e.g. "f5d6c3...") and analyses every ply in the background
+    private void loadReplay() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Replay Othello Game");
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        GameRecord record;
+        try {
+            record = GameRecord.parse(Files.readString(fileChooser.getSelectedFile().toPath()));
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(
+                this,
+                "Error loading game: " + e.getMessage(),
+                "Load Error",
+                JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+        startReplay(record);
+    }
+
+    private void startReplay(GameRecord record) {
+        stopReplayAnalysis();
+        stopComputerSearch();
+        flipAnimator.cancel();
+        model = record.toModel();
+        model.jumpToPly(0);
+        replayAnalyzer = new ReplayAnalyzer(record.getPositions(), REPLAY_ANALYSIS_DEPTH,
+                Runtime.getRuntime().availableProcessors());
+        replaySlider.setMaximum(record.plies());
+        replaySlider.setValue(0);
+        replayPanel.setVisible(true);
+        pack();
+        ReplayAnalyzer analyzer = replayAnalyzer;
+        analyzer.start((ply, score) -> SwingUtilities.invokeLater(() -> {
+            if (analyzer == replayAnalyzer) {
+                evalGraph.repaint();
+            }
+        }));
+        updateDisplay();
+    }
+
+    // Leaves replay mode and continues the game from the position being viewed
+    private void exitReplay() {
+        stopReplayAnalysis();
+        replayPanel.setVisible(false);
+        pack();
+        updateDisplay();
+        if (model.getCurrentPlayer() == OthelloModel.WHITE && !model.isGameOver()) {
+            makeComputerMove();
+        }
+    }
+
+    private void stopReplayAnalysis() {
+        if (replayAnalyzer != null) {
+            replayAnalyzer.close();
+            replayAnalyzer = null;
+        }
+    }
+
     private void newGame() {
-        model = new OthelloModel();
-        // hintMove = null; // Clear hint
+        if (replayAnalyzer != null) {
+            stopReplayAnalysis();
+            replayPanel.setVisible(false);
+            pack();
+        }
+        stopComputerSearch();
+        model = new OthelloModel(boardSize);
+        flipAnimator.cancel();
+        if (mctsEngine != null) {
+            computerThread.execute(mctsEngine::reset); // after the stopped search, not under it
+        }
+        clearHint(); // Clear hint
         updateDisplay();
     }
 
+    // Undo back to the human's previous turn, skipping over computer moves
+    private void undoMove() {
+        if (!model.undo()) {
+            return;
+        }
+        stopComputerSearch();
+        flipAnimator.cancel();
+        while (model.getCurrentPlayer() == OthelloModel.WHITE && model.canUndo()) {
+            model.undo();
+        }
+        updateDisplay();
+    }
+
+    // Redo up to the human's next turn; the computer replies if the redo line runs out
+    private void redoMove() {
+        if (!model.redo()) {
+            return;
+        }
+        stopComputerSearch();
+        flipAnimator.cancel();
+        while (model.getCurrentPlayer() == OthelloModel.WHITE && model.canRedo() && !model.isGameOver()) {
+            model.redo();
+        }
+        updateDisplay();
+        if (model.getCurrentPlayer() == OthelloModel.WHITE && !model.isGameOver()) {
+            makeComputerMove();
+        }
+    }
+
     private void makeHumanMove(int row, int col) {
         if (model.getCurrentPlayer() == OthelloModel.BLACK && !model.isGameOver()) {
             // Check if human has valid moves
@@ -360,7 +721,9 @@ public class OthelloGUI extends JFrame {
                 return;
             }
 
+            int[][] before = model.getBoard();
             if (model.makeMove(row, col, OthelloModel.BLACK)) {
+                flipAnimator.start(before, model.getBoard());
                 updateDisplay();
 
                 // Check if game is over after human move
@@ -376,45 +739,134 @@ public class OthelloGUI extends JFrame {
 
     private void makeComputerMove() {
         if (model.getCurrentPlayer() == OthelloModel.WHITE && !model.isGameOver()) {
-            // Add a small delay to make the computer move visible
-            Timer timer = new Timer(800, e -> {
-                // Check if computer has valid moves
-                if (model.currentPlayerHasNoValidMoves()) {
-                    // Computer has no valid moves - check if game is over
-                    if (model.isGameOver()) {
-                        // Game is over, update display will show the winner
-                        updateDisplay();
-                    } else {
-                        // Computer skips turn, it's human's turn again
-                        updateDisplay();
-                        // Show a message that computer skipped turn
-                        statusLabel.setText("Computer has no valid moves - Black's turn (Human)");
+            // The display delay starts now and overlaps with the search
+            long startNanos = System.nanoTime();
+            if (computerEngine == null || model.currentPlayerHasNoValidMoves()) {
+                OthelloModel scheduledModel = model;
+                afterMoveDelay(startNanos, () -> {
+                    // The human may have started a new game meanwhile
+                    if (scheduledModel == model && model.getCurrentPlayer() == OthelloModel.WHITE && !model.isGameOver()) {
+                        playComputerMove(model.currentPlayerHasNoValidMoves() ? null : model.getGreedyMove(OthelloModel.WHITE));
                     }
-                } else {
-                    // Computer has valid moves - make the move
-                    int[] computerMove = model.getGreedyMove(OthelloModel.WHITE);
-                    if (computerMove != null) {
-                        model.makeMove(computerMove[0], computerMove[1], OthelloModel.WHITE);
-                    }
-                    updateDisplay();
+                });
+            } else {
+                searchComputerMove(startNanos);
+            }
+        }
+    }
+
+    // Runs the search off the event thread and plays the result back on it
+    private void searchComputerMove(long startNanos) {
+        OthelloModel searchedModel = model;
+        Position searchedPosition = model.getPosition();
+        Difficulty level = difficulty;
+        int[] cached = moveCache.get(searchedPosition, level);
+        if (cached != null) {
+            afterMoveDelay(startNanos, () -> {
+                if (searchedModel == model && searchedPosition.equals(model.getPosition())) {
+                    playComputerMove(cached);
+                }
+            });
+            return;
+        }
+        int generation = searchGeneration.get();
+        computerThread.execute(() -> {
+            int[] searched;
+            try {
+                searched = runComputerSearch(level, searchedPosition, generation);
+            } catch (RuntimeException e) {
+                searched = null; // fall back to the greedy move below
+            }
+            int[] computerMove = searched;
+            SwingUtilities.invokeLater(() -> {
+                if (generation != searchGeneration.get()) {
+                    return; // New game, undo or redo while thinking; the search was stopped
                 }
+                if (computerMove != null) {
+                    moveCache.put(searchedPosition, level, computerMove);
+                }
+                afterMoveDelay(startNanos, () -> {
+                    if (searchedModel != model || !searchedPosition.equals(model.getPosition())) {
+                        return;
+                    }
+                    playComputerMove(computerMove != null ? computerMove : model.getGreedyMove(OthelloModel.WHITE));
+                });
             });
-            timer.setRepeats(false);
-            timer.start();
+        });
+    }
+
+    // On the computer thread; null if the position changed before the search got to start
+    private int[] runComputerSearch(Difficulty level, Position position, int generation) {
+        if (level.usesMcts()) {
+            if (generation != searchGeneration.get()) {
+                return null;
+            }
+            return mctsEngine.search(position.getBlack(), position.getWhite(), OthelloModel.WHITE,
+                    level.getMillis(), Long.MAX_VALUE).toMove();
+        }
+        // Clear before checking the generation, so a stop from the event thread is never lost
+        computerEngine.clearStop();
+        if (generation != searchGeneration.get()) {
+            return null;
+        }
+        computerEngine.setLimits(level.getNodes(), level.getMillis());
+        if (level.getNodes() > 0 && !computerEngine.hasPersistentTable()) {
+            // Entries left by earlier moves would make node-budget play vary
+            computerEngine.clearTranspositionTable();
+        }
+        return computerEngine.searchUnlessStopped(position.own(), position.opp(), Bitboard.SQUARES).toMove();
+    }
+
+    // Stops the computer's running or queued search; its move will be dropped
+    private void stopComputerSearch() {
+        searchGeneration.incrementAndGet();
+        if (computerEngine != null) {
+            computerEngine.stop();
+        }
+    }
+
+    // Runs the action on the event thread once the minimum move delay since startNanos has passed
+    private void afterMoveDelay(long startNanos, Runnable action) {
+        long remaining = minMoveDelayMillis - (System.nanoTime() - startNanos) / 1_000_000;
+        if (remaining <= 0) {
+            action.run();
+            return;
+        }
+        Timer timer = new Timer((int) remaining, e -> action.run());
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    // Plays the computer's move, or reports its pass when move is null
+    private void playComputerMove(int[] move) {
+        StartupTiming.mark("first engine move");
+        if (move != null) {
+            int[][] before = model.getBoard();
+            if (model.makeMove(move[0], move[1], OthelloModel.WHITE)) {
+                flipAnimator.start(before, model.getBoard());
+            }
+            updateDisplay();
+        } else if (model.isGameOver()) {
+            // Game is over, update display will show the winner
+            updateDisplay();
+        } else {
+            // Computer skips turn, it's human's turn again
+            updateDisplay();
+            statusLabel.setText("Computer has no valid moves - Black's turn (Human)");
         }
     }
 
     private class BoardMouseListener extends MouseAdapter {
         @Override
         public void mouseClicked(MouseEvent e) {
-            if (model.isGameOver()) {
+            if (model.isGameOver() || replayAnalyzer != null) {
                 return;
             }
 
             int col = e.getX() / CELL_SIZE;
             int row = e.getY() / CELL_SIZE;
 
-            if (row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE) {
+            if (row >= 0 && row < boardSize && col >= 0 && col < boardSize) {
                 makeHumanMove(row, col);
             }
         }
@@ -426,7 +878,7 @@ public class OthelloGUI extends JFrame {
                 int col = e.getX() / CELL_SIZE;
                 int row = e.getY() / CELL_SIZE;
 
-                if (row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE) {
+                if (row >= 0 && row < boardSize && col >= 0 && col < boardSize) {
                     List<int[]> validMoves = model.getValidMoves(model.getCurrentPlayer());
                     for (int[] move : validMoves) {
                         if (move[0] == row && move[1] == col) {
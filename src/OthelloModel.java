@@ -5,182 +5,329 @@ import java.util.List;
 // import java.io.FileOutputStream;
 // import java.io.IOException;
 
+/**
+ * Rules and state of one game. Changes (moves, undo, redo) are serialised
+ * on the model and each one publishes a new immutable {@link BoardSnapshot};
+ * the board, score and legal-move queries all read the latest snapshot, so
+ * spectators and background engines can query the model from any thread
+ * without blocking the player or each other.
+ */
 public class OthelloModel {
     // Board constants
-    public static final int BOARD_SIZE = 8;
+    public static final int BOARD_SIZE = 8; // Default (production) board size
+    public static final int MIN_BOARD_SIZE = 4;
+    public static final int MAX_BOARD_SIZE = 16;
     public static final int EMPTY = 0;
     public static final int BLACK = 1;
     public static final int WHITE = 2;
 
-    // Direction arrays for checking all 8 directions
-    private static final int[] ROW_DIRECTIONS = {-1, -1, -1, 0, 0, 1, 1, 1};
-    private static final int[] COL_DIRECTIONS = {-1, 0, 1, -1, 1, -1, 0, 1};
-    private static final int NUM_DIRECTIONS = 8;
     private static final int NUM_CORNERS = 4;
 
-    private int[][] board;
+    private final int boardSize;
+    private final BoardEngine board; // only touched while holding the model's lock
+    private final int traceId; // number in the workload trace, if one is being recorded
     private int currentPlayer;
     private boolean gameOver;
 
-    // Cache for valid moves to improve performance
-    private List<int[]> cachedValidMoves = null;
-    private int cachedPlayer = -1;
+    // State as of the last change; reads go here instead of to the board
+    private volatile BoardSnapshot snapshot;
+
+    // Undo/redo history (8x8 only, null on other board sizes)
+    private GameHistory history;
 
     public OthelloModel() {
-        board = new int[BOARD_SIZE][BOARD_SIZE];
+        this(BOARD_SIZE);
+    }
+
+    /**
+     * Creates a model for a square board of the given even size.
+     * 8x8 uses the bitboard engine; other sizes use the generic array engine.
+     * @param boardSize number of rows and columns, even and between 4 and 16
+     */
+    public OthelloModel(int boardSize) {
+        if (boardSize < MIN_BOARD_SIZE || boardSize > MAX_BOARD_SIZE || boardSize % 2 != 0) {
+            throw new IllegalArgumentException("Board size must be even and between "
+                    + MIN_BOARD_SIZE + " and " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        this.boardSize = boardSize;
+        traceId = WorkloadTrace.RECORDER != null ? WorkloadTrace.RECORDER.newModel(boardSize) : 0;
+        board = BoardEngine.create(boardSize);
         initializeBoard();
         currentPlayer = BLACK; // Black goes first
         gameOver = false;
-        invalidateCache(); // Ensure clean cache state
+        publish();
+        if (board instanceof BitboardEngine) {
+            history = new GameHistory(snapshot.getPosition());
+        }
     }
 
-    private void initializeBoard() {
-        // Initialize all cells as empty
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                board[i][j] = EMPTY;
-            }
+    /**
+     * Creates an 8x8 model directly from bitboards instead of replaying moves.
+     * If the given player has no move the turn passes, as after makeMove.
+     * @throws IllegalArgumentException if the masks overlap or the player is not BLACK or WHITE
+     */
+    public static OthelloModel fromBitboards(long black, long white, int currentPlayer) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("Black and white discs overlap");
+        }
+        if (currentPlayer != BLACK && currentPlayer != WHITE) {
+            throw new IllegalArgumentException("Invalid player: " + currentPlayer);
+        }
+        OthelloModel model = new OthelloModel();
+        if (WorkloadTrace.RECORDER != null) {
+            WorkloadTrace.RECORDER.recordBitboards(model.traceId, black, white, currentPlayer);
         }
+        ((BitboardEngine) model.board).setBits(black, white);
+        model.currentPlayer = currentPlayer;
+        model.checkGameOver();
+        model.publish();
+        model.history = new GameHistory(model.snapshot.getPosition());
+        return model;
+    }
+
+    private void initializeBoard() {
+        // Set up initial pieces (the engine starts out empty)
+        int center = boardSize / 2;
+        board.set(center - 1, center - 1, WHITE);
+        board.set(center - 1, center, BLACK);
+        board.set(center, center - 1, BLACK);
+        board.set(center, center, WHITE);
+    }
+
+    static int opponentOf(int player) {
+        return (player == BLACK) ? WHITE : BLACK;
+    }
+
+    public int getBoardSize() {
+        trace(WorkloadTrace.GET_BOARD_SIZE);
+        return boardSize;
+    }
 
-        // Set up initial pieces
-        int center = BOARD_SIZE / 2;
-        board[center - 1][center - 1] = WHITE;
-        board[center - 1][center] = BLACK;
-        board[center][center - 1] = BLACK;
-        board[center][center] = WHITE;
+    /** The state after the latest change, safe to read from any thread. */
+    public BoardSnapshot snapshot() {
+        trace(WorkloadTrace.SNAPSHOT);
+        return snapshot;
     }
 
     public int[][] getBoard() {
-        int[][] copy = new int[BOARD_SIZE][BOARD_SIZE];
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            copy[i] = board[i].clone();
-        }
-        return copy;
+        trace(WorkloadTrace.GET_BOARD);
+        return snapshot.getBoard();
+    }
+
+    /**
+     * Raw 8x8 bitboard for a player, bit {@code row * 8 + col} set for each disc.
+     * Engines use this to snapshot the position without copying the board.
+     * @throws IllegalStateException if the model is not on the standard 8x8 board
+     */
+    public long getBitboard(int player) {
+        trace(WorkloadTrace.GET_BITBOARD, player);
+        return snapshot.getBitboard(player);
+    }
+
+    /**
+     * Snapshot of the current 8x8 position.
+     * @throws IllegalStateException if the model is not on the standard 8x8 board
+     */
+    public Position getPosition() {
+        trace(WorkloadTrace.GET_POSITION);
+        return snapshot.getPosition();
+    }
+
+    /**
+     * Number of the player's discs that can never be flipped again (8x8 only).
+     * @throws IllegalStateException if the model is not on the standard 8x8 board
+     */
+    public int countStableDiscs(int player) {
+        trace(WorkloadTrace.COUNT_STABLE_DISCS, player);
+        BoardSnapshot current = snapshot;
+        return Long.bitCount(BoardFeatures.stableDiscs(current.getBitboard(player),
+                current.getBitboard(opponentOf(player))));
+    }
+
+    /**
+     * Number of the player's discs next to an empty square (8x8 only).
+     * @throws IllegalStateException if the model is not on the standard 8x8 board
+     */
+    public int countFrontierDiscs(int player) {
+        trace(WorkloadTrace.COUNT_FRONTIER_DISCS, player);
+        BoardSnapshot current = snapshot;
+        return Long.bitCount(BoardFeatures.frontier(current.getBitboard(player),
+                current.getBitboard(opponentOf(player))));
     }
 
     public int getCurrentPlayer() {
-        return currentPlayer;
+        trace(WorkloadTrace.GET_CURRENT_PLAYER);
+        return snapshot.getCurrentPlayer();
     }
 
     public boolean isGameOver() {
-        return gameOver;
+        trace(WorkloadTrace.IS_GAME_OVER);
+        return snapshot.isGameOver();
     }
 
     public List<int[]> getValidMoves(int player) {
-        // Check if we have cached results for this player
-        if (cachedValidMoves != null && cachedPlayer == player) {
-            return new ArrayList<>(cachedValidMoves); // Return a copy
+        trace(WorkloadTrace.GET_VALID_MOVES, player);
+        long start = ModelProfiler.start();
+        // Each snapshot works its moves out once and hands out copies
+        List<int[]> moves = snapshot.getValidMoves(player);
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.GET_VALID_MOVES, start);
         }
+        return moves;
+    }
 
-        // Cache miss - calculate and store
-        List<int[]> validMoves = new ArrayList<>();
-
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (board[row][col] == EMPTY && isValidMove(row, col, player)) {
-                    validMoves.add(new int[]{row, col});
-                }
-            }
+    private boolean isValidMove(int row, int col, int player) {
+        long start = ModelProfiler.start();
+        boolean valid = isValidPosition(row, col) && board.isValidMove(row, col, player);
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.IS_VALID_MOVE, start);
         }
+        return valid;
+    }
 
-        // Cache the result
-        cachedValidMoves = new ArrayList<>(validMoves);
-        cachedPlayer = player;
-        return validMoves;
+    private boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < boardSize && col >= 0 && col < boardSize;
     }
 
-    private boolean isValidMove(int row, int col, int player) {
-        if (!isValidPosition(row, col) || board[row][col] != EMPTY) {
+    public synchronized boolean makeMove(int row, int col, int player) {
+        long start = ModelProfiler.start();
+        int ply = ModelProfiler.ENABLED ? ModelProfiler.currentPly() : 0;
+        boolean played = play(row, col, player);
+        if (WorkloadTrace.RECORDER != null) {
+            WorkloadTrace.RECORDER.recordMove(traceId, row, col, player, played);
+        }
+        if (ModelProfiler.ENABLED) {
+            // Charged to the ply the move was made from, not the one it published
+            ModelProfiler.record(ModelProfiler.Op.MAKE_MOVE, start, ply);
+        }
+        return played;
+    }
+
+    private boolean play(int row, int col, int player) {
+        if (!isValidPosition(row, col) || gameOver ||
+                player != currentPlayer || board.get(row, col) != EMPTY ||
+                !isValidMove(row, col, player)) {
             return false;
         }
-        // Check all 8 directions
-        for (int i = 0; i < NUM_DIRECTIONS; i++) {
-            int newRow = row + ROW_DIRECTIONS[i];
-            int newCol = col + COL_DIRECTIONS[i];
-            if (!isValidPosition(newRow, newCol)) continue;
-            // Check if we can flip pieces in this direction
-            if (canFlipInDirection(row, col, ROW_DIRECTIONS[i], COL_DIRECTIONS[i], player)) {
-                return true;
-            }
+        // Place the piece and flip opponent pieces
+        board.applyMove(row, col, player);
+        // Switch players
+        currentPlayer = opponentOf(currentPlayer);
+        // Check if game is over
+        checkGameOver();
+        publish();
+        if (history != null) {
+            history.play(Bitboard.square(row, col), snapshot.getPosition());
         }
-        return false;
+        return true;
+    }
+
+    public synchronized boolean canUndo() {
+        trace(WorkloadTrace.CAN_UNDO);
+        return history != null && history.canUndo();
+    }
+
+    public synchronized boolean canRedo() {
+        trace(WorkloadTrace.CAN_REDO);
+        return history != null && history.canRedo();
     }
 
-    private boolean canFlipInDirection(int startRow, int startCol, int rowDir, int colDir, int player) {
-        if (!isValidPosition(startRow, startCol)) {
+    /**
+     * Takes back the last move. The undone line stays available to redo, and
+     * playing a different move afterwards keeps it as a variation.
+     * @return false if there is nothing to undo
+     */
+    public synchronized boolean undo() {
+        trace(WorkloadTrace.UNDO);
+        if (history == null || !history.canUndo()) {
             return false;
         }
-        int opponent = (player == BLACK) ? WHITE : BLACK;
-        int currentRow = startRow + rowDir;
-        int currentCol = startCol + colDir;
-        // Must have at least one opponent piece adjacent
-        if (!isValidPosition(currentRow, currentCol) || board[currentRow][currentCol] != opponent) {
+        restore(history.undo());
+        return true;
+    }
+
+    public synchronized boolean redo() {
+        trace(WorkloadTrace.REDO);
+        if (history == null || !history.canRedo()) {
             return false;
         }
-        // Continue in the direction until we find our own piece or an empty cell
-        while (isValidPosition(currentRow, currentCol)) {
-            if (board[currentRow][currentCol] == EMPTY) {
-                return false;
-            }
-            if (board[currentRow][currentCol] == player) {
-                return true;
+        restore(history.redo());
+        return true;
+    }
+
+    /** Current ply: number of moves played from the start along the active line. */
+    public synchronized int getPly() {
+        trace(WorkloadTrace.GET_PLY);
+        return history == null ? 0 : history.ply();
+    }
+
+    /** Number of moves on the active line, including moves that can be redone. */
+    public synchronized int getHistoryLength() {
+        trace(WorkloadTrace.GET_HISTORY_LENGTH);
+        return history == null ? 0 : history.length();
+    }
+
+    /**
+     * Moves to any ply of the active line.
+     * @throws IndexOutOfBoundsException if ply is outside 0..getHistoryLength()
+     */
+    public synchronized void jumpToPly(int ply) {
+        trace(WorkloadTrace.JUMP_TO_PLY, ply);
+        if (history == null) {
+            if (ply != 0) {
+                throw new IndexOutOfBoundsException("No history on a " + boardSize + "x" + boardSize + " board");
             }
-            currentRow += rowDir;
-            currentCol += colDir;
+            return;
         }
-        return false;
+        restore(history.jumpTo(ply));
     }
 
-    private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
+    /** Moves ({row, col}) already explored from the current position, including undone ones. */
+    public synchronized List<int[]> getVariations() {
+        trace(WorkloadTrace.GET_VARIATIONS);
+        List<int[]> result = new ArrayList<>();
+        if (history != null) {
+            for (int sq : history.variations()) {
+                result.add(new int[]{sq / Bitboard.SIZE, sq % Bitboard.SIZE});
+            }
+        }
+        return result;
     }
 
-    public boolean makeMove(int row, int col, int player) {
-        if (!isValidPosition(row, col) || gameOver ||
-                player != currentPlayer || board[row][col] != EMPTY ||
-                !isValidMove(row, col, player)) {
-            return false;
+    /** Moves ({row, col}) played from the start position up to the current ply. */
+    public synchronized List<int[]> getMoveHistory() {
+        trace(WorkloadTrace.GET_MOVE_HISTORY);
+        List<int[]> result = new ArrayList<>();
+        if (history != null) {
+            for (int sq : history.moves()) {
+                result.add(new int[]{sq / Bitboard.SIZE, sq % Bitboard.SIZE});
+            }
         }
-        // Place the piece
-        board[row][col] = player;
-        // Flip opponent pieces
-        flipPieces(row, col, player);
-        // Invalidate cache since board changed
-        invalidateCache();
-        // Switch players
-        currentPlayer = (currentPlayer == BLACK) ? WHITE : BLACK;
-        // Check if game is over
-        checkGameOver();
-        return true;
+        return result;
     }
 
-    private void flipPieces(int row, int col, int player) {
-        int opponent = (player == BLACK) ? WHITE : BLACK;
+    private void restore(Position position) {
+        ((BitboardEngine) board).setBits(position.getBlack(), position.getWhite());
+        currentPlayer = position.getSideToMove();
+        gameOver = position.isTerminal();
+        publish();
+    }
 
-        // Check all 8 directions
-        for (int i = 0; i < NUM_DIRECTIONS; i++) {
-            int rowDir = ROW_DIRECTIONS[i];
-            int colDir = COL_DIRECTIONS[i];
-
-            if (canFlipInDirection(row, col, rowDir, colDir, player)) {
-                // Flip pieces in this direction
-                int currentRow = row + rowDir;
-                int currentCol = col + colDir;
-
-                while (board[currentRow][currentCol] == opponent) {
-                    board[currentRow][currentCol] = player;
-                    currentRow += rowDir;
-                    currentCol += colDir;
-                }
-            }
+    private void publish() {
+        long start = ModelProfiler.start();
+        snapshot = new BoardSnapshot(board, currentPlayer, gameOver);
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.PUBLISH, start);
+            ModelProfiler.setPly(board.count(BLACK) + board.count(WHITE));
         }
     }
 
     private void checkGameOver() {
+        long start = ModelProfiler.start();
         // Check if current player has no valid moves
         if (!hasValidMoves(currentPlayer)) {
             // Switch to the other player to see if they have moves
-            int otherPlayer = (currentPlayer == BLACK) ? WHITE : BLACK;
+            int otherPlayer = opponentOf(currentPlayer);
             if (!hasValidMoves(otherPlayer)) {
                 // Neither player has valid moves - game is over
                 gameOver = true;
@@ -189,6 +336,9 @@ public class OthelloModel {
                 currentPlayer = otherPlayer;
             }
         }
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.CHECK_GAME_OVER, start);
+        }
     }
 
     /**
@@ -196,93 +346,54 @@ public class OthelloModel {
      * @return true if current player has no valid moves, false otherwise
      */
     public boolean currentPlayerHasNoValidMoves() {
-        if (gameOver) return true;
-        return !hasValidMoves(currentPlayer);
+        trace(WorkloadTrace.NO_VALID_MOVES);
+        long start = ModelProfiler.start();
+        BoardSnapshot current = snapshot;
+        boolean none = current.isGameOver() || !current.hasValidMoves(current.getCurrentPlayer());
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.NO_VALID_MOVES, start);
+        }
+        return none;
     }
 
     public int[] getGreedyMove(int player) {
-        List<int[]> validMoves = getValidMoves(player);
-
-        if (validMoves.isEmpty()) {
-            return null;
-        }
+        trace(WorkloadTrace.GET_GREEDY_MOVE, player);
+        long start = ModelProfiler.start();
+        BoardSnapshot current = snapshot;
+        List<int[]> validMoves = current.getValidMoves(player);
 
+        // Stays null when there is no valid move
         int[] bestMove = null;
         int maxFlips = -1;
 
         for (int[] move : validMoves) {
-            int flips = countFlipsForMove(move[0], move[1], player);
+            int flips = current.countFlips(move[0], move[1], player);
             if (flips > maxFlips) {
                 maxFlips = flips;
                 bestMove = move;
             }
         }
 
-        return bestMove;
-    }
-
-    private int countFlipsForMove(int row, int col, int player) {
-        int opponent = (player == BLACK) ? WHITE : BLACK;
-        int totalFlips = 0;
-
-        // Check all 8 directions
-        for (int i = 0; i < NUM_DIRECTIONS; i++) {
-            int rowDir = ROW_DIRECTIONS[i];
-            int colDir = COL_DIRECTIONS[i];
-
-            if (canFlipInDirection(row, col, rowDir, colDir, player)) {
-                // Count pieces that would be flipped in this direction
-                int currentRow = row + rowDir;
-                int currentCol = col + colDir;
-                int directionFlips = 0;
-
-                while (board[currentRow][currentCol] == opponent) {
-                    directionFlips++;
-                    currentRow += rowDir;
-                    currentCol += colDir;
-                }
-
-                totalFlips += directionFlips;
-            }
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.GET_GREEDY_MOVE, start);
         }
-
-        return totalFlips;
+        return bestMove;
     }
 
     public int[] getScore() {
-        int blackCount = 0;
-        int whiteCount = 0;
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == BLACK) {
-                    blackCount++;
-                } else if (board[i][j] == WHITE) {
-                    whiteCount++;
-                }
-            }
-        }
-
-        return new int[]{blackCount, whiteCount};
+        trace(WorkloadTrace.GET_SCORE);
+        return snapshot.getScore();
     }
 
     public int getWinner() {
-        if (!gameOver) {
-            return EMPTY;
-        }
-
-        int[] score = getScore();
-        if (score[0] > score[1]) {
-            return BLACK;
-        } else if (score[1] > score[0]) {
-            return WHITE;
-        } else {
-            return EMPTY; // Tie
-        }
+        trace(WorkloadTrace.GET_WINNER);
+        return snapshot.getWinner();
     }
 
-    public void endGame() {
+    public synchronized void endGame() {
+        trace(WorkloadTrace.END_GAME);
         gameOver = true;
+        publish();
     }
 
     /*
@@ -398,21 +509,25 @@ public class OthelloModel {
     }
     */
 
-    private void invalidateCache() {
-        cachedValidMoves = null;
-        cachedPlayer = -1;
+    // Workload capture (see WorkloadTrace); a no-op the JIT removes when not recording
+    private void trace(int op) {
+        if (WorkloadTrace.RECORDER != null) {
+            WorkloadTrace.RECORDER.record(traceId, op);
+        }
+    }
+
+    private void trace(int op, int arg) {
+        if (WorkloadTrace.RECORDER != null) {
+            WorkloadTrace.RECORDER.record(traceId, op, arg);
+        }
     }
 
     private boolean hasValidMoves(int player) {
-        if (gameOver) return false;
-        // Quick check - just find the first valid move
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (board[row][col] == EMPTY && isValidMove(row, col, player)) {
-                    return true; // Found one, that's enough!
-                }
-            }
+        long start = ModelProfiler.start();
+        boolean any = !gameOver && board.hasValidMoves(player);
+        if (ModelProfiler.ENABLED) {
+            ModelProfiler.record(ModelProfiler.Op.HAS_VALID_MOVES, start);
         }
-        return false;
+        return any;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+/**
+ * Immutable 8x8 position: one bitboard per colour plus the side to move.
+ * Seventeen bytes of state, so keeping one per ply of history is cheap.
+ */
+public final class Position {
+    public static final Position START = new Position(Bitboard.START_BLACK, Bitboard.START_WHITE, OthelloModel.BLACK);
+
+    private final long black;
+    private final long white;
+    private final int sideToMove;
+
+    public Position(long black, long white, int sideToMove) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("Black and white discs overlap");
+        }
+        if (sideToMove != OthelloModel.BLACK && sideToMove != OthelloModel.WHITE) {
+            throw new IllegalArgumentException("Invalid player: " + sideToMove);
+        }
+        this.black = black;
+        this.white = white;
+        this.sideToMove = sideToMove;
+    }
+
+    public long getBlack() {
+        return black;
+    }
+
+    public long getWhite() {
+        return white;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    /** Discs of the side to move. */
+    public long own() {
+        return sideToMove == OthelloModel.BLACK ? black : white;
+    }
+
+    /** Discs of the side not to move. */
+    public long opp() {
+        return sideToMove == OthelloModel.BLACK ? white : black;
+    }
+
+    /** True when neither side can move. */
+    public boolean isTerminal() {
+        return Bitboard.moves(own(), opp()) == 0 && Bitboard.moves(opp(), own()) == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Position)) return false;
+        Position other = (Position) o;
+        return black == other.black && white == other.white && sideToMove == other.sideToMove;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = black * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(white, 29) ^ sideToMove;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(Bitboard.SQUARES + 2);
+        for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+            long mask = 1L << sq;
+            sb.append((black & mask) != 0 ? 'X' : (white & mask) != 0 ? 'O' : '-');
+        }
+        return sb.append(' ').append(sideToMove == OthelloModel.BLACK ? 'X' : 'O').toString();
+    }
+}
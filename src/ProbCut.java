@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Multi-ProbCut parameters for {@link SearchEngine}.
+ *
+ * A shallow search result v_s predicts the deep result as
+ * v_d = a * v_s + b with normally distributed error of deviation sigma.
+ * When the shallow search proves v_s is far enough above beta (or below
+ * alpha) that the deep result is outside the window with the configured
+ * confidence, the deep search is skipped. Parameters are kept per game
+ * phase and per (deep, shallow) depth pair, and each deep depth is checked
+ * with a very shallow search first and a deeper one second.
+ *
+ * Built-in parameters were fitted with {@link ProbCutTrainer} for the
+ * built-in evaluator. Fitted parameters are picked up at startup from the
+ * file named by the {@code othello.probcut} system property, or from
+ * {@code othello-probcut.properties} in the working directory.
+ */
+class ProbCut {
+    static final int MIN_DEPTH = 3;
+    static final int MAX_DEPTH = 16;
+    static final double DEFAULT_CONFIDENCE = 1.5;
+
+    static final String PARAMETERS_PROPERTY = "othello.probcut";
+    static final String DEFAULT_PARAMETERS_FILE = "othello-probcut.properties";
+
+    // Built-in fit for the built-in evaluator, per phase: {deep, shallow, a, b, sigma}
+    private static final double[][][] DEFAULT_FIT = {
+            {
+                    {3, 1, 1.095, 0.4, 14.8}, {4, 2, 1.015, 1.1, 10.8}, {5, 1, 1.080, 2.4, 19.6}, {6, 2, 1.057, 2.1, 16.5},
+                    {7, 1, 1.086, 2.3, 25.2}, {7, 3, 1.070, 1.2, 15.4}, {8, 2, 1.087, 2.5, 21.7}, {8, 4, 1.119, 1.8, 14.7},
+            },
+            {
+                    {3, 1, 1.080, 3.3, 17.7}, {4, 2, 1.084, 2.2, 16.1}, {5, 1, 1.156, 3.0, 24.3}, {6, 2, 1.153, 3.1, 24.3},
+                    {7, 1, 1.236, 2.6, 31.3}, {7, 3, 1.159, -1.4, 20.6}, {8, 2, 1.235, 4.1, 30.3}, {8, 4, 1.162, 1.8, 18.4},
+            },
+            {
+                    {3, 1, 1.065, 5.4, 27.3}, {4, 2, 1.078, 5.8, 27.7}, {5, 1, 1.133, 6.3, 40.3}, {6, 2, 1.154, 8.5, 39.4},
+                    {7, 1, 1.203, 8.1, 52.5}, {7, 3, 1.145, 1.8, 35.6}, {8, 2, 1.228, 11.6, 51.4}, {8, 4, 1.154, 5.1, 32.3},
+            },
+            {
+                    {3, 1, 1.049, 5.2, 32.6}, {4, 2, 1.056, 6.3, 31.2}, {5, 1, 1.106, 6.5, 47.1}, {6, 2, 1.109, 11.5, 47.3},
+                    {7, 1, 1.163, 11.4, 65.8}, {7, 3, 1.122, 5.1, 46.2}, {8, 2, 1.164, 16.7, 66.5}, {8, 4, 1.117, 9.5, 47.2},
+            },
+    };
+
+    // [phase][deep][shallow] -> {a, b, sigma}, null when not fitted
+    private final double[][][][] fit;
+    private final double confidence;
+
+    ProbCut() {
+        this(defaultFit(), DEFAULT_CONFIDENCE);
+    }
+
+    private ProbCut(double[][][][] fit, double confidence) {
+        if (!(confidence > 0)) {
+            throw new IllegalArgumentException("confidence must be positive: " + confidence);
+        }
+        this.fit = fit;
+        this.confidence = confidence;
+    }
+
+    /** Same parameters with another confidence, in standard deviations; higher prunes less. */
+    ProbCut withConfidence(double confidence) {
+        return new ProbCut(fit, confidence);
+    }
+
+    double getConfidence() {
+        return confidence;
+    }
+
+    /** Hash of the confidence and every fitted parameter, to tell apart tables written with other settings. */
+    long fingerprint() {
+        long h = Double.doubleToLongBits(confidence);
+        for (double[][][] byDepth : fit) {
+            for (double[][] byShallow : byDepth) {
+                for (double[] p : byShallow) {
+                    if (p != null) {
+                        for (double v : p) {
+                            h = (h ^ Double.doubleToLongBits(v)) * 0x100000001B3L;
+                        }
+                    }
+                    h = (h ^ 1) * 0x100000001B3L;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Shallow check depth for a deep depth: about half of it, with the same
+     * parity so both searches end on the same side to move.
+     */
+    static int shallowDepth(int depth) {
+        int shallow = depth / 2;
+        if (((depth - shallow) & 1) != 0) {
+            shallow--;
+        }
+        return Math.max(shallow, 0);
+    }
+
+    private static final int[][] CHECK_DEPTHS = new int[MAX_DEPTH + 1][];
+
+    static {
+        for (int d = 0; d <= MAX_DEPTH; d++) {
+            CHECK_DEPTHS[d] = computeCheckDepths(d);
+        }
+    }
+
+    /** Shallow depths to try for a deep depth, cheapest first; empty below MIN_DEPTH. Do not modify. */
+    static int[] checkDepths(int depth) {
+        return depth <= MAX_DEPTH ? CHECK_DEPTHS[depth] : computeCheckDepths(depth);
+    }
+
+    private static int[] computeCheckDepths(int depth) {
+        if (depth < MIN_DEPTH) {
+            return new int[0];
+        }
+        int shallow = shallowDepth(depth);
+        int cheaper = shallowDepth(shallow);
+        return shallow >= MIN_DEPTH && cheaper >= 1 ? new int[]{cheaper, shallow} : new int[]{shallow};
+    }
+
+    /**
+     * Parameters {a, b, sigma} for a check, or null when ProbCut should not
+     * be tried. Depths past the fitted range reuse the deepest fitted pair
+     * with the same shallow depth, else the deepest fitted pair of the same
+     * parity; both underestimate sigma a little.
+     */
+    double[] parameters(int phase, int depth, int shallow) {
+        double[][][] byDepth = fit[phase];
+        // Shallow depths past the fitted range (deep checks above 2 * MAX_DEPTH) have no pair of their own
+        for (int d = Math.min(depth, MAX_DEPTH); d >= MIN_DEPTH && shallow <= MAX_DEPTH; d--) {
+            if (byDepth[d][shallow] != null) {
+                return byDepth[d][shallow];
+            }
+        }
+        for (int d = Math.min(depth, MAX_DEPTH); d >= MIN_DEPTH; d--) {
+            int[] checks = checkDepths(d);
+            double[] p = byDepth[d][checks[checks.length - 1]];
+            if (p != null && ((depth - d) & 1) == 0) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /** Search score the shallow result must reach for the deep result to be >= beta. */
+    int highBound(double[] p, int beta) {
+        return (int) Math.ceil((beta + confidence * p[2] - p[1]) / p[0]);
+    }
+
+    /** Search score the shallow result must stay under for the deep result to be <= alpha. */
+    int lowBound(double[] p, int alpha) {
+        return (int) Math.floor((alpha - confidence * p[2] - p[1]) / p[0]);
+    }
+
+    private static double[][][][] defaultFit() {
+        double[][][][] result = emptyFit();
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (double[] row : DEFAULT_FIT[p]) {
+                result[p][(int) row[0]][(int) row[1]] = new double[]{row[2], row[3], row[4]};
+            }
+        }
+        return result;
+    }
+
+    static double[][][][] emptyFit() {
+        return new double[Evaluator.PHASES][MAX_DEPTH + 1][MAX_DEPTH + 1][];
+    }
+
+    /** Parameters from a fitted table; pairs left null are filled from the built-in fit. */
+    static ProbCut of(double[][][][] fitted) {
+        double[][][][] result = defaultFit();
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (int d = 0; d <= MAX_DEPTH; d++) {
+                for (int s = 0; s <= MAX_DEPTH; s++) {
+                    if (fitted[p][d][s] != null) {
+                        result[p][d][s] = fitted[p][d][s].clone();
+                    }
+                }
+            }
+        }
+        return new ProbCut(result, DEFAULT_CONFIDENCE);
+    }
+
+    private static String key(int phase, int depth, int shallow) {
+        return "phase." + phase + ".depth." + depth + ".shallow." + shallow;
+    }
+
+    void save(Path file, String comment) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("confidence", String.valueOf(confidence));
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (int d = 0; d <= MAX_DEPTH; d++) {
+                for (int s = 0; s <= MAX_DEPTH; s++) {
+                    double[] params = fit[p][d][s];
+                    if (params != null) {
+                        props.setProperty(key(p, d, s), params[0] + "," + params[1] + "," + params[2]);
+                    }
+                }
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            props.store(out, comment);
+        }
+    }
+
+    /** Loads a parameters file; pairs missing from the file keep their built-in values. */
+    static ProbCut load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        double[][][][] fitted = emptyFit();
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (int d = 0; d <= MAX_DEPTH; d++) {
+                for (int s = 0; s <= MAX_DEPTH; s++) {
+                    String value = props.getProperty(key(p, d, s));
+                    if (value != null) {
+                        fitted[p][d][s] = parseTriple(key(p, d, s), value);
+                    }
+                }
+            }
+        }
+        String confidence = props.getProperty("confidence");
+        try {
+            ProbCut result = of(fitted);
+            return confidence == null ? result : result.withConfidence(Double.parseDouble(confidence.trim()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad confidence: " + confidence, e);
+        }
+    }
+
+    private static double[] parseTriple(String key, String value) throws IOException {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new IOException("Expected a,b,sigma for " + key + ": " + value);
+        }
+        try {
+            double[] result = new double[3];
+            for (int i = 0; i < 3; i++) {
+                result[i] = Double.parseDouble(parts[i].trim());
+            }
+            if (!(result[0] > 0) || !(result[2] >= 0)) {
+                throw new IOException("Slope must be positive and sigma non-negative for " + key + ": " + value);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad parameters for " + key + ": " + value, e);
+        }
+    }
+
+    /** The parameters engines use by default: fitted ones if a parameters file exists, else the built-in ones. */
+    static ProbCut defaultProbCut() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final ProbCut INSTANCE = loadStartupParameters();
+
+        private static ProbCut loadStartupParameters() {
+            Path file = Paths.get(System.getProperty(PARAMETERS_PROPERTY, DEFAULT_PARAMETERS_FILE));
+            if (!Files.isRegularFile(file)) {
+                return new ProbCut();
+            }
+            try {
+                return load(file);
+            } catch (IOException e) {
+                System.err.println("Ignoring ProbCut parameters file " + file + ": " + e.getMessage());
+                return new ProbCut();
+            }
+        }
+    }
+}
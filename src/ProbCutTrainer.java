@@ -0,0 +1,233 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits {@link ProbCut} parameters from {@link SelfPlayGenerator} records.
+ *
+ * Every stride-th position is searched full width at each depth up to the
+ * maximum, and for every (deep, shallow) pair ProbCut checks the deep
+ * scores are regressed on the shallow ones per game phase. Positions too
+ * close to the end for the deepest search are skipped, since ProbCut never
+ * prunes endgame solving, as are positions whose search already proves
+ * the game's result.
+ */
+public class ProbCutTrainer {
+    public static final int DEFAULT_MAX_DEPTH = 8;
+    public static final int DEFAULT_STRIDE = 16;
+
+    private static final int CHUNK_POSITIONS = 64;
+    private static final int CHUNKS_PER_THREAD = 2;
+    // Pairs with fewer samples than this keep their built-in parameters
+    private static final long MIN_SAMPLES = 30;
+
+    private final int maxDepth;
+    private final int stride;
+    private final int threads;
+    private final Evaluator evaluator;
+
+    public ProbCutTrainer(int maxDepth, int stride, int threads) {
+        this(maxDepth, stride, threads, Evaluator.defaultEvaluator());
+    }
+
+    ProbCutTrainer(int maxDepth, int stride, int threads, Evaluator evaluator) {
+        if (maxDepth < ProbCut.MIN_DEPTH || maxDepth > ProbCut.MAX_DEPTH || stride < 1 || threads < 1) {
+            throw new IllegalArgumentException("Invalid ProbCut training settings");
+        }
+        this.maxDepth = maxDepth;
+        this.stride = stride;
+        this.threads = threads;
+        this.evaluator = evaluator;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxDepth = DEFAULT_MAX_DEPTH;
+        int stride = DEFAULT_STRIDE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String in = "selfplay.bin";
+        String out = ProbCut.DEFAULT_PARAMETERS_FILE;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max-depth": maxDepth = Integer.parseInt(args[++i]); break;
+                case "--stride": stride = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default: in = args[i];
+            }
+        }
+
+        long start = System.nanoTime();
+        Fit fit;
+        try (InputStream input = Files.newInputStream(Paths.get(in))) {
+            fit = new ProbCutTrainer(maxDepth, stride, threads).fit(input);
+        }
+        fit.probCut.save(Paths.get(out), "Fitted from " + fit.samples + " positions in " + in);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Fitted %d positions in %.1fs, wrote %s%n", fit.samples, seconds, out);
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (int d = ProbCut.MIN_DEPTH; d <= maxDepth; d++) {
+                for (int s : ProbCut.checkDepths(d)) {
+                    double[] params = fit.table[p][d][s];
+                    if (params != null) {
+                        System.err.printf("phase %d depth %2d <- %d: a=%.3f b=%.1f sigma=%.1f%n",
+                                p, d, s, params[0], params[1], params[2]);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Fitted parameters plus the raw fitted table (null where a pair had too few samples). */
+    public static final class Fit {
+        final ProbCut probCut;
+        final double[][][][] table;
+        public final long samples;
+
+        Fit(ProbCut probCut, double[][][][] table, long samples) {
+            this.probCut = probCut;
+            this.table = table;
+            this.samples = samples;
+        }
+    }
+
+    /** Simple-regression sums per [phase][deep][shallow]: n, x, y, xx, xy, yy. */
+    private static final class Sums {
+        final double[][][][] s = new double[Evaluator.PHASES][ProbCut.MAX_DEPTH + 1][ProbCut.MAX_DEPTH + 1][6];
+        long positions;
+
+        void add(Sums other) {
+            for (int p = 0; p < Evaluator.PHASES; p++) {
+                for (int d = 0; d <= ProbCut.MAX_DEPTH; d++) {
+                    for (int sh = 0; sh <= ProbCut.MAX_DEPTH; sh++) {
+                        for (int k = 0; k < 6; k++) {
+                            s[p][d][sh][k] += other.s[p][d][sh][k];
+                        }
+                    }
+                }
+            }
+            positions += other.positions;
+        }
+    }
+
+    Fit fit(InputStream in) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "probcut-trainer");
+            t.setDaemon(true);
+            return t;
+        });
+        Sums total = new Sums();
+        ArrayDeque<Future<Sums>> window = new ArrayDeque<>();
+        byte[] record = new byte[SelfPlayGenerator.RECORD_BYTES];
+        try (InputStream input = new BufferedInputStream(in, 1 << 16)) {
+            long index = 0;
+            while (true) {
+                // Gather one chunk of sampled positions: black, white, side
+                long[] chunk = new long[3 * CHUNK_POSITIONS];
+                int n = 0;
+                while (n < chunk.length && input.readNBytes(record, 0, record.length) == record.length) {
+                    if (index++ % stride != 0) {
+                        continue;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(record);
+                    chunk[n++] = buffer.getLong();
+                    chunk[n++] = buffer.getLong();
+                    chunk[n++] = buffer.get();
+                }
+                if (n == 0) {
+                    break;
+                }
+                int length = n;
+                window.add(pool.submit(() -> accumulate(chunk, length)));
+                if (window.size() >= threads * CHUNKS_PER_THREAD) {
+                    total.add(window.poll().get());
+                }
+            }
+            while (!window.isEmpty()) {
+                total.add(window.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fitting", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Fitting failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return solve(total);
+    }
+
+    private Sums accumulate(long[] chunk, int length) {
+        Sums sums = new Sums();
+        SearchEngine engine = new SearchEngine(evaluator);
+        int[] scores = new int[maxDepth + 1];
+        for (int i = 0; i < length; i += 3) {
+            long black = chunk[i];
+            long white = chunk[i + 1];
+            boolean blackToMove = chunk[i + 2] == OthelloModel.BLACK;
+            long own = blackToMove ? black : white;
+            long opp = blackToMove ? white : black;
+            if (Bitboard.SQUARES - Long.bitCount(own | opp) <= maxDepth) {
+                continue;
+            }
+            boolean decided = false;
+            for (int d = 0; d <= maxDepth; d++) {
+                scores[d] = engine.score(own, opp, d);
+                decided |= Math.abs(scores[d]) >= SearchEngine.FINAL_DISC_WEIGHT;
+            }
+            // Proven results are on another scale from evaluations and would swamp the fit
+            if (decided) {
+                continue;
+            }
+            int phase = Evaluator.phase(own | opp);
+            for (int d = ProbCut.MIN_DEPTH; d <= maxDepth; d++) {
+                for (int s : ProbCut.checkDepths(d)) {
+                    double x = scores[s];
+                    double y = scores[d];
+                    double[] acc = sums.s[phase][d][s];
+                    acc[0]++;
+                    acc[1] += x;
+                    acc[2] += y;
+                    acc[3] += x * x;
+                    acc[4] += x * y;
+                    acc[5] += y * y;
+                }
+            }
+            sums.positions++;
+        }
+        return sums;
+    }
+
+    private static Fit solve(Sums sums) {
+        double[][][][] table = ProbCut.emptyFit();
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            for (int d = 0; d <= ProbCut.MAX_DEPTH; d++) {
+                for (int s = 0; s <= ProbCut.MAX_DEPTH; s++) {
+                    double[] acc = sums.s[p][d][s];
+                    double n = acc[0];
+                    if (n < MIN_SAMPLES) {
+                        continue;
+                    }
+                    double sxx = acc[3] - acc[1] * acc[1] / n;
+                    double sxy = acc[4] - acc[1] * acc[2] / n;
+                    double syy = acc[5] - acc[2] * acc[2] / n;
+                    if (!(sxx > 0) || !(sxy > 0)) {
+                        continue;
+                    }
+                    double a = sxy / sxx;
+                    double b = (acc[2] - a * acc[1]) / n;
+                    double sigma = Math.sqrt(Math.max(0, syy - a * sxy) / (n - 2));
+                    table[p][d][s] = new double[]{a, b, sigma};
+                }
+            }
+        }
+        return new Fit(ProbCut.of(table), table, sums.positions);
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Evaluates every ply of a recorded game in the background, in parallel
+ * across plies. Plies are scheduled coarse to fine (every 16th ply first,
+ * then the gaps) so an evaluation graph fills in evenly while work is
+ * still running. Scores are reported from Black's point of view.
+ */
+public class ReplayAnalyzer implements AutoCloseable {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    private static final int FIRST_STRIDE = 16;
+
+    /** Called from a worker thread as each ply finishes. */
+    public interface Listener {
+        void plyAnalysed(int ply, int blackScore);
+    }
+
+    private final List<Position> positions;
+    private final int depth;
+    private final AtomicIntegerArray scores;
+    private final AtomicInteger remaining;
+    private final ExecutorService pool;
+    private final ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(SearchEngine::new);
+
+    public ReplayAnalyzer(List<Position> positions, int depth, int threads) {
+        this.positions = positions;
+        this.depth = depth;
+        this.scores = new AtomicIntegerArray(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            scores.set(i, UNKNOWN);
+        }
+        this.remaining = new AtomicInteger(positions.size());
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "replay-analyzer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start(Listener listener) {
+        boolean[] queued = new boolean[positions.size()];
+        for (int stride = FIRST_STRIDE; stride >= 1; stride /= 2) {
+            for (int ply = 0; ply < positions.size(); ply += stride) {
+                if (!queued[ply]) {
+                    queued[ply] = true;
+                    int target = ply;
+                    pool.execute(() -> analyse(target, listener));
+                }
+            }
+        }
+    }
+
+    private void analyse(int ply, Listener listener) {
+        Position position = positions.get(ply);
+        SearchEngine.Result result = engines.get().search(position.own(), position.opp(), depth);
+        int blackScore = position.getSideToMove() == OthelloModel.BLACK ? result.score : -result.score;
+        scores.set(ply, blackScore);
+        remaining.decrementAndGet();
+        listener.plyAnalysed(ply, blackScore);
+    }
+
+    /** Black's score at ply, or {@link #UNKNOWN} if not analysed yet. */
+    public int getScore(int ply) {
+        return scores.get(ply);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public boolean isDone() {
+        return remaining.get() == 0;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,247 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link SearchEngine} configurations on a reproducible suite of
+ * midgame positions reached by random play.
+ *
+ * By default each configuration gets the same wall-clock budget per
+ * position; the report shows the average depth completed, node rate and
+ * how often the selective search picks the same move as the full-width
+ * one. With {@code --fixed-depth D} every position is instead searched to
+ * depth D with plain full-window alpha-beta and with principal variation
+ * search, and the report shows the node reduction (the scores must agree).
+ *
+ * {@code --hash MB} gives every engine a transposition table of that size.
+ * {@code --gc} runs timed searches with an off-heap table and then with the
+ * same table on the heap, and reports the garbage collections and pause
+ * times seen during each run (run with a heap large enough for the table).
+ *
+ * Usage: {@code SearchBenchmark [--positions N] [--millis MS | --fixed-depth D | --gc] [--hash MB]
+ * [--seed S] [--confidence T]}
+ */
+public class SearchBenchmark {
+    public static final int DEFAULT_POSITIONS = 40;
+    public static final long DEFAULT_MILLIS = 1000;
+
+    // Suite positions are taken after this many random plies
+    private static final int MIN_PLIES = 16;
+    private static final int MAX_PLIES = 36;
+
+    public static void main(String[] args) {
+        int count = DEFAULT_POSITIONS;
+        long millis = DEFAULT_MILLIS;
+        long seed = 1;
+        double confidence = ProbCut.defaultProbCut().getConfidence();
+        int fixedDepth = 0;
+        long hashMegabytes = 0;
+        boolean gc = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--positions": count = Integer.parseInt(args[++i]); break;
+                case "--millis": millis = Long.parseLong(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--confidence": confidence = Double.parseDouble(args[++i]); break;
+                case "--fixed-depth": fixedDepth = Integer.parseInt(args[++i]); break;
+                case "--hash": hashMegabytes = Long.parseLong(args[++i]); break;
+                case "--gc": gc = true; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Position[] suite = positions(count, seed);
+        if (fixedDepth > 0) {
+            compareNodes(suite, fixedDepth, hashMegabytes);
+            return;
+        }
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "benchmark-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        if (gc) {
+            try {
+                long megabytes = hashMegabytes > 0 ? hashMegabytes : 1024;
+                comparePauses(suite, millis, megabytes, true, timer);
+                comparePauses(suite, millis, megabytes, false, timer);
+            } finally {
+                timer.shutdownNow();
+            }
+            return;
+        }
+
+        SearchEngine plain = new SearchEngine();
+        SearchEngine selective = new SearchEngine();
+        selective.setProbCut(ProbCut.defaultProbCut().withConfidence(confidence));
+        if (hashMegabytes > 0) {
+            plain.setTranspositionTable(TranspositionTable.ofMegabytes(hashMegabytes));
+            selective.setTranspositionTable(TranspositionTable.ofMegabytes(hashMegabytes));
+        }
+        try {
+            SearchEngine.Result[] full = run(plain, suite, millis, timer);
+            SearchEngine.Result[] cut = run(selective, suite, millis, timer);
+            report("alpha-beta", full, millis);
+            report(String.format("probcut t=%.2f", confidence), cut, millis);
+            int same = 0;
+            for (int i = 0; i < suite.length; i++) {
+                if (full[i].square == cut[i].square) {
+                    same++;
+                }
+            }
+            System.out.printf("same move as alpha-beta: %d/%d%n", same, suite.length);
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    /** Reproducible midgame positions with a legal move for the side to move. */
+    static Position[] positions(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Position[] result = new Position[count];
+        int n = 0;
+        while (n < count) {
+            long black = Bitboard.START_BLACK;
+            long white = Bitboard.START_WHITE;
+            boolean blackToMove = true;
+            int plies = MIN_PLIES + random.nextInt(MAX_PLIES - MIN_PLIES + 1);
+            for (int ply = 0; ply < plies; ply++) {
+                long own = blackToMove ? black : white;
+                long opp = blackToMove ? white : black;
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    break;
+                }
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                    moves &= moves - 1;
+                }
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+                black = blackToMove ? own : opp;
+                white = blackToMove ? opp : own;
+                blackToMove = !blackToMove;
+            }
+            Position position = new Position(black, white, blackToMove ? OthelloModel.BLACK : OthelloModel.WHITE);
+            if (Bitboard.moves(position.own(), position.opp()) != 0) {
+                result[n++] = position;
+            }
+        }
+        return result;
+    }
+
+    /** Searches every position for the given time, stopping the engine from the timer thread. */
+    static SearchEngine.Result[] run(SearchEngine engine, Position[] suite, long millis,
+                                     ScheduledExecutorService timer) {
+        SearchEngine.Result[] results = new SearchEngine.Result[suite.length];
+        for (int i = 0; i < suite.length; i++) {
+            ScheduledFuture<?> stop = timer.schedule(engine::stop, millis, TimeUnit.MILLISECONDS);
+            results[i] = engine.search(suite[i].own(), suite[i].opp(), Bitboard.SQUARES);
+            stop.cancel(false);
+        }
+        return results;
+    }
+
+    /** Fixed-depth node counts of full-window alpha-beta against PVS with aspiration windows. */
+    private static void compareNodes(Position[] suite, int depth, long hashMegabytes) {
+        SearchEngine fullWindow = new SearchEngine();
+        fullWindow.setPrincipalVariationSearch(false);
+        SearchEngine pvs = new SearchEngine();
+        if (hashMegabytes > 0) {
+            fullWindow.setTranspositionTable(TranspositionTable.ofMegabytes(hashMegabytes));
+            pvs.setTranspositionTable(TranspositionTable.ofMegabytes(hashMegabytes));
+        }
+        long fullNodes = 0;
+        long pvsNodes = 0;
+        for (int i = 0; i < suite.length; i++) {
+            SearchEngine.Result full = fullWindow.search(suite[i].own(), suite[i].opp(), depth);
+            SearchEngine.Result result = pvs.search(suite[i].own(), suite[i].opp(), depth);
+            if (full.score != result.score) {
+                throw new IllegalStateException("Score mismatch on position " + i + ": " + suite[i]
+                        + " full window " + full.score + ", PVS " + result.score);
+            }
+            fullNodes += full.nodes;
+            pvsNodes += result.nodes;
+            System.out.printf("%3d %6d %,12d %,12d  %s%n", i, result.score, full.nodes, result.nodes,
+                    result.principalVariation());
+        }
+        System.out.printf("depth %d: full window %,d nodes, PVS %,d nodes (%.1f%% fewer)%n",
+                depth, fullNodes, pvsNodes, 100.0 * (fullNodes - pvsNodes) / fullNodes);
+    }
+
+    /** Timed searches with a table on or off the heap, reporting collector activity during them. */
+    private static void comparePauses(Position[] suite, long millis, long megabytes, boolean offHeap,
+                                      ScheduledExecutorService timer) {
+        TranspositionTable table = new TranspositionTable(megabytes << 20, offHeap);
+        table.clear(); // touch every page up front
+        SearchEngine engine = new SearchEngine();
+        engine.setTranspositionTable(table);
+
+        List<Long> pauses = new ArrayList<>();
+        List<Runnable> removers = new ArrayList<>();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(bean instanceof javax.management.NotificationEmitter)) {
+                continue;
+            }
+            javax.management.NotificationEmitter emitter = (javax.management.NotificationEmitter) bean;
+            javax.management.NotificationListener listener = (notification, handback) -> {
+                if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                            (javax.management.openmbean.CompositeData) notification.getUserData());
+                    synchronized (pauses) {
+                        pauses.add(info.getGcInfo().getDuration());
+                    }
+                }
+            };
+            emitter.addNotificationListener(listener, null, null);
+            removers.add(() -> {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (javax.management.ListenerNotFoundException ignored) {
+                }
+            });
+        }
+
+        System.gc(); // start both runs from the same place
+        synchronized (pauses) {
+            pauses.clear();
+        }
+        SearchEngine.Result[] results = run(engine, suite, millis, timer);
+        removers.forEach(Runnable::run);
+
+        long max = 0;
+        long total = 0;
+        synchronized (pauses) {
+            for (long pause : pauses) {
+                max = Math.max(max, pause);
+                total += pause;
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("%-8s %,6d MB table: %d collections, %d ms total, %d ms longest, heap used %,d MB%n",
+                    offHeap ? "off-heap" : "on-heap", megabytes, pauses.size(), total, max,
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        }
+        report(offHeap ? "off-heap" : "on-heap", results, millis);
+    }
+
+    private static void report(String name, SearchEngine.Result[] results, long millis) {
+        long depth = 0;
+        long nodes = 0;
+        for (SearchEngine.Result result : results) {
+            depth += result.depth;
+            nodes += result.nodes;
+        }
+        double seconds = results.length * millis / 1000.0;
+        System.out.printf("%-18s average depth %5.2f, %,.0f nodes/s%n",
+                name, depth / (double) results.length, nodes / seconds);
+    }
+}
@@ -0,0 +1,626 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Iterative-deepening alpha-beta (negamax) search on 8x8 bitboards.
+ * Scores are from the side to move's point of view; finished games score
+ * {@link #FINAL_DISC_WEIGHT} per disc of difference so they outrank any
+ * static evaluation. Not thread-safe: use one instance per thread.
+ *
+ * By default the search is a principal variation search: each iteration
+ * starts with an aspiration window around the previous score, the previous
+ * principal variation is searched first, and every other move is only
+ * proved worse with a null window unless it turns out better. The
+ * principal variation is collected in a triangular table.
+ *
+ * With a {@link TranspositionTable} attached, positions reached again are
+ * cut off from their stored bounds and their stored best move is searched
+ * first. Exact stored scores only end null-window searches, so the
+ * principal variation stays complete.
+ */
+public class SearchEngine {
+    public static final int FINAL_DISC_WEIGHT = 1000;
+    public static final int INFINITY = 1_000_000;
+
+    private static final int STOP_CHECK_MASK = 1023; // poll the stop flag every 1024 nodes
+    // Stability bounds only pay for themselves close to the end of the game
+    private static final int STABILITY_CUTOFF_EMPTIES = 24;
+    private static final int NO_CUT = Integer.MIN_VALUE;
+    /** Principal variation entry for a pass. */
+    public static final int PASS = -1;
+    // Half-width of the first aspiration window. Scores swing between odd and even depths,
+    // so narrower windows fail and re-search more often than they save
+    private static final int ASPIRATION_WINDOW = 32;
+    // Longest line: every empty square plus a pass before each move
+    private static final int MAX_PLY = 2 * Bitboard.SQUARES;
+
+    private final Evaluator evaluator;
+    private ProbCut probCut; // null: full-width search
+    private boolean inProbCut;
+    private boolean principalVariationSearch = true;
+    private TranspositionTable table; // null: no table
+    private boolean tableAgedByCaller; // shared with concurrent engines: the owner ages it per batch
+    private SearchListener listener; // null: none
+    private NnueEvaluator nnue; // null: score leaves with the evaluator
+
+    // Triangular PV table: row ply holds the best line from that ply on, in columns ply..pvLength[ply)
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    // Last completed iteration's PV, searched first by the next iteration
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private int previousPvLength;
+    private boolean followPv;
+    private int rootBest;
+    private long nodes;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long timeLimitMillis;
+    private boolean timed;
+    private long deadline; // System.nanoTime() at which a timed search stops
+    private volatile boolean stopRequested;
+
+    public SearchEngine() {
+        this(Evaluator.defaultEvaluator());
+    }
+
+    SearchEngine(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /** Outcome of a search: best root move, its score, completed depth, nodes visited and the expected line. */
+    public static final class Result {
+        public final int square; // -1 when the side to move must pass
+        public final int score;
+        public final int depth;
+        public final long nodes;
+        private final int[] pv;
+
+        Result(int square, int score, int depth, long nodes, int[] pv) {
+            this.square = square;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.pv = pv;
+        }
+
+        public int[] toMove() {
+            return square < 0 ? null : new int[]{square / Bitboard.SIZE, square % Bitboard.SIZE};
+        }
+
+        /** Squares of the principal variation from the root, {@link #PASS} for passes. */
+        public int[] getPrincipalVariation() {
+            return pv.clone();
+        }
+
+        /** The principal variation as square names, e.g. "d3 c5 pass f6". */
+        public String principalVariation() {
+            StringBuilder sb = new StringBuilder();
+            for (int sq : pv) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(sq == PASS ? "pass" : Bitboard.squareName(sq));
+            }
+            return sb.toString();
+        }
+    }
+
+    /** One root move of a multi-PV search. */
+    public static final class RootMove {
+        public final int square;
+        public final int score;
+        /** False when score is only an upper bound (the move fell outside the top k). */
+        public final boolean exact;
+
+        RootMove(int square, int score, boolean exact) {
+            this.square = square;
+            this.score = score;
+            this.exact = exact;
+        }
+    }
+
+    /** Receives the root moves, best first, each time an iteration completes. */
+    public interface MultiPvListener {
+        void depthCompleted(int depth, List<RootMove> moves);
+    }
+
+    /** Receives the best line so far each time an iteration of {@link #search} completes. */
+    public interface SearchListener {
+        void iterationCompleted(Result result);
+    }
+
+    /** Thrown from deep in the tree to unwind a stopped search; preallocated, no stack trace. */
+    private static final class SearchAborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final SearchAborted INSTANCE = new SearchAborted();
+
+        private SearchAborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Turns Multi-ProbCut selective pruning on, or off with null. Selective
+     * searches reach deeper in the same time but can miss moves whose deep
+     * score a shallow search does not foresee; endgame solving is never
+     * pruned.
+     */
+    public void setProbCut(ProbCut probCut) {
+        this.probCut = probCut;
+    }
+
+    /**
+     * Turns principal variation search with aspiration windows on (the
+     * default) or off, leaving plain full-window alpha-beta. Both give the
+     * same scores; this exists to measure the difference.
+     */
+    public void setPrincipalVariationSearch(boolean enabled) {
+        this.principalVariationSearch = enabled;
+    }
+
+    /**
+     * Scores leaves with a neural network instead of the evaluator, or goes
+     * back to the evaluator with null. The network's accumulators are
+     * updated incrementally along the searched line.
+     */
+    public void setNnue(NnueNetwork network) {
+        this.nnue = network == null ? null : new NnueEvaluator(network, MAX_PLY);
+    }
+
+    /** Reports every completed iteration of later searches to the listener, or stops with null. */
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /** Attaches a transposition table, or detaches it with null. A table may be shared between engines. */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        this.tableAgedByCaller = false;
+    }
+
+    /**
+     * Attaches a table that engines on other threads search at the same
+     * time. This engine then never ages it; the caller calls
+     * {@link TranspositionTable#newSearch()} once per batch of searches.
+     */
+    void shareTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        this.tableAgedByCaller = true;
+    }
+
+    /** True if the attached table keeps its entries across restarts. */
+    public boolean hasPersistentTable() {
+        return table != null && table.isPersistent();
+    }
+
+    /** Empties the attached table, if any, so the next search starts cold. */
+    public void clearTranspositionTable() {
+        if (table != null) {
+            table.clear();
+        }
+    }
+
+    /**
+     * Bounds every following search by nodes visited and wall-clock time;
+     * 0 leaves that budget unlimited. Like {@link #stop()}, running out
+     * returns the last fully completed iteration. A node budget alone makes
+     * the result independent of machine speed and load.
+     */
+    public void setLimits(long maxNodes, long maxMillis) {
+        if (maxNodes < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+        nodeLimit = maxNodes == 0 ? Long.MAX_VALUE : maxNodes;
+        timeLimitMillis = maxMillis;
+    }
+
+    /**
+     * Asks a running search to stop. It returns the last fully completed
+     * iteration. May be called from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /** Clears a stop() so the engine can be reused with {@link #searchUnlessStopped} or {@link #scoreWithin}. */
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    public Result search(long own, long opp, int maxDepth) {
+        stopRequested = false;
+        return searchUnlessStopped(own, opp, maxDepth);
+    }
+
+    /**
+     * As {@link #search}, but a stop() that arrived before this call still
+     * stops it. A caller that starts the search on another thread clears
+     * the flag with {@link #clearStop()} first, so a stop sent right after
+     * can never be lost.
+     */
+    Result searchUnlessStopped(long own, long opp, int maxDepth) {
+        startSearch();
+        previousPvLength = 0;
+        followPv = false;
+        long moves = Bitboard.moves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.moves(opp, own) == 0) {
+                return new Result(-1, finalScore(own, opp), maxDepth, nodes, new int[0]);
+            }
+            int score = passScore(own, opp, maxDepth);
+            int[] pv = new int[pvLength[1]];
+            pv[0] = PASS;
+            System.arraycopy(pvTable[1], 1, pv, 1, pv.length - 1);
+            return new Result(-1, score, maxDepth, nodes, pv);
+        }
+
+        int bestSquare = Long.numberOfTrailingZeros(moves);
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                int delta = ASPIRATION_WINDOW;
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (principalVariationSearch && depth > 1) {
+                    alpha = Math.max(-INFINITY, bestScore - delta);
+                    beta = Math.min(INFINITY, bestScore + delta);
+                }
+                int score;
+                // Widen the window on the failing side until the score falls inside it
+                while (true) {
+                    followPv = principalVariationSearch && previousPvLength > 0 && previousPv[0] == bestSquare;
+                    score = searchRoot(own, opp, moves, bestSquare, depth, alpha, beta);
+                    if (score <= alpha && alpha > -INFINITY) {
+                        delta *= 4;
+                        alpha = Math.max(-INFINITY, score - delta);
+                    } else if (score >= beta && beta < INFINITY) {
+                        bestSquare = rootBest;
+                        delta *= 4;
+                        beta = Math.min(INFINITY, score + delta);
+                    } else {
+                        break;
+                    }
+                }
+                bestSquare = rootBest;
+                bestScore = score;
+                completedDepth = depth;
+                previousPvLength = pvLength[0];
+                System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+                if (listener != null) {
+                    int[] pv = new int[previousPvLength];
+                    System.arraycopy(previousPv, 0, pv, 0, pv.length);
+                    listener.iterationCompleted(new Result(bestSquare, bestScore, depth, nodes, pv));
+                }
+            }
+        } catch (SearchAborted e) {
+            // Keep the last completed iteration
+        }
+        int[] pv = new int[previousPvLength];
+        System.arraycopy(previousPv, 0, pv, 0, pv.length);
+        return new Result(bestSquare, bestScore, completedDepth, nodes, pv);
+    }
+
+    /**
+     * One root iteration: first the given move, then the rest in square
+     * order. Leaves the best move in rootBest and the line in pvTable[0].
+     */
+    private int searchRoot(long own, long opp, long moves, int first, int depth, int alpha, int beta) {
+        pvLength[0] = 0;
+        int best = -INFINITY;
+        rootBest = first;
+        boolean searchedFirst = false;
+        long remaining = moves;
+        for (int sq = first; ; sq = Long.numberOfTrailingZeros(remaining)) {
+            remaining &= ~(1L << sq);
+            long flipped = Bitboard.flips(sq, own, opp);
+            int score = searchChild(opp & ~flipped, own | flipped | (1L << sq), depth - 1, alpha, beta, 1, searchedFirst);
+            searchedFirst = true;
+            followPv = false;
+            if (score > best) {
+                best = score;
+                rootBest = sq;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(0, sq);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores the best k root moves exactly in one iterative-deepening search.
+     * Each iteration searches every root move against the k-th best exact
+     * score so far, so moves outside the top k fail low cheaply and only get
+     * an upper bound. The previous iteration's ranking orders the next one.
+     * Pass k equal to the number of legal moves to score all of them.
+     * @return root moves of the last completed iteration, best first
+     */
+    public List<RootMove> searchMultiPv(long own, long opp, int maxDepth, int k, MultiPvListener listener) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        stopRequested = false;
+        startSearch();
+        followPv = false;
+        long moves = Bitboard.moves(own, opp);
+        int count = Long.bitCount(moves);
+        int[] order = new int[count];
+        int n = 0;
+        for (long m = moves; m != 0; m &= m - 1) {
+            order[n++] = Long.numberOfTrailingZeros(m);
+        }
+
+        List<RootMove> completed = new ArrayList<>();
+        int[] top = new int[k]; // best exact scores so far, descending
+        try {
+            for (int depth = 1; depth <= maxDepth && count > 0; depth++) {
+                List<RootMove> iteration = new ArrayList<>(count);
+                int found = 0;
+                for (int sq : order) {
+                    int alpha = found >= k ? top[k - 1] : -INFINITY;
+                    long flipped = Bitboard.flips(sq, own, opp);
+                    int score = -negamax(opp & ~flipped, own | flipped | (1L << sq), depth - 1, -INFINITY, -alpha, 1);
+                    boolean exact = score > alpha;
+                    if (exact) {
+                        // Insert into the top-k list
+                        int i = Math.min(found, k - 1);
+                        while (i > 0 && top[i - 1] < score) {
+                            top[i] = top[i - 1];
+                            i--;
+                        }
+                        top[i] = score;
+                        found = Math.min(found + 1, k);
+                    }
+                    iteration.add(new RootMove(sq, score, exact));
+                }
+                iteration.sort((a, b) -> a.exact != b.exact ? (a.exact ? -1 : 1) : Integer.compare(b.score, a.score));
+                for (int i = 0; i < count; i++) {
+                    order[i] = iteration.get(i).square;
+                }
+                completed = Collections.unmodifiableList(iteration);
+                if (listener != null) {
+                    listener.depthCompleted(depth, completed);
+                }
+            }
+        } catch (SearchAborted e) {
+            // Keep the last completed iteration
+        }
+        return completed;
+    }
+
+    private void startSearch() {
+        if (table != null && !tableAgedByCaller) {
+            table.newSearch();
+        }
+        nodes = 0;
+        timed = timeLimitMillis > 0;
+        deadline = System.nanoTime() + timeLimitMillis * 1_000_000;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** Full-window score of a position at a fixed depth, without iterative deepening. */
+    int score(long own, long opp, int depth) {
+        stopRequested = false;
+        timed = false;
+        followPv = false;
+        return negamax(own, opp, depth, -INFINITY, INFINITY, 0);
+    }
+
+    /** Returned by {@link #scoreWithin} when the search was stopped before it finished. */
+    static final int ABORTED = Integer.MIN_VALUE;
+
+    /**
+     * Windowed score of a child of the root at a fixed depth, for callers
+     * that split the root move loop themselves. Stops at the deadline
+     * (System.nanoTime()) or on {@link #stop()}; like
+     * {@link #searchUnlessStopped} it does not clear a stop() that arrived
+     * before it started, so a caller can cancel it race-free. Nodes count
+     * from zero.
+     * @return the score, or {@link #ABORTED}
+     */
+    int scoreWithin(long own, long opp, int depth, int alpha, int beta, long deadlineNanos) {
+        nodes = 0;
+        timed = true;
+        deadline = deadlineNanos;
+        followPv = false;
+        try {
+            return negamax(own, opp, depth, alpha, beta, 1);
+        } catch (SearchAborted e) {
+            return ABORTED;
+        }
+    }
+
+    private int passScore(long own, long opp, int depth) {
+        try {
+            return -negamax(opp, own, depth, -INFINITY, INFINITY, 1);
+        } catch (SearchAborted e) {
+            return 0;
+        }
+    }
+
+    private int negamax(long own, long opp, int depth, int alpha, int beta, int ply) {
+        if (++nodes >= nodeLimit
+                || ((nodes & STOP_CHECK_MASK) == 0 && (stopRequested || timed && System.nanoTime() - deadline >= 0))) {
+            throw SearchAborted.INSTANCE;
+        }
+        pvLength[ply] = ply;
+        if (nnue != null) {
+            nnue.enter(ply, own, opp);
+        }
+        // In a subtree searched to the end, opponent stable discs cap our final score
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        if (depth >= empties && empties <= STABILITY_CUTOFF_EMPTIES
+                && alpha >= (Bitboard.SQUARES - 2 * Long.bitCount(opp)) * FINAL_DISC_WEIGHT) {
+            int upper = (Bitboard.SQUARES - 2 * Long.bitCount(BoardFeatures.stableDiscs(opp, own))) * FINAL_DISC_WEIGHT;
+            if (upper <= alpha) {
+                return upper;
+            }
+        }
+        if (depth == 0) {
+            // A full board is a finished game, not something to guess at
+            if (empties == 0) {
+                return finalScore(own, opp);
+            }
+            return nnue != null ? nnue.evaluate(ply) : evaluator.evaluate(own, opp);
+        }
+        int tableMove = TranspositionTable.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(own, opp);
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int stored = TranspositionTable.score(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.LOWER ? stored >= beta
+                            : bound == TranspositionTable.UPPER ? stored <= alpha
+                            : beta - alpha == 1) {
+                        return stored;
+                    }
+                }
+            }
+        }
+        if (probCut != null && !inProbCut && depth >= ProbCut.MIN_DEPTH && depth < empties) {
+            int cut = probCut(own, opp, depth, alpha, beta, ply);
+            if (cut != NO_CUT) {
+                return cut;
+            }
+            pvLength[ply] = ply; // the checks used this ply's row
+        }
+        long moves = Bitboard.moves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.moves(opp, own) == 0) {
+                return finalScore(own, opp);
+            }
+            // Pass: the opponent moves from the same position
+            if (followPv && (ply >= previousPvLength || previousPv[ply] != PASS)) {
+                followPv = false;
+            }
+            int score = -negamax(opp, own, depth, -beta, -alpha, ply + 1);
+            updatePv(ply, PASS);
+            return score;
+        }
+
+        // The previous iteration's move first while still on its line, else the table's
+        long first = 0L;
+        if (followPv) {
+            int pvSquare = ply < previousPvLength ? previousPv[ply] : PASS;
+            if (pvSquare != PASS && (moves & (1L << pvSquare)) != 0) {
+                first = 1L << pvSquare;
+            } else {
+                followPv = false;
+            }
+        }
+        if (first == 0 && tableMove != TranspositionTable.NO_MOVE) {
+            first = moves & (1L << tableMove);
+        }
+        int originalAlpha = alpha;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int best = -INFINITY;
+        boolean searchedFirst = false;
+        // Then corners: cheap ordering that produces most early cut-offs
+        for (int pass = 0; pass < 3; pass++) {
+            long m = pass == 0 ? first : (pass == 1 ? moves & Bitboard.CORNERS : moves & ~Bitboard.CORNERS) & ~first;
+            for (; m != 0; m &= m - 1) {
+                int sq = Long.numberOfTrailingZeros(m);
+                long flipped = Bitboard.flips(sq, own, opp);
+                int score = searchChild(opp & ~flipped, own | flipped | (1L << sq), depth - 1, alpha, beta,
+                        ply + 1, searchedFirst);
+                searchedFirst = true;
+                followPv = false;
+                if (score > best) {
+                    best = score;
+                    bestMove = sq;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePv(ply, sq);
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        if (table != null) {
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(own, opp, depth, best, bound, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Scores a child from the parent's point of view. With PVS, moves after
+     * the first are searched with a null window and only re-searched with
+     * the full window when they beat alpha without failing high.
+     */
+    private int searchChild(long own, long opp, int depth, int alpha, int beta, int ply, boolean nullWindow) {
+        if (!nullWindow || !principalVariationSearch || beta - alpha <= 1) {
+            return -negamax(own, opp, depth, -beta, -alpha, ply);
+        }
+        int score = -negamax(own, opp, depth, -alpha - 1, -alpha, ply);
+        if (score > alpha && score < beta) {
+            score = -negamax(own, opp, depth, -beta, -alpha, ply);
+        }
+        return score;
+    }
+
+    /** Makes the line at ply the given move followed by the child's line. */
+    private void updatePv(int ply, int square) {
+        int[] row = pvTable[ply];
+        row[ply] = square;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, row, ply + 1, length - (ply + 1));
+        pvLength[ply] = length;
+    }
+
+    /**
+     * Multi-ProbCut: null-window shallow searches that predict whether the
+     * deep search would fail high or low. Checks are not nested, so the
+     * shallow searches themselves are full width.
+     * @return beta or alpha when a check succeeds, else NO_CUT
+     */
+    private int probCut(long own, long opp, int depth, int alpha, int beta, int ply) {
+        int phase = Evaluator.phase(own | opp);
+        boolean following = followPv;
+        followPv = false;
+        inProbCut = true;
+        try {
+            for (int shallow : ProbCut.checkDepths(depth)) {
+                double[] p = probCut.parameters(phase, depth, shallow);
+                if (p == null) {
+                    continue;
+                }
+                int high = probCut.highBound(p, beta);
+                if (high < INFINITY && negamax(own, opp, shallow, high - 1, high, ply) >= high) {
+                    return beta;
+                }
+                int low = probCut.lowBound(p, alpha);
+                if (low > -INFINITY && negamax(own, opp, shallow, low, low + 1, ply) <= low) {
+                    return alpha;
+                }
+            }
+            return NO_CUT;
+        } finally {
+            inProbCut = false;
+            followPv = following;
+        }
+    }
+
+    static int finalScore(long own, long opp) {
+        return (Long.bitCount(own) - Long.bitCount(opp)) * FINAL_DISC_WEIGHT;
+    }
+}
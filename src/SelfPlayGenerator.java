@@ -0,0 +1,160 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates labelled training positions from parallel self-play.
+ *
+ * Each game opens with a few random moves for variety, then both sides play
+ * shallow {@link SearchEngine} moves. Every position after the random
+ * opening is written with the game's final result as an 18-byte record:
+ * black long, white long, side-to-move byte, final black-minus-white disc
+ * count byte (big-endian). {@link WeightTrainer} fits evaluation weights
+ * from these files.
+ */
+public class SelfPlayGenerator {
+    public static final int RECORD_BYTES = 18;
+    public static final int DEFAULT_DEPTH = 2;
+    public static final int DEFAULT_RANDOM_PLIES = 10;
+
+    private final int depth;
+    private final int randomPlies;
+    private final int threads;
+
+    public SelfPlayGenerator(int depth, int randomPlies, int threads) {
+        if (depth < 1 || randomPlies < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid self-play settings");
+        }
+        this.depth = depth;
+        this.randomPlies = randomPlies;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long games = 1000;
+        int depth = DEFAULT_DEPTH;
+        int randomPlies = DEFAULT_RANDOM_PLIES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        String file = "selfplay.bin";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Long.parseLong(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--random-plies": randomPlies = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: file = args[i];
+            }
+        }
+
+        long start = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(Paths.get(file))) {
+            long positions = new SelfPlayGenerator(depth, randomPlies, threads).generate(games, seed, out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("Wrote %d positions from %d games to %s in %.1fs%n", positions, games, file, seconds);
+        }
+    }
+
+    /** Plays the given number of games and writes their positions; returns the number of records. */
+    public long generate(long games, long seed, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "self-play");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicLong nextGame = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                SplittableRandom random = seeds.split();
+                workers.add(pool.submit(() -> {
+                    playGames(games, nextGame, random, data, written);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during self-play", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Self-play failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        data.flush();
+        return written.get();
+    }
+
+    private void playGames(long games, AtomicLong nextGame, SplittableRandom random,
+                           DataOutputStream out, AtomicLong written) throws IOException {
+        SearchEngine engine = new SearchEngine();
+        // Room for every ply of one game: black, white, side
+        long[] plies = new long[3 * 2 * Bitboard.SQUARES];
+        while (nextGame.getAndIncrement() < games) {
+            int count = 0;
+            long black = Bitboard.START_BLACK;
+            long white = Bitboard.START_WHITE;
+            boolean blackToMove = true;
+            for (int ply = 0; ; ply++) {
+                long own = blackToMove ? black : white;
+                long opp = blackToMove ? white : black;
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    if (Bitboard.moves(opp, own) == 0) {
+                        break;
+                    }
+                    blackToMove = !blackToMove;
+                    continue;
+                }
+
+                int sq;
+                if (ply < randomPlies) {
+                    for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                        moves &= moves - 1;
+                    }
+                    sq = Long.numberOfTrailingZeros(moves);
+                } else {
+                    plies[count++] = black;
+                    plies[count++] = white;
+                    plies[count++] = blackToMove ? OthelloModel.BLACK : OthelloModel.WHITE;
+                    sq = engine.search(own, opp, depth).square;
+                }
+
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+                black = blackToMove ? own : opp;
+                white = blackToMove ? opp : own;
+                blackToMove = !blackToMove;
+            }
+
+            int result = Long.bitCount(black) - Long.bitCount(white);
+            synchronized (out) {
+                for (int i = 0; i < count; i += 3) {
+                    out.writeLong(plies[i]);
+                    out.writeLong(plies[i + 1]);
+                    out.writeByte((int) plies[i + 2]);
+                    out.writeByte(result);
+                }
+            }
+            written.addAndGet(count / 3);
+        }
+    }
+}
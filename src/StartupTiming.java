@@ -0,0 +1,42 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reports how long after the JVM started each startup milestone was
+ * reached, such as the first frame painted or the first engine move.
+ * Off unless {@code Main --timing} (or {@code -Dothello.timing=true}) turns
+ * it on; each milestone is printed to stderr once.
+ */
+final class StartupTiming {
+    private static volatile boolean enabled = Boolean.getBoolean("othello.timing");
+    private static Instant start;
+    private static final Set<String> reached = new HashSet<>();
+
+    private StartupTiming() {
+    }
+
+    /** Turns reporting on, timing from the JVM's start (or from now if that is unknown). */
+    static synchronized void enable() {
+        enabled = true;
+        if (start == null) {
+            start = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+        }
+    }
+
+    /** Records a milestone; only its first occurrence is reported. */
+    static void mark(String milestone) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (StartupTiming.class) {
+            if (start == null) {
+                enable();
+            }
+            if (reached.add(milestone)) {
+                System.err.println(milestone + " after " + Duration.between(start, Instant.now()).toMillis() + " ms");
+            }
+        }
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared transposition table for {@link SearchEngine}, stored outside the
+ * Java heap in direct byte buffers so that its size adds nothing to GC
+ * work: a multi-gigabyte table is invisible to the collector.
+ *
+ * Each entry is 16 bytes: the position hash XOR the data word, then the
+ * data word. Writers store both words without locking; a reader accepts an
+ * entry only if the two words XOR back to its hash, so an entry torn by a
+ * concurrent write just reads as a miss (Hyatt's lockless hashing). One
+ * table can therefore be shared by any number of searching threads.
+ *
+ * Buffers are allocated in chunks of at most 1 GB, so tables of tens of
+ * gigabytes work; direct memory is capped by {@code -XX:MaxDirectMemorySize}
+ * (by default the maximum heap size), which must be raised to match.
+ *
+ * A table can also be mapped from a file ({@link #map}), which keeps its
+ * entries across restarts and shares them with every process mapping the
+ * same file; the lockless scheme works the same between processes. The
+ * file header records a version (typically the evaluator's fingerprint),
+ * and a file written under another version is emptied on opening, unless
+ * some table still has it mapped. A mapped table keeps its deepest
+ * results: an entry is only replaced by a search at least as deep,
+ * whatever search wrote it and whichever position it was for, so shallow
+ * entries are evicted first and the file never grows past its fixed size.
+ */
+final class TranspositionTable {
+    static final int ENTRY_BYTES = 16;
+    static final int NO_MOVE = 64;
+
+    static final int EXACT = 0;
+    static final int LOWER = 1; // score is a lower bound (the search failed high)
+    static final int UPPER = 2; // score is an upper bound (the search failed low)
+
+    private static final int CHUNK_ENTRIES_SHIFT = 26; // 64M entries, 1 GB per buffer
+    private static final int CHUNK_ENTRIES_MASK = (1 << CHUNK_ENTRIES_SHIFT) - 1;
+
+    // Data word layout: score 32 bits | depth 8 | bound 2 | move 7 | age 8 | ... | valid bit 63
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int AGE_SHIFT = 49;
+    private static final long VALID = 1L << 63;
+
+    // Mapped file header: magic, layout version, caller's version, entry count
+    private static final long MAGIC = 0x4F54485454424C31L; // "OTHTTBL1"
+    private static final int HEADER_BYTES = 64;
+    private static final long LAYOUT_VERSION = 1;
+
+    private final ByteBuffer[] chunks;
+    private final long mask; // entries - 1
+    private final boolean offHeap;
+    private final boolean persistent; // keep the deepest entries across searches
+    private final MappedFile file; // null unless mapped
+    private boolean closed;
+    private final AtomicInteger age = new AtomicInteger();
+
+    /**
+     * Allocates a table of the largest power-of-two entry count that fits
+     * in the given number of bytes.
+     * @param offHeap true for direct buffers; false keeps the table on the
+     *                heap, which exists only to compare GC behaviour
+     */
+    TranspositionTable(long bytes, boolean offHeap) {
+        long entries = entries(bytes);
+        this.mask = entries - 1;
+        this.offHeap = offHeap;
+        this.persistent = false;
+        this.file = null;
+        chunks = new ByteBuffer[chunkCount(entries)];
+        for (int i = 0; i < chunks.length; i++) {
+            int size = chunkEntries(entries) * ENTRY_BYTES;
+            ByteBuffer chunk = offHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+            chunks[i] = chunk.order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private TranspositionTable(ByteBuffer[] chunks, long entries, MappedFile file) {
+        this.chunks = chunks;
+        this.mask = entries - 1;
+        this.offHeap = true;
+        this.persistent = true;
+        this.file = file;
+    }
+
+    private static long entries(long bytes) {
+        if (bytes < ENTRY_BYTES) {
+            throw new IllegalArgumentException("Table must hold at least one entry: " + bytes + " bytes");
+        }
+        return Long.highestOneBit(bytes / ENTRY_BYTES);
+    }
+
+    private static int chunkEntries(long entries) {
+        return (int) Math.min(entries, 1L << CHUNK_ENTRIES_SHIFT);
+    }
+
+    private static int chunkCount(long entries) {
+        return (int) (entries / chunkEntries(entries));
+    }
+
+    /**
+     * Maps a persistent table of the given size from a file, creating it if
+     * needed. An existing file is reused only if it was written with the
+     * same version and size; otherwise it is emptied first, but only when
+     * no process has it mapped. Entries are stored in native byte order, so
+     * a file is only portable between machines of the same endianness.
+     *
+     * The table holds a shared lock on the file until {@link #close()} (or
+     * the process exits). Emptying needs the exclusive lock, so a file in
+     * use by another process or another table in this one is never
+     * truncated under its mapping; opening it with another size or version
+     * fails instead. Mappings of the same file in one process share one
+     * set of buffers.
+     * @throws IOException also when the file is in use with another size or version
+     */
+    static TranspositionTable map(Path file, long bytes, long version) throws IOException {
+        long entries = entries(bytes);
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (MAPPED) {
+            MappedFile mapped = MAPPED.get(key);
+            if (mapped == null) {
+                mapped = MappedFile.open(key, entries, version);
+                MAPPED.put(key, mapped);
+            } else if (mapped.entries != entries || mapped.version != version) {
+                throw inUse(file);
+            }
+            mapped.users++;
+            return new TranspositionTable(mapped.chunks, entries, mapped);
+        }
+    }
+
+    private static IOException inUse(Path file) {
+        return new IOException(file + " is in use with another table size or version");
+    }
+
+    /** Files mapped by this process, so they are locked and mapped once however many tables use them. */
+    private static final Map<Path, MappedFile> MAPPED = new HashMap<>();
+
+    /** An open table file: its channel, the shared lock held while it is mapped, and the mapping. */
+    private static final class MappedFile {
+        private static final int OPEN_ATTEMPTS = 3;
+
+        final Path path;
+        final FileChannel channel;
+        final FileLock lock;
+        final long entries;
+        final long version;
+        final ByteBuffer[] chunks;
+        int users;
+
+        private MappedFile(Path path, FileChannel channel, FileLock lock, long entries, long version) throws IOException {
+            this.path = path;
+            this.channel = channel;
+            this.lock = lock;
+            this.entries = entries;
+            this.version = version;
+            int chunkEntries = chunkEntries(entries);
+            long chunkBytes = (long) chunkEntries * ENTRY_BYTES;
+            chunks = new ByteBuffer[chunkCount(entries)];
+            for (int i = 0; i < chunks.length; i++) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_BYTES + i * chunkBytes, chunkBytes);
+                chunks[i] = chunk.order(ByteOrder.nativeOrder());
+            }
+        }
+
+        static MappedFile open(Path path, long entries, long version) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                for (int attempt = 0; attempt < OPEN_ATTEMPTS; attempt++) {
+                    // Waits while another process is initialising the file
+                    FileLock shared = channel.lock(0, Long.MAX_VALUE, true);
+                    if (matches(channel, entries, version)) {
+                        return new MappedFile(path, channel, shared, entries, version);
+                    }
+                    shared.release();
+                    // Only empty the file when no other process holds a lock, i.e. has it mapped
+                    FileLock exclusive = channel.tryLock();
+                    if (exclusive != null) {
+                        try {
+                            if (!matches(channel, entries, version)) {
+                                initialise(channel, entries, version);
+                            }
+                        } finally {
+                            exclusive.release();
+                        }
+                    } else if (attempt + 1 < OPEN_ATTEMPTS) {
+                        Thread.sleep(10); // maybe another process was only checking the header
+                    }
+                    // Check again under the shared lock: another process may have got in between
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                channel.close();
+                throw new IOException("Interrupted while opening " + path, e);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+            throw inUse(path);
+        }
+
+        private static boolean matches(FileChannel channel, long entries, long version) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            return channel.size() == HEADER_BYTES + entries * ENTRY_BYTES
+                    && channel.read(header, 0) == HEADER_BYTES
+                    && header.getLong(0) == MAGIC
+                    && header.getLong(8) == LAYOUT_VERSION
+                    && header.getLong(16) == version
+                    && header.getLong(24) == entries;
+        }
+
+        private static void initialise(FileChannel channel, long entries, long version) throws IOException {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(0, MAGIC).putLong(8, LAYOUT_VERSION).putLong(16, version).putLong(24, entries);
+            channel.write(header, 0);
+            // Extending the file leaves the entries zero, i.e. empty
+            channel.write(ByteBuffer.allocate(1), HEADER_BYTES + entries * ENTRY_BYTES - 1);
+        }
+    }
+
+    /**
+     * Releases a mapped table's hold on its file once no other table in
+     * this process uses it, so the file can be emptied for another size or
+     * version. The table must not be used afterwards: its buffers stay
+     * mapped until collected, and touching them after the file is emptied
+     * crashes the JVM. Does nothing for other tables.
+     */
+    void close() throws IOException {
+        if (file == null) {
+            return;
+        }
+        synchronized (MAPPED) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--file.users == 0) {
+                MAPPED.remove(file.path);
+                try {
+                    file.lock.release();
+                } finally {
+                    file.channel.close();
+                }
+            }
+        }
+    }
+
+    /** An off-heap table of the given size in megabytes. */
+    static TranspositionTable ofMegabytes(long megabytes) {
+        return new TranspositionTable(megabytes << 20, true);
+    }
+
+    /** A persistent table of the given size in megabytes, versioned by the default evaluator's weights. */
+    static TranspositionTable mapCache(Path file, long megabytes) throws IOException {
+        return mapCache(file, megabytes, null);
+    }
+
+    /**
+     * As {@link #mapCache(Path, long)} for searches pruned with the given
+     * ProbCut settings, or full-width ones with null. Pruned scores are
+     * versioned apart, so a full-width search never trusts them.
+     */
+    static TranspositionTable mapCache(Path file, long megabytes, ProbCut probCut) throws IOException {
+        long version = Evaluator.defaultEvaluator().fingerprint();
+        if (probCut != null) {
+            version = (version ^ probCut.fingerprint()) * 0x100000001B3L;
+        }
+        return map(file, megabytes << 20, version);
+    }
+
+    long capacity() {
+        return mask + 1;
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    boolean isPersistent() {
+        return persistent;
+    }
+
+    /** Writes a mapped table's entries out to its file; the OS does this on its own eventually. */
+    void flush() {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    /**
+     * Starts a new search: entries from earlier searches become the first
+     * to be replaced. Engines sharing a table must not each call this per
+     * search, or they age out each other's entries as they are written;
+     * whoever shares it calls it once per batch instead (see
+     * {@link SearchEngine#shareTranspositionTable}).
+     */
+    void newSearch() {
+        age.updateAndGet(a -> (a + 1) & 0xFF);
+    }
+
+    /** Empties the table, e.g. so a node-budget search is reproducible. */
+    void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                chunk.putLong(offset, 0L);
+            }
+        }
+    }
+
+    static long hash(long own, long opp) {
+        long h = own * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opp * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 32);
+    }
+
+    /** The data word stored for the position, or 0 if there is none. */
+    long probe(long own, long opp) {
+        long key = hash(own, opp);
+        long index = key & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_ENTRIES_SHIFT)];
+        int offset = ((int) index & CHUNK_ENTRIES_MASK) * ENTRY_BYTES;
+        long check = chunk.getLong(offset);
+        long data = chunk.getLong(offset + Long.BYTES);
+        return (check ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a search result. An entry for another position is only
+     * replaced if it was not searched deeper or, in a table that is not
+     * persistent, is from an earlier search. A persistent table also keeps
+     * a deeper entry for the same position, so the shallow iterations of a
+     * restarted search do not overwrite what earlier runs proved.
+     */
+    void store(long own, long opp, int depth, int score, int bound, int move) {
+        long key = hash(own, opp);
+        long index = key & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_ENTRIES_SHIFT)];
+        int offset = ((int) index & CHUNK_ENTRIES_MASK) * ENTRY_BYTES;
+        long old = chunk.getLong(offset + Long.BYTES);
+        int current = age.get();
+        if ((old & VALID) != 0 && depth(old) > depth
+                && (persistent || age(old) == current && (chunk.getLong(offset) ^ old) != key)) {
+            return;
+        }
+        long data = VALID
+                | (score & 0xFFFFFFFFL)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) move << MOVE_SHIFT)
+                | ((long) current << AGE_SHIFT);
+        chunk.putLong(offset, key ^ data);
+        chunk.putLong(offset + Long.BYTES, data);
+    }
+
+    static int score(long data) {
+        return (int) data;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /** Best move square, or NO_MOVE. */
+    static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & 0x7F;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+}
@@ -0,0 +1,385 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weak solver for Othello on square boards of up to 8x8: proves whether
+ * the side to move wins, draws or loses with perfect play, without
+ * finding the exact margin.
+ *
+ * A board of size n sits in the top-left n x n corner of the 8x8
+ * bitboards. Moves are masked to that corner, and flips never cross its
+ * edge because the squares beyond it are always empty. The start
+ * position matches {@link OthelloModel}'s for the same size.
+ *
+ * Each position is proved with two null-window searches on the final
+ * disc difference: one asks whether the side to move wins, and if not,
+ * a second asks whether it at least draws. Every search that returns
+ * has proved a bound on its node; progress is reported as these proven
+ * nodes per second.
+ *
+ * The transposition table can be mapped from a file ({@code --table}).
+ * It then spills to disk through the page cache and heap use stays flat
+ * whatever its size. Root moves are proved one at a time, skipping any
+ * that mirror a move already proved. Each result is appended to the
+ * checkpoint as soon as it is known, and the table is flushed every
+ * {@code --flush} seconds. A rerun with the same files skips the
+ * finished root moves. It also finds the partial proofs of the
+ * interrupted move in the table.
+ *
+ * Usage: {@code WeakSolver [--size N] [--table FILE] [--table-size MB]
+ * [--checkpoint FILE] [--flush SECONDS]}
+ */
+public class WeakSolver {
+    public static final int DEFAULT_SIZE = 6;
+    public static final int DEFAULT_TABLE_MEGABYTES = 1024;
+    public static final int DEFAULT_FLUSH_SECONDS = 60;
+
+    static final int LOSS = -1;
+    static final int DRAW = 0;
+    static final int WIN = 1;
+
+    private static final int TABLE_MIN_EMPTIES = 5;    // shallower nodes are cheaper to search than to look up
+    private static final int ORDER_MIN_EMPTIES = 5;    // below this, ordering costs more than it saves
+    private static final long TABLE_VERSION = 0x5745414B00000000L; // "WEAK", plus the board size
+    private static final int MAX_PLY = 2 * Bitboard.SQUARES;
+    private static final int REPORT_MASK = (1 << 16) - 1;
+
+    private final int size;
+    private final long mask;
+    private final long corners;
+    private final TranspositionTable table;
+    private final int[][] moveLists = new int[MAX_PLY][Bitboard.SQUARES];
+    private final int[][] moveKeys = new int[MAX_PLY][Bitboard.SQUARES];
+    private long proven;
+    private long startNanos;
+    private long lastReport;
+    private long lastFlush;
+    private long flushNanos = DEFAULT_FLUSH_SECONDS * 1_000_000_000L;
+    private PrintStream progress; // null: quiet
+
+    WeakSolver(int size, TranspositionTable table) {
+        if (size < OthelloModel.MIN_BOARD_SIZE || size > Bitboard.SIZE || size % 2 != 0) {
+            throw new IllegalArgumentException("Board size must be even, between "
+                    + OthelloModel.MIN_BOARD_SIZE + " and " + Bitboard.SIZE + ": " + size);
+        }
+        this.size = size;
+        this.mask = mask(size);
+        int last = size - 1;
+        this.corners = 1L | 1L << last | 1L << Bitboard.square(last, 0) | 1L << Bitboard.square(last, last);
+        this.table = table;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = DEFAULT_SIZE;
+        Path tableFile = null;
+        long megabytes = DEFAULT_TABLE_MEGABYTES;
+        Path checkpoint = null;
+        int flushSeconds = DEFAULT_FLUSH_SECONDS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--table": tableFile = Paths.get(args[++i]); break;
+                case "--table-size": megabytes = Long.parseLong(args[++i]); break;
+                case "--checkpoint": checkpoint = Paths.get(args[++i]); break;
+                case "--flush": flushSeconds = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        TranspositionTable table = tableFile != null
+                ? TranspositionTable.map(tableFile, megabytes << 20, TABLE_VERSION | size)
+                : TranspositionTable.ofMegabytes(megabytes);
+        WeakSolver solver = new WeakSolver(size, table);
+        solver.progress = System.err;
+        solver.flushNanos = flushSeconds * 1_000_000_000L;
+        long[] start = start(size);
+        int result = solver.solveRoot(start[0], start[1], checkpoint);
+        System.out.printf("%dx%d: %s for Black, %,d proven nodes in %.1fs%n", size, size, name(result),
+                solver.proven, (System.nanoTime() - solver.startNanos) / 1e9);
+    }
+
+    static long mask(int size) {
+        long row = (1L << size) - 1;
+        long mask = 0L;
+        for (int r = 0; r < size; r++) {
+            mask |= row << (r * Bitboard.SIZE);
+        }
+        return mask;
+    }
+
+    /** {black, white} at the start of a game on a board of the given size. */
+    static long[] start(int size) {
+        int c = size / 2;
+        long black = (1L << Bitboard.square(c - 1, c)) | (1L << Bitboard.square(c, c - 1));
+        long white = (1L << Bitboard.square(c - 1, c - 1)) | (1L << Bitboard.square(c, c));
+        return new long[]{black, white};
+    }
+
+    /** {black, white} of a model's board, which must be no larger than 8x8. */
+    static long[] fromModel(OthelloModel model) {
+        int[][] board = model.getBoard();
+        if (board.length > Bitboard.SIZE) {
+            throw new IllegalArgumentException("Boards larger than 8x8 do not fit in a bitboard");
+        }
+        long black = 0L;
+        long white = 0L;
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < board.length; c++) {
+                if (board[r][c] == OthelloModel.BLACK) {
+                    black |= 1L << Bitboard.square(r, c);
+                } else if (board[r][c] == OthelloModel.WHITE) {
+                    white |= 1L << Bitboard.square(r, c);
+                }
+            }
+        }
+        return new long[]{black, white};
+    }
+
+    static String name(int result) {
+        return result == WIN ? "win" : result == DRAW ? "draw" : "loss";
+    }
+
+    long getProvenNodes() {
+        return proven;
+    }
+
+    /** Win, draw or loss for the side owning own, to move. */
+    int solve(long own, long opp) {
+        begin();
+        if (search(own, opp, 0, 1, 0) >= 1) {
+            return WIN;
+        }
+        return search(own, opp, -1, 0, 0) >= 0 ? DRAW : LOSS;
+    }
+
+    /**
+     * Solves the position Black to move, one root move at a time, recording
+     * each move's result in the checkpoint (if any) and reusing those it
+     * already holds. Stops at the first winning move.
+     */
+    int solveRoot(long black, long white, Path checkpoint) throws IOException {
+        begin();
+        String header = "weak " + size + " " + Long.toHexString(black) + " " + Long.toHexString(white);
+        List<String> done = new ArrayList<>();
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            done = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+            if (!done.isEmpty() && !done.get(0).equals(header)) {
+                throw new IOException("Checkpoint " + checkpoint + " is for another problem: " + done.get(0));
+            }
+        }
+        long moves = Bitboard.moves(black, white) & mask;
+        if (moves == 0) {
+            return Bitboard.moves(white, black) == 0 ? outcome(black, white) : -solve(white, black);
+        }
+        Writer out = null;
+        if (checkpoint != null) {
+            out = new BufferedWriter(Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            if (done.isEmpty()) {
+                out.write(header + "\n");
+                out.flush();
+            }
+        }
+        try {
+            int best = LOSS;
+            List<long[]> children = new ArrayList<>();
+            for (; moves != 0; moves &= moves - 1) {
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, black, white);
+                long own = white & ~flipped;
+                long opp = black | flipped | (1L << sq);
+                if (mirrorsAny(own, opp, children)) {
+                    continue;
+                }
+                children.add(new long[]{own, opp});
+                String name = Bitboard.squareName(sq);
+                int result = recorded(done, name);
+                if (result == Integer.MIN_VALUE) {
+                    result = -solve(own, opp);
+                    if (out != null) {
+                        out.write(name + " " + name(result) + "\n");
+                        out.flush();
+                    }
+                }
+                if (progress != null) {
+                    progress.printf("%s: %s%n", name, name(result));
+                }
+                best = Math.max(best, result);
+                if (best == WIN) {
+                    break;
+                }
+            }
+            table.flush();
+            return best;
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private void begin() {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+            lastReport = lastFlush = startNanos;
+        }
+    }
+
+    private static int recorded(List<String> lines, String move) {
+        for (int i = 1; i < lines.size(); i++) {
+            String[] parts = lines.get(i).split(" ");
+            if (parts.length == 2 && parts[0].equals(move)) {
+                switch (parts[1]) {
+                    case "win": return WIN;
+                    case "draw": return DRAW;
+                    case "loss": return LOSS;
+                    default: break;
+                }
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private int outcome(long own, long opp) {
+        return Integer.signum(Long.bitCount(own) - Long.bitCount(opp));
+    }
+
+    /** Fail-soft alpha-beta on the final disc difference, used here with null windows. */
+    private int search(long own, long opp, int alpha, int beta, int ply) {
+        long moves = Bitboard.moves(own, opp) & mask;
+        if (moves == 0) {
+            if ((Bitboard.moves(opp, own) & mask) == 0) {
+                return proved(Long.bitCount(own) - Long.bitCount(opp));
+            }
+            return proved(-search(opp, own, -beta, -alpha, ply + 1));
+        }
+        int empties = Long.bitCount(mask & ~(own | opp));
+        int tableMove = TranspositionTable.NO_MOVE;
+        if (empties >= TABLE_MIN_EMPTIES) {
+            long data = table.probe(own, opp);
+            if (data != 0 && TranspositionTable.depth(data) == empties) {
+                int score = TranspositionTable.score(data);
+                int bound = TranspositionTable.bound(data);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return proved(score);
+                }
+                tableMove = TranspositionTable.move(data);
+            }
+        }
+        int count = order(own, opp, moves, empties, tableMove, ply);
+        int[] list = moveLists[ply];
+        int originalAlpha = alpha;
+        int best = -Bitboard.SQUARES - 1;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int sq = list[i];
+            long flipped = Bitboard.flips(sq, own, opp);
+            int score = -search(opp & ~flipped, own | flipped | (1L << sq), -beta, -alpha, ply + 1);
+            if (score > best) {
+                best = score;
+                bestMove = sq;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (empties >= TABLE_MIN_EMPTIES) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(own, opp, empties, best, bound, bestMove);
+        }
+        return proved(best);
+    }
+
+    /** Fills the ply's move list: the table move first, then fastest-first with corners favoured. */
+    private int order(long own, long opp, long moves, int empties, int tableMove, int ply) {
+        int[] list = moveLists[ply];
+        int[] keys = moveKeys[ply];
+        int count = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            int key = 0;
+            if (sq == tableMove) {
+                key = Integer.MIN_VALUE;
+            } else if (empties >= ORDER_MIN_EMPTIES) {
+                long flipped = Bitboard.flips(sq, own, opp);
+                long after = own | flipped | (1L << sq);
+                key = 4 * Long.bitCount(Bitboard.moves(opp & ~flipped, after) & mask)
+                        - ((corners >>> sq & 1) != 0 ? 8 : 0);
+            }
+            // Insertion sort: lists are short
+            int i = count++;
+            for (; i > 0 && keys[i - 1] > key; i--) {
+                list[i] = list[i - 1];
+                keys[i] = keys[i - 1];
+            }
+            list[i] = sq;
+            keys[i] = key;
+        }
+        return count;
+    }
+
+    private int proved(int score) {
+        if ((++proven & REPORT_MASK) == 0) {
+            long now = System.nanoTime();
+            if (progress != null && now - lastReport >= 10_000_000_000L) {
+                double seconds = (now - startNanos) / 1e9;
+                progress.printf("%,d proven nodes, %,.0f/s%n", proven, proven / seconds);
+                lastReport = now;
+            }
+            if (now - lastFlush >= flushNanos) {
+                table.flush();
+                lastFlush = now;
+            }
+        }
+        return score;
+    }
+
+    /** True if the position is a rotation or reflection of one in the list. */
+    private boolean mirrorsAny(long own, long opp, List<long[]> positions) {
+        for (long[] position : positions) {
+            for (int symmetry = 1; symmetry < 8; symmetry++) {
+                if (transform(position[0], symmetry) == own && transform(position[1], symmetry) == opp) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** One of the eight symmetries of the n x n board: bit 0 mirrors columns, 1 mirrors rows, 2 transposes. */
+    long transform(long discs, int symmetry) {
+        long result = 0L;
+        for (long m = discs; m != 0; m &= m - 1) {
+            int sq = Long.numberOfTrailingZeros(m);
+            int row = sq / Bitboard.SIZE;
+            int col = sq % Bitboard.SIZE;
+            if ((symmetry & 1) != 0) {
+                col = size - 1 - col;
+            }
+            if ((symmetry & 2) != 0) {
+                row = size - 1 - row;
+            }
+            if ((symmetry & 4) != 0) {
+                int swap = row;
+                row = col;
+                col = swap;
+            }
+            result |= 1L << Bitboard.square(row, col);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,236 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits {@link Evaluator} weights per game phase from {@link SelfPlayGenerator}
+ * records by linear least squares against the final disc difference.
+ *
+ * The evaluator has only a handful of features, so the fit solves the
+ * (ridge-regularised) normal equations exactly instead of iterating a
+ * gradient. The expensive part, accumulating X'X and X'y over millions of
+ * records, streams the file in chunks and runs across worker threads, so
+ * memory stays bounded by the number of chunks in flight.
+ */
+public class WeightTrainer {
+    /** Weights are fitted so the evaluation is this many points per predicted disc. */
+    public static final int TARGET_SCALE = 10;
+
+    private static final int CHUNK_RECORDS = 1 << 14;
+    private static final int CHUNKS_PER_THREAD = 2;
+    private static final double RIDGE = 1e-3;
+    // Phases with fewer samples than this keep their previous weights
+    private static final long MIN_SAMPLES_PER_FEATURE = 20;
+
+    private final int threads;
+
+    public WeightTrainer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String in = "selfplay.bin";
+        String out = Evaluator.DEFAULT_WEIGHTS_FILE;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default: in = args[i];
+            }
+        }
+
+        long start = System.nanoTime();
+        Fit fit;
+        try (InputStream input = Files.newInputStream(Paths.get(in))) {
+            fit = new WeightTrainer(threads).fit(input, new Evaluator());
+        }
+        fit.evaluator.save(Paths.get(out), "Fitted from " + fit.samples + " positions in " + in);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Fitted %d positions in %.1fs, rms error %.2f discs, wrote %s%n",
+                fit.samples, seconds, fit.rmsError / TARGET_SCALE, out);
+    }
+
+    /** Fitted evaluator plus fit statistics. */
+    public static final class Fit {
+        final Evaluator evaluator;
+        public final long samples;
+        /** Root-mean-square residual in evaluation points. */
+        public final double rmsError;
+
+        Fit(Evaluator evaluator, long samples, double rmsError) {
+            this.evaluator = evaluator;
+            this.samples = samples;
+            this.rmsError = rmsError;
+        }
+    }
+
+    /** Per-phase normal-equation sums. One per chunk, merged on the calling thread. */
+    private static final class Sums {
+        final double[][][] xtx = new double[Evaluator.PHASES][Evaluator.FEATURES][Evaluator.FEATURES];
+        final double[][] xty = new double[Evaluator.PHASES][Evaluator.FEATURES];
+        final double[] yty = new double[Evaluator.PHASES];
+        final long[] count = new long[Evaluator.PHASES];
+
+        void add(Sums other) {
+            for (int p = 0; p < Evaluator.PHASES; p++) {
+                for (int i = 0; i < Evaluator.FEATURES; i++) {
+                    for (int j = 0; j < Evaluator.FEATURES; j++) {
+                        xtx[p][i][j] += other.xtx[p][i][j];
+                    }
+                    xty[p][i] += other.xty[p][i];
+                }
+                yty[p] += other.yty[p];
+                count[p] += other.count[p];
+            }
+        }
+    }
+
+    /**
+     * Fits weights from a stream of records. Phases without enough data keep
+     * the corresponding weights of fallback.
+     */
+    Fit fit(InputStream in, Evaluator fallback) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "weight-trainer");
+            t.setDaemon(true);
+            return t;
+        });
+        Sums total = new Sums();
+        ArrayDeque<Future<Sums>> window = new ArrayDeque<>();
+        try (InputStream input = new BufferedInputStream(in, 1 << 16)) {
+            while (true) {
+                byte[] chunk = input.readNBytes(CHUNK_RECORDS * SelfPlayGenerator.RECORD_BYTES);
+                if (chunk.length == 0) {
+                    break;
+                }
+                window.add(pool.submit(() -> accumulate(chunk)));
+                if (window.size() >= threads * CHUNKS_PER_THREAD) {
+                    total.add(window.poll().get());
+                }
+            }
+            while (!window.isEmpty()) {
+                total.add(window.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fitting", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Fitting failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return solve(total, fallback);
+    }
+
+    private static Sums accumulate(byte[] chunk) {
+        Sums sums = new Sums();
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        int[] x = new int[Evaluator.FEATURES];
+        while (buffer.remaining() >= SelfPlayGenerator.RECORD_BYTES) {
+            long black = buffer.getLong();
+            long white = buffer.getLong();
+            boolean blackToMove = buffer.get() == OthelloModel.BLACK;
+            int result = buffer.get();
+
+            long own = blackToMove ? black : white;
+            long opp = blackToMove ? white : black;
+            double y = (blackToMove ? result : -result) * (double) TARGET_SCALE;
+            int p = Evaluator.phase(black | white);
+            Evaluator.features(own, opp, x);
+
+            double[][] xtx = sums.xtx[p];
+            double[] xty = sums.xty[p];
+            for (int i = 0; i < Evaluator.FEATURES; i++) {
+                if (x[i] == 0) continue;
+                for (int j = 0; j < Evaluator.FEATURES; j++) {
+                    xtx[i][j] += x[i] * x[j];
+                }
+                xty[i] += x[i] * y;
+            }
+            sums.yty[p] += y * y;
+            sums.count[p]++;
+        }
+        return sums;
+    }
+
+    private static Fit solve(Sums sums, Evaluator fallback) {
+        int[][] weights = fallback.getWeights();
+        long samples = 0;
+        double squaredError = 0;
+        for (int p = 0; p < Evaluator.PHASES; p++) {
+            samples += sums.count[p];
+            if (sums.count[p] < MIN_SAMPLES_PER_FEATURE * Evaluator.FEATURES) {
+                continue;
+            }
+            double[][] a = new double[Evaluator.FEATURES][];
+            for (int i = 0; i < Evaluator.FEATURES; i++) {
+                a[i] = sums.xtx[p][i].clone();
+                a[i][i] += RIDGE * sums.count[p];
+            }
+            double[] w = gaussianSolve(a, sums.xty[p].clone());
+            for (int i = 0; i < Evaluator.FEATURES; i++) {
+                weights[p][i] = (int) Math.round(w[i]);
+            }
+            // Residual sum of squares: y'y - 2w'X'y + w'X'Xw
+            double rss = sums.yty[p];
+            for (int i = 0; i < Evaluator.FEATURES; i++) {
+                rss -= 2 * w[i] * sums.xty[p][i];
+                for (int j = 0; j < Evaluator.FEATURES; j++) {
+                    rss += w[i] * sums.xtx[p][i][j] * w[j];
+                }
+            }
+            squaredError += Math.max(0, rss);
+        }
+        double rms = samples == 0 ? 0 : Math.sqrt(squaredError / samples);
+        return new Fit(new Evaluator(weights), samples, rms);
+    }
+
+    /** Solves a x = b in place with partial pivoting; a must be non-singular. */
+    private static double[] gaussianSolve(double[][] a, double[] b) {
+        int n = b.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] tmpRow = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmpRow;
+            double tmp = b[col];
+            b[col] = b[pivot];
+            b[pivot] = tmp;
+
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k < n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                }
+                b[row] -= factor * b[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = b[row];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * x[k];
+            }
+            x[row] = sum / a[row][row];
+        }
+        return x;
+    }
+}
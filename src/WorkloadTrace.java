@@ -0,0 +1,412 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capture and replay of the calls made to {@link OthelloModel}, so changes
+ * can be benchmarked against real GUI and server call patterns instead of
+ * synthetic ones.
+ *
+ * Recording is off unless the JVM starts with {@code -Dothello.trace=FILE}
+ * (or Main's {@code --trace FILE}). {@link #RECORDER} is then a static
+ * final, like {@link ModelProfiler#ENABLED}: with tracing off, the
+ * {@code if (WorkloadTrace.RECORDER != null)} guard in each public model
+ * method is folded away by the JIT. With it on, every public call is
+ * appended to the file with its arguments, in the order the calls were
+ * made across all threads and models.
+ *
+ * The trace is compact binary: a header (magic, version), then one record
+ * per call. A record is an operation byte, the model's number and the
+ * microseconds since the previous call as varints, and the arguments:
+ * players, rows and columns as bytes, a ply as a varint, bitboards as
+ * longs. makeMove also records whether the move was accepted, so a replay
+ * can check it behaves the same.
+ *
+ * Replay ({@code java WorkloadTrace FILE [--repeat N]}) decodes the whole
+ * trace into arrays first, then re-executes it headless at full speed
+ * against fresh models and reports calls per second per pass, the mix of
+ * operations and any makeMove that was accepted differently.
+ */
+final class WorkloadTrace {
+    static final WorkloadTrace RECORDER = open(System.getProperty("othello.trace"));
+
+    private static final int MAGIC = 0x4F545754; // "OTWT"
+    private static final int VERSION = 1;
+
+    // Operations; each model method records its own
+    static final int NEW_MODEL = 0;        // board size
+    static final int FROM_BITBOARDS = 1;   // black, white, player
+    static final int GET_BOARD_SIZE = 2;
+    static final int SNAPSHOT = 3;
+    static final int GET_BOARD = 4;
+    static final int GET_BITBOARD = 5;     // player
+    static final int GET_POSITION = 6;
+    static final int COUNT_STABLE_DISCS = 7;   // player
+    static final int COUNT_FRONTIER_DISCS = 8; // player
+    static final int GET_CURRENT_PLAYER = 9;
+    static final int IS_GAME_OVER = 10;
+    static final int GET_VALID_MOVES = 11; // player
+    static final int MAKE_MOVE = 12;       // row, col, player, accepted
+    static final int CAN_UNDO = 13;
+    static final int CAN_REDO = 14;
+    static final int UNDO = 15;
+    static final int REDO = 16;
+    static final int GET_PLY = 17;
+    static final int GET_HISTORY_LENGTH = 18;
+    static final int JUMP_TO_PLY = 19;     // ply
+    static final int GET_VARIATIONS = 20;
+    static final int GET_MOVE_HISTORY = 21;
+    static final int NO_VALID_MOVES = 22;
+    static final int GET_GREEDY_MOVE = 23; // player
+    static final int GET_SCORE = 24;
+    static final int GET_WINNER = 25;
+    static final int END_GAME = 26;
+
+    static final String[] NAMES = {
+        "new OthelloModel", "fromBitboards", "getBoardSize", "snapshot", "getBoard", "getBitboard",
+        "getPosition", "countStableDiscs", "countFrontierDiscs", "getCurrentPlayer", "isGameOver",
+        "getValidMoves", "makeMove", "canUndo", "canRedo", "undo", "redo", "getPly", "getHistoryLength",
+        "jumpToPly", "getVariations", "getMoveHistory", "currentPlayerHasNoValidMoves", "getGreedyMove",
+        "getScore", "getWinner", "endGame"
+    };
+
+    private final DataOutputStream out;
+    private int models;
+    private long lastNanos = System.nanoTime();
+    private long records;
+
+    WorkloadTrace(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    private static WorkloadTrace open(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            WorkloadTrace trace = new WorkloadTrace(Files.newOutputStream(Paths.get(file)));
+            Runtime.getRuntime().addShutdownHook(new Thread(trace::close));
+            return trace;
+        } catch (IOException e) {
+            System.err.println("Not tracing to " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Records a new model and returns its number, which its later calls are recorded under. */
+    synchronized int newModel(int size) {
+        int id = models++;
+        header(NEW_MODEL, id);
+        write(size);
+        return id;
+    }
+
+    synchronized void record(int model, int op) {
+        header(op, model);
+    }
+
+    synchronized void record(int model, int op, int arg) {
+        header(op, model);
+        if (op == JUMP_TO_PLY) {
+            varint(arg);
+        } else {
+            write(arg);
+        }
+    }
+
+    synchronized void recordMove(int model, int row, int col, int player, boolean accepted) {
+        header(MAKE_MOVE, model);
+        write(row);
+        write(col);
+        write(player);
+        write(accepted ? 1 : 0);
+    }
+
+    synchronized void recordBitboards(int model, long black, long white, int player) {
+        header(FROM_BITBOARDS, model);
+        try {
+            out.writeLong(black);
+            out.writeLong(white);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        write(player);
+    }
+
+    private void header(int op, int model) {
+        long now = System.nanoTime();
+        write(op);
+        varint(model);
+        varint((now - lastNanos) / 1000);
+        lastNanos = now;
+        records++;
+    }
+
+    private void write(int b) {
+        try {
+            out.write(b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    synchronized long getRecords() {
+        return records;
+    }
+
+    synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Shutting down; nothing more to do
+        }
+    }
+
+    /** A decoded trace: one entry per call, ready to replay without parsing. */
+    static final class Calls {
+        final byte[] ops;
+        final int[] models;
+        final int[] args;   // first argument, or the board size for NEW_MODEL
+        final int[] args2;  // col for makeMove
+        final int[] args3;  // player for makeMove and fromBitboards
+        final boolean[] accepted;
+        final long[] blacks;
+        final long[] whites;
+        final long recordedMicros;
+        final int count;
+
+        private Calls(List<long[]> rows, long recordedMicros) {
+            count = rows.size();
+            ops = new byte[count];
+            models = new int[count];
+            args = new int[count];
+            args2 = new int[count];
+            args3 = new int[count];
+            accepted = new boolean[count];
+            blacks = new long[count];
+            whites = new long[count];
+            for (int i = 0; i < count; i++) {
+                long[] row = rows.get(i);
+                ops[i] = (byte) row[0];
+                models[i] = (int) row[1];
+                args[i] = (int) row[2];
+                args2[i] = (int) row[3];
+                args3[i] = (int) row[4];
+                accepted[i] = row[5] != 0;
+                blacks[i] = row[6];
+                whites[i] = row[7];
+            }
+            this.recordedMicros = recordedMicros;
+        }
+    }
+
+    static Calls read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a workload trace");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        List<long[]> rows = new ArrayList<>();
+        long micros = 0;
+        while (true) {
+            int op = in.read();
+            if (op < 0) {
+                break;
+            }
+            if (op >= NAMES.length) {
+                throw new IOException("Unknown operation " + op + " in record " + rows.size());
+            }
+            try {
+                long[] row = new long[8];
+                row[0] = op;
+                row[1] = varint(in);
+                micros += varint(in);
+                switch (op) {
+                    case NEW_MODEL:
+                    case GET_BITBOARD:
+                    case COUNT_STABLE_DISCS:
+                    case COUNT_FRONTIER_DISCS:
+                    case GET_VALID_MOVES:
+                    case GET_GREEDY_MOVE:
+                        row[2] = in.readUnsignedByte();
+                        break;
+                    case JUMP_TO_PLY:
+                        row[2] = varint(in);
+                        break;
+                    case MAKE_MOVE:
+                        row[2] = in.readUnsignedByte();
+                        row[3] = in.readUnsignedByte();
+                        row[4] = in.readUnsignedByte();
+                        row[5] = in.readUnsignedByte();
+                        break;
+                    case FROM_BITBOARDS:
+                        row[6] = in.readLong();
+                        row[7] = in.readLong();
+                        row[4] = in.readUnsignedByte();
+                        break;
+                    default:
+                        break;
+                }
+                rows.add(row);
+            } catch (EOFException e) {
+                break; // the last record was cut short, e.g. by a crash
+            }
+        }
+        return new Calls(rows, micros);
+    }
+
+    private static long varint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /** Outcome of one replay pass. */
+    static final class Replay {
+        long nanos;
+        long mismatches; // makeMove calls accepted differently than when recorded
+        long exceptions; // calls that threw, as they may have when recorded
+        long checksum;   // folds in every result, so none of the work can be skipped
+    }
+
+    /** Re-executes the calls against fresh models, as fast as possible. */
+    static Replay replay(Calls calls) {
+        Replay result = new Replay();
+        List<OthelloModel> models = new ArrayList<>();
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls.count; i++) {
+            int op = calls.ops[i];
+            if (op == NEW_MODEL) {
+                // fromBitboards records the model it builds and then its own call; build it once
+                boolean replaced = i + 1 < calls.count && calls.ops[i + 1] == FROM_BITBOARDS
+                        && calls.models[i + 1] == models.size();
+                models.add(replaced ? null : new OthelloModel(calls.args[i]));
+                continue;
+            }
+            OthelloModel model = models.get(calls.models[i]);
+            int arg = calls.args[i];
+            try {
+                switch (op) {
+                    case FROM_BITBOARDS:
+                        models.set(calls.models[i], OthelloModel.fromBitboards(calls.blacks[i], calls.whites[i],
+                                calls.args3[i]));
+                        break;
+                    case GET_BOARD_SIZE: sum += model.getBoardSize(); break;
+                    case SNAPSHOT: sum += model.snapshot().getCurrentPlayer(); break;
+                    case GET_BOARD: sum += model.getBoard().length; break;
+                    case GET_BITBOARD: sum += model.getBitboard(arg); break;
+                    case GET_POSITION: sum += model.getPosition().hashCode(); break;
+                    case COUNT_STABLE_DISCS: sum += model.countStableDiscs(arg); break;
+                    case COUNT_FRONTIER_DISCS: sum += model.countFrontierDiscs(arg); break;
+                    case GET_CURRENT_PLAYER: sum += model.getCurrentPlayer(); break;
+                    case IS_GAME_OVER: sum += model.isGameOver() ? 1 : 0; break;
+                    case GET_VALID_MOVES: sum += model.getValidMoves(arg).size(); break;
+                    case MAKE_MOVE:
+                        if (model.makeMove(arg, calls.args2[i], calls.args3[i]) != calls.accepted[i]) {
+                            result.mismatches++;
+                        }
+                        break;
+                    case CAN_UNDO: sum += model.canUndo() ? 1 : 0; break;
+                    case CAN_REDO: sum += model.canRedo() ? 1 : 0; break;
+                    case UNDO: sum += model.undo() ? 1 : 0; break;
+                    case REDO: sum += model.redo() ? 1 : 0; break;
+                    case GET_PLY: sum += model.getPly(); break;
+                    case GET_HISTORY_LENGTH: sum += model.getHistoryLength(); break;
+                    case JUMP_TO_PLY: model.jumpToPly(arg); break;
+                    case GET_VARIATIONS: sum += model.getVariations().size(); break;
+                    case GET_MOVE_HISTORY: sum += model.getMoveHistory().size(); break;
+                    case NO_VALID_MOVES: sum += model.currentPlayerHasNoValidMoves() ? 1 : 0; break;
+                    case GET_GREEDY_MOVE:
+                        int[] move = model.getGreedyMove(arg);
+                        sum += move == null ? -1 : move[0] * 31 + move[1];
+                        break;
+                    case GET_SCORE: sum += model.getScore()[0]; break;
+                    case GET_WINNER: sum += model.getWinner(); break;
+                    case END_GAME: model.endGame(); break;
+                    default: throw new IllegalStateException("Unknown operation " + op);
+                }
+            } catch (RuntimeException e) {
+                result.exceptions++;
+            }
+        }
+        result.nanos = System.nanoTime() - start;
+        result.checksum = sum;
+        return result;
+    }
+
+    /** Usage: {@code WorkloadTrace FILE [--repeat N]} */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Expected a trace file");
+        }
+        Path file = Paths.get(args[0]);
+        int repeat = 5;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--repeat")) {
+                repeat = Integer.parseInt(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Calls calls;
+        try (InputStream in = Files.newInputStream(file)) {
+            calls = read(in);
+        }
+        long[] mix = new long[NAMES.length];
+        for (int i = 0; i < calls.count; i++) {
+            mix[calls.ops[i]]++;
+        }
+        System.out.printf("%,d calls (%,d bytes), recorded over %.1fs%n", calls.count, Files.size(file),
+                calls.recordedMicros / 1e6);
+        for (int op = 0; op < NAMES.length; op++) {
+            if (mix[op] > 0) {
+                System.out.printf("  %-30s %,12d%n", NAMES[op], mix[op]);
+            }
+        }
+        // The first passes warm up the JIT
+        for (int pass = 1; pass <= repeat; pass++) {
+            Replay result = replay(calls);
+            System.out.printf("pass %d: %.3f ms, %,.0f calls/s, %d mismatched moves, %d exceptions (checksum %d)%n",
+                    pass, result.nanos / 1e6, calls.count / (result.nanos / 1e9), result.mismatches,
+                    result.exceptions, result.checksum);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCacheTest {
+
+    private static Position after(String moves) {
+        java.util.List<Position> line = GameRecord.parse(moves).getPositions();
+        return line.get(line.size() - 1);
+    }
+
+    @Test
+    @DisplayName("Test results are found by position and budget, with hits and misses counted")
+    void testLookup() {
+        AnalysisCache<int[]> cache = new AnalysisCache<>(8);
+        Position position = after("f5d6");
+        assertNull(cache.get(position, Difficulty.DEFAULT));
+        cache.put(position, Difficulty.DEFAULT, new int[]{2, 3});
+        assertArrayEquals(new int[]{2, 3}, cache.get(after("f5d6"), Difficulty.DEFAULT));
+        assertNull(cache.get(Position.START, Difficulty.DEFAULT));
+        for (Difficulty other : Difficulty.values()) {
+            if (other != Difficulty.DEFAULT) {
+                assertNull(cache.get(position, other), "another budget must not share the result");
+            }
+        }
+        assertEquals(1, cache.getHits());
+        assertEquals(1 + 1 + 1 + Difficulty.values().length - 1, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Test the least recently used entry is evicted when the cache is full")
+    void testLruEviction() {
+        AnalysisCache<String> cache = new AnalysisCache<>(2);
+        Position a = after("f5");
+        Position b = after("f5d6");
+        Position c = after("f5d6c3");
+        cache.put(a, 1, "a");
+        cache.put(b, 1, "b");
+        assertEquals("a", cache.get(a, 1)); // b is now the least recently used
+        cache.put(c, 1, "c");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(b, 1));
+        assertEquals("a", cache.get(a, 1));
+        assertEquals("c", cache.get(c, 1));
+    }
+
+    @Test
+    @DisplayName("Test storing the same key again replaces the result without evicting")
+    void testReplace() {
+        AnalysisCache<String> cache = new AnalysisCache<>(1);
+        cache.put(Position.START, 10, "shallow");
+        cache.put(Position.START, 10, "deep");
+        assertEquals("deep", cache.get(Position.START, 10));
+        assertEquals(0, cache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new AnalysisCache<String>(0));
+        assertThrows(IllegalArgumentException.class, () -> cache.put(Position.START, 10, null));
+    }
+}
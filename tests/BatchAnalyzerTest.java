@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+class BatchAnalyzerTest {
+
+    private static final String START =
+            "---------------------------OX------XO---------------------------";
+
+    @Test
+    @DisplayName("Test text positions are analysed in input order")
+    void testTextOutputIsOrdered() throws IOException {
+        StringBuilder input = new StringBuilder("# comment line\n");
+        for (int i = 0; i < 20; i++) {
+            input.append(START).append(i % 2 == 0 ? " X" : " O").append('\n');
+        }
+        StringWriter out = new StringWriter();
+        long count = new BatchAnalyzer(3, 4).analyzeText(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+        assertEquals(20, count);
+        String[] lines = out.toString().split("\n");
+        assertEquals(20, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            String[] fields = lines[i].split("\t");
+            assertEquals(String.valueOf(i), fields[0]);
+            assertEquals("3", fields[3]);
+            // Black's opening moves are d3, c4, f5 and e6
+            if (i % 2 == 0) {
+                assertTrue(fields[1].matches("d3|c4|f5|e6"), "Unexpected move " + fields[1]);
+                // The principal variation starts with the move and runs to the search depth
+                assertTrue(fields[5].startsWith(fields[1]));
+                assertEquals(3, fields[5].split(" ").length);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test binary records and bad records")
+    void testBinaryInput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeLong(Bitboard.START_BLACK);
+        data.writeLong(Bitboard.START_WHITE);
+        data.writeByte(OthelloModel.BLACK);
+        data.writeLong(1L);
+        data.writeLong(1L); // Overlapping discs
+        data.writeByte(OthelloModel.WHITE);
+
+        StringWriter out = new StringWriter();
+        long count = new BatchAnalyzer(2, 2).analyzeBinary(new ByteArrayInputStream(bytes.toByteArray()), out);
+
+        assertEquals(2, count);
+        String[] lines = out.toString().split("\n");
+        assertTrue(lines[0].startsWith("0\t"));
+        assertTrue(lines[1].startsWith("1\terror"));
+    }
+
+    @Test
+    @DisplayName("Test model can be built directly from a parsed position")
+    void testParsedPositionMatchesModel() {
+        long[] position = BatchAnalyzer.parseText(START + " X");
+        OthelloModel model = OthelloModel.fromBitboards(position[0], position[1], (int) position[2]);
+        assertArrayEquals(new OthelloModel().getBoard(), model.getBoard());
+        assertEquals(OthelloModel.BLACK, model.getCurrentPlayer());
+    }
+}
@@ -0,0 +1,45 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchMovesTest {
+
+    @Test
+    @DisplayName("Test batched move generation matches the scalar path")
+    void testMovesMatchScalar() {
+        int count = 5000;
+        long[] own = new long[count];
+        long[] opp = new long[count];
+        MoveGenBenchmark.randomPositions(own, opp, 17L);
+        long[] batched = new long[count];
+        long[] scalar = new long[count];
+        BatchMoves.movesBatched(own, opp, batched, count);
+        BatchMoves.movesScalar(own, opp, scalar, count);
+        assertArrayEquals(scalar, batched);
+
+        OthelloModel model = OthelloModel.fromBitboards(own[100], opp[100], OthelloModel.BLACK);
+        assertEquals(Long.bitCount(batched[100]), model.getValidMoves(OthelloModel.BLACK).size());
+    }
+
+    @Test
+    @DisplayName("Test batched flips match the scalar path for every square")
+    void testFlipsMatchScalar() {
+        int positions = 500;
+        long[] own = new long[positions * 64];
+        long[] opp = new long[positions * 64];
+        int[] squares = new int[positions * 64];
+        long[] sourceOwn = new long[positions];
+        long[] sourceOpp = new long[positions];
+        MoveGenBenchmark.randomPositions(sourceOwn, sourceOpp, 23L);
+        for (int i = 0; i < own.length; i++) {
+            own[i] = sourceOwn[i / 64];
+            opp[i] = sourceOpp[i / 64];
+            squares[i] = i % 64;
+        }
+        long[] batched = new long[own.length];
+        long[] scalar = new long[own.length];
+        BatchMoves.flipsBatched(own, opp, squares, batched, own.length);
+        BatchMoves.flipsScalar(own, opp, squares, scalar, own.length);
+        assertArrayEquals(scalar, batched);
+    }
+}
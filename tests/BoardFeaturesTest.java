@@ -0,0 +1,137 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class BoardFeaturesTest {
+
+    @Test
+    @DisplayName("Test stable discs in simple positions")
+    void testSimpleStability() {
+        assertEquals(0L, BoardFeatures.stableDiscs(Bitboard.START_BLACK, Bitboard.START_WHITE));
+
+        // A lone corner is stable, and so is an edge run anchored on it
+        long cornerRun = 0b111L; // a1, b1, c1
+        assertEquals(cornerRun, BoardFeatures.stableDiscs(cornerRun, 1L << 20));
+
+        // A lone edge disc away from the corner is not
+        assertEquals(0L, BoardFeatures.stableDiscs(1L << 3, 1L << 20));
+
+        // On a full board every disc is stable
+        long black = 0x00FF00FF00FF00FFL;
+        assertEquals(black, BoardFeatures.stableDiscs(black, ~black));
+    }
+
+    @Test
+    @DisplayName("Test discs reported stable never flip later in the game")
+    void testStableDiscsNeverFlip() {
+        Random random = new Random(3);
+        for (int game = 0; game < 200; game++) {
+            List<long[]> positions = new ArrayList<>(); // black, white
+            long black = Bitboard.START_BLACK;
+            long white = Bitboard.START_WHITE;
+            boolean blackToMove = true;
+            while (true) {
+                positions.add(new long[]{black, white});
+                long own = blackToMove ? black : white;
+                long opp = blackToMove ? white : black;
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    if (Bitboard.moves(opp, own) == 0) {
+                        break;
+                    }
+                    blackToMove = !blackToMove;
+                    continue;
+                }
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                    moves &= moves - 1;
+                }
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+                black = blackToMove ? own : opp;
+                white = blackToMove ? opp : own;
+                blackToMove = !blackToMove;
+            }
+
+            for (long[] position : positions) {
+                long stableBlack = BoardFeatures.stableDiscs(position[0], position[1]);
+                long stableWhite = BoardFeatures.stableDiscs(position[1], position[0]);
+                assertEquals(stableBlack, stableBlack & black, "Black stable disc was flipped");
+                assertEquals(stableWhite, stableWhite & white, "White stable disc was flipped");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test frontier and potential mobility")
+    void testFrontier() {
+        // Every starting disc touches an empty square
+        assertEquals(Bitboard.START_BLACK, BoardFeatures.frontier(Bitboard.START_BLACK, Bitboard.START_WHITE));
+        assertEquals(10, Long.bitCount(BoardFeatures.potentialMobility(Bitboard.START_BLACK, Bitboard.START_WHITE)));
+
+        OthelloModel model = new OthelloModel();
+        assertEquals(2, model.countFrontierDiscs(OthelloModel.BLACK));
+        assertEquals(0, model.countStableDiscs(OthelloModel.BLACK));
+    }
+
+    @Test
+    @DisplayName("Test stability cut-off keeps endgame scores exact")
+    void testEndgameCutoffIsExact() {
+        Random random = new Random(5);
+        for (int game = 0; game < 20; game++) {
+            long black = Bitboard.START_BLACK;
+            long white = Bitboard.START_WHITE;
+            boolean blackToMove = true;
+            // Random play down to 10 empties
+            while (Long.bitCount(black | white) < 54) {
+                long own = blackToMove ? black : white;
+                long opp = blackToMove ? white : black;
+                long moves = Bitboard.moves(own, opp);
+                if (moves == 0) {
+                    if (Bitboard.moves(opp, own) == 0) break;
+                    blackToMove = !blackToMove;
+                    continue;
+                }
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                    moves &= moves - 1;
+                }
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+                black = blackToMove ? own : opp;
+                white = blackToMove ? opp : own;
+                blackToMove = !blackToMove;
+            }
+            long own = blackToMove ? black : white;
+            long opp = blackToMove ? white : black;
+            int empties = 64 - Long.bitCount(own | opp);
+            int score = new SearchEngine(new Evaluator()).search(own, opp, empties).score;
+            assertEquals(0, score % SearchEngine.FINAL_DISC_WEIGHT, "Solved score should be a disc count");
+            assertEquals(solve(own, opp), score / SearchEngine.FINAL_DISC_WEIGHT);
+        }
+    }
+
+    // Plain minimax to the end of the game, as a reference
+    private static int solve(long own, long opp) {
+        long moves = Bitboard.moves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.moves(opp, own) == 0) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -solve(opp, own);
+        }
+        int best = Integer.MIN_VALUE;
+        for (long m = moves; m != 0; m &= m - 1) {
+            int sq = Long.numberOfTrailingZeros(m);
+            long flipped = Bitboard.flips(sq, own, opp);
+            best = Math.max(best, -solve(opp & ~flipped, own | flipped | (1L << sq)));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+class DeadlineSearchTest {
+
+    /** A position near the end whose side to move has a forced win, from a fixed random playout. */
+    private static long[] winningEndgame(int empties) {
+        SplittableRandom random = new SplittableRandom(7);
+        SearchEngine engine = new SearchEngine();
+        while (true) {
+            long own = Bitboard.START_BLACK;
+            long opp = Bitboard.START_WHITE;
+            while (Bitboard.SQUARES - Long.bitCount(own | opp) > empties) {
+                long moves = Bitboard.moves(own, opp);
+                if (moves != 0) {
+                    for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                        moves &= moves - 1;
+                    }
+                    int sq = Long.numberOfTrailingZeros(moves);
+                    long flipped = Bitboard.flips(sq, own, opp);
+                    own |= flipped | (1L << sq);
+                    opp &= ~flipped;
+                } else if (Bitboard.moves(opp, own) == 0) {
+                    break;
+                }
+                long swap = own;
+                own = opp;
+                opp = swap;
+            }
+            if (Bitboard.moves(own, opp) != 0
+                    && engine.score(own, opp, empties) >= SearchEngine.FINAL_DISC_WEIGHT) {
+                return new long[]{own, opp};
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test the split root search scores positions like the sequential search")
+    void testMatchesSequentialSearch() {
+        try (DeadlineSearch search = new DeadlineSearch(3, null)) {
+            for (Position position : SearchBenchmark.positions(4, 5L)) {
+                SearchEngine.Result split = search.search(position.own(), position.opp(), 4, 60_000);
+                int expected = new SearchEngine().score(position.own(), position.opp(), 4);
+                assertEquals(4, split.depth);
+                assertEquals(expected, split.score);
+                assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << split.square)) != 0);
+            }
+            assertEquals(0, search.runningTasks());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a join waits for every forked subtask, however quickly earlier ones finish")
+    void testJoinWaitsForEverySubtask() {
+        try (DeadlineSearch search = new DeadlineSearch(4, null)) {
+            for (int round = 0; round < 2_000; round++) {
+                DeadlineSearch.Scope scope = search.new Scope();
+                AtomicIntegerArray scores = new AtomicIntegerArray(12);
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                // Like an iteration: the first move alone, then the rest while earlier ones finish
+                scope.fork(engine -> scores.set(0, 1));
+                assertTrue(scope.joinUntil(deadline));
+                for (int i = 1; i < scores.length(); i++) {
+                    int index = i;
+                    scope.fork(engine -> scores.set(index, 1));
+                }
+                assertTrue(scope.joinUntil(deadline));
+                assertEquals(0, search.runningTasks(), "round " + round);
+                for (int i = 0; i < scores.length(); i++) {
+                    assertEquals(1, scores.get(i), "round " + round + ", move " + i);
+                }
+                scope.shutdown();
+                scope.join();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test a search returns soon after its deadline with no subtask left running")
+    void testDeadline() {
+        Position position = SearchBenchmark.positions(1, 11L)[0];
+        try (DeadlineSearch search = new DeadlineSearch(2, new TranspositionTable(1 << 20, true))) {
+            long start = System.nanoTime();
+            SearchEngine.Result result = search.search(position.own(), position.opp(), 60, 100);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(0, search.runningTasks(), "subtasks must finish before search returns");
+            assertTrue(elapsedMillis < 1_000, "returned " + elapsedMillis + " ms after a 100 ms deadline");
+            assertTrue(result.depth >= 1 && result.depth < 60);
+            assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << result.square)) != 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a proven win ends the search well before the deadline")
+    void testProvenWinStopsEarly() {
+        long[] endgame = winningEndgame(10);
+        try (DeadlineSearch search = new DeadlineSearch(2, null)) {
+            long start = System.nanoTime();
+            SearchEngine.Result result = search.search(endgame[0], endgame[1], 60, 60_000);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(result.score >= SearchEngine.FINAL_DISC_WEIGHT);
+            assertTrue(elapsedMillis < 30_000);
+            assertTrue(result.depth <= 10);
+            assertEquals(0, search.runningTasks());
+        }
+    }
+}
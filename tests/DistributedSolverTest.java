@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class DistributedSolverTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DistributedSolver perft(int depth, int split, int workers, Path checkpoint) {
+        return new DistributedSolver(DistributedSolver.PERFT, Bitboard.START_BLACK, Bitboard.START_WHITE,
+                OthelloModel.BLACK, depth, split, workers, checkpoint);
+    }
+
+    @Test
+    @DisplayName("Test perft matches the known counts from the starting position")
+    void testPerftCounts() {
+        long[] expected = {1, 4, 12, 56, 244, 1396, 8200, 55092};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], DistributedSolver.perft(Bitboard.START_BLACK, Bitboard.START_WHITE, depth));
+        }
+    }
+
+    @Test
+    @DisplayName("Test split work over worker threads adds up to the single-threaded perft")
+    void testInProcessPerft() throws Exception {
+        DistributedSolver solver = perft(7, 3, 3, null);
+        assertEquals(55092, solver.run(true));
+        assertEquals(56, solver.unitCount());
+    }
+
+    @Test
+    @DisplayName("Test worker JVMs give the same perft as the coordinator alone")
+    void testWorkerProcesses() throws Exception {
+        assertEquals(8200, perft(6, 2, 2, null).run(false));
+    }
+
+    @Test
+    @DisplayName("Test a distributed endgame solve matches a direct solve")
+    void testSolveMatchesDirect() throws Exception {
+        long[] line = NnueBenchmark.randomGames(1, 9L)[0];
+        int ply = line.length / 2 - 12; // about ten empties left
+        long own = line[2 * ply];
+        long opp = line[2 * ply + 1];
+        int side = ply % 2 == 0 ? OthelloModel.BLACK : OthelloModel.WHITE;
+        long black = side == OthelloModel.BLACK ? own : opp;
+        long white = side == OthelloModel.BLACK ? opp : own;
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        DistributedSolver solver = new DistributedSolver(DistributedSolver.SOLVE, black, white, side,
+                0, 3, 2, null);
+        assertEquals(new SearchEngine().score(own, opp, empties), solver.run(true));
+    }
+
+    @Test
+    @DisplayName("Test a worker dying mid-unit after the queues ran dry only loses that unit")
+    void testWorkerDiesMidUnit() throws Exception {
+        DistributedSolver solver = perft(7, 3, 3, null);
+        // The first unit is handed out at once; the other workers empty every queue while it is held
+        solver.dropUnit(0);
+        assertEquals(55092, solver.run(true));
+    }
+
+    @Test
+    @DisplayName("Test a rerun resumes from the checkpoint instead of redoing finished units")
+    void testCheckpointResume() throws Exception {
+        Path checkpoint = tempDir.resolve("perft.ckpt");
+        assertEquals(55092, perft(7, 2, 2, checkpoint).run(true));
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        assertEquals(1 + 12, lines.size());
+
+        // Keep the header and three results, one of them doctored so the test can tell it was
+        // trusted, plus a line cut off mid-write, which must be dropped and redone
+        String[] first = lines.get(1).split(" ");
+        long doctored = Long.parseLong(first[1]) + 1000;
+        Files.writeString(checkpoint, lines.get(0) + "\n" + first[0] + " " + doctored + "\n" + lines.get(2) + "\n"
+                + lines.get(3) + "\n" + lines.get(4).substring(0, lines.get(4).length() - 1), StandardCharsets.UTF_8);
+        assertEquals(55092 + 1000, perft(7, 2, 2, checkpoint).run(true));
+        assertEquals(1 + 12, Files.readAllLines(checkpoint, StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    @DisplayName("Test a checkpoint for another problem is refused")
+    void testCheckpointMismatch() throws Exception {
+        Path checkpoint = tempDir.resolve("other.ckpt");
+        perft(5, 2, 1, checkpoint).run(true);
+        assertThrows(IOException.class, () -> perft(6, 2, 1, checkpoint).run(true));
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+class EngineProtocolTest {
+
+    private static List<String> run(String commands) throws IOException {
+        StringWriter out = new StringWriter();
+        new EngineProtocol(out, new SearchEngine(new Evaluator()))
+                .run(new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)));
+        return List.of(out.toString().split("\\R"));
+    }
+
+    @Test
+    @DisplayName("Test go streams one info line per depth and then answers with a legal move")
+    void testGo() throws IOException {
+        List<String> lines = run("nboard 2\nset depth 4\nmove f5\ngo\nping 7\n");
+        assertEquals("set myname " + EngineProtocol.NAME, lines.get(0));
+        for (int depth = 1; depth <= 4; depth++) {
+            String info = lines.get(depth);
+            assertTrue(info.startsWith("info depth " + depth + " score "), info);
+            assertTrue(info.contains(" nodes ") && info.contains(" nps ") && info.contains(" pv "), info);
+        }
+        String answer = lines.get(5);
+        assertTrue(answer.matches("=== (D6|F6|F4)/-?\\d+/[\\d.]+"), answer);
+        assertEquals("pong 7", lines.get(6), "ping waits for the search");
+    }
+
+    @Test
+    @DisplayName("Test GGF games and explicit positions set the board the engine searches")
+    void testSetGame() throws IOException {
+        String ggf = "(;GM[Othello]PC[NBoard]PB[x]PW[y]TY[8]"
+                + "BO[8 ---------------------------O*------*O--------------------------- *]"
+                + "B[F5//1.20]W[D6]B[C3];)";
+        List<String> lines = run("set game " + ggf + "\nset depth 1\ngo\n"
+                + "set position ---------------------------OX------XO--------------------------- O\n"
+                + "move f5\nmove e3\nmove e3\n");
+        assertTrue(lines.get(0).startsWith("info depth 1 "), lines.get(0));
+        lines = lines.subList(1, lines.size());
+        assertEquals(3, lines.size(), String.join("\n", lines));
+
+        // White is to move after f5 d6 c3
+        Position afterGame = GameRecord.parse("f5d6c3").getPositions().get(3);
+        assertEquals(OthelloModel.WHITE, afterGame.getSideToMove());
+        int square = Bitboard.parseSquare(lines.get(0).substring(4, 6));
+        assertTrue((Bitboard.moves(afterGame.own(), afterGame.opp()) & (1L << square)) != 0, lines.get(0));
+
+        // From the start with white to move, f5 is black's move; e3 is legal once only
+        assertEquals("error illegal move f5", lines.get(1));
+        assertEquals("error illegal move e3", lines.get(2));
+    }
+
+    @Test
+    @DisplayName("Test bad commands are answered with errors and the engine carries on")
+    void testErrors() throws IOException {
+        List<String> lines = run("fly\nset depth 0\nmove pa\nset position xyz\nping\n");
+        assertEquals("error unknown command fly", lines.get(0));
+        assertEquals("error depth must be positive", lines.get(1));
+        assertEquals("error cannot pass with a legal move", lines.get(2));
+        assertTrue(lines.get(3).startsWith("error "));
+        assertEquals("pong", lines.get(4));
+    }
+
+    @Test
+    @DisplayName("Test stop right after an unlimited go answers promptly with a legal move")
+    void testGoThenStop() {
+        // A lost stop leaves the search solving the whole game: fail instead of hanging
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < 20; i++) {
+                long start = System.nanoTime();
+                List<String> lines = run("go\nstop\nping 3\n");
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                assertTrue(millis < 2000, "Took " + millis + " ms");
+                String answer = lines.get(lines.size() - 2);
+                assertTrue(answer.matches("=== (D3|C4|F5|E6)/-?\\d+/[\\d.]+"), answer);
+                assertEquals("pong 3", lines.get(lines.size() - 1));
+            }
+            long start = System.nanoTime();
+            run("go\nquit\n");
+            assertTrue((System.nanoTime() - start) / 1_000_000 < 2000, "quit must stop the search it waits for");
+        });
+    }
+
+    @Test
+    @DisplayName("Test clocks bound the move time")
+    void testTimeControls() throws IOException {
+        long start = System.nanoTime();
+        List<String> lines = run("go btime 600 wtime 600\n");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(lines.get(lines.size() - 1).startsWith("=== "));
+        assertTrue(millis < 2000, "Took " + millis + " ms");
+        assertEquals(150, EngineProtocol.moveTime(600, 0, 4));
+        assertEquals(20 + 5, EngineProtocol.moveTime(660, 5, 60));
+    }
+}
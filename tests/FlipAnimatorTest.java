@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+class FlipAnimatorTest {
+    private long now = 1_000_000_000L;
+
+    private static int centre(FlipAnimator animator, int row, int col, int color) {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        animator.drawDisc(g2d, row, col, color, 20, 20);
+        g2d.dispose();
+        return image.getRGB(20, 20);
+    }
+
+    @Test
+    @DisplayName("Test a flip narrows the old colour to its edge, then widens the new one")
+    void testFrames() {
+        assertEquals(-FlipAnimator.STEPS, FlipAnimator.frame(0));
+        assertEquals(FlipAnimator.STEPS, FlipAnimator.frame(FlipAnimator.FLIP_NANOS));
+        assertEquals(0, FlipAnimator.frame(FlipAnimator.FLIP_NANOS / 2));
+        int previous = -FlipAnimator.STEPS;
+        for (long t = 0; t <= FlipAnimator.FLIP_NANOS; t += FlipAnimator.FLIP_NANOS / 50) {
+            int frame = FlipAnimator.frame(t);
+            assertTrue(frame >= previous, "frames must only move forward");
+            previous = frame;
+        }
+    }
+
+    @Test
+    @DisplayName("Test only the flipped cells are repainted, and the animation ends on its own")
+    void testAnimatesFlipsOnly() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            List<int[]> repainted = new ArrayList<>();
+            FlipAnimator animator = new FlipAnimator(Color.BLACK, Color.WHITE,
+                    (row, col) -> repainted.add(new int[]{row, col}), () -> now);
+            OthelloModel model = new OthelloModel();
+            int[][] before = model.getBoard();
+            assertTrue(model.makeMove(4, 5, OthelloModel.BLACK)); // f5 flips e5
+            animator.start(before, model.getBoard());
+            assertTrue(animator.isAnimating());
+
+            animator.tick();
+            assertEquals(1, repainted.size());
+            assertArrayEquals(new int[]{4, 4}, repainted.get(0));
+            animator.tick();
+            assertEquals(1, repainted.size(), "an unchanged frame is not repainted");
+
+            assertEquals(Color.WHITE.getRGB(), centre(animator, 4, 4, OthelloModel.BLACK));
+            now += FlipAnimator.FLIP_NANOS / 2;
+            assertEquals(0, centre(animator, 4, 4, OthelloModel.BLACK), "edge-on half way through");
+            now += FlipAnimator.FLIP_NANOS;
+            animator.tick();
+            assertFalse(animator.isAnimating());
+            assertEquals(Color.BLACK.getRGB(), centre(animator, 4, 4, OthelloModel.BLACK));
+            assertTrue(repainted.stream().allMatch(cell -> cell[0] == 4 && cell[1] == 4));
+        });
+    }
+
+    @Test
+    @DisplayName("Test a board changed under the animation is drawn as it is")
+    void testCancelAndStaleFlips() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            FlipAnimator animator = new FlipAnimator(Color.BLACK, Color.WHITE, (row, col) -> { }, () -> now);
+            OthelloModel model = new OthelloModel();
+            int[][] before = model.getBoard();
+            model.makeMove(4, 5, OthelloModel.BLACK);
+            animator.start(before, model.getBoard());
+            // After an undo e5 is white again: no longer the colour being animated to
+            assertEquals(Color.WHITE.getRGB(), centre(animator, 4, 4, OthelloModel.WHITE));
+            animator.cancel();
+            assertFalse(animator.isAnimating());
+            assertEquals(Color.BLACK.getRGB(), centre(animator, 4, 4, OthelloModel.BLACK));
+        });
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+class LookupTablesTest {
+
+    @Test
+    @DisplayName("Test the checked-in resource matches freshly generated tables")
+    void testResourceIsCurrent() throws IOException {
+        Path resource = Path.of("src", LookupTables.RESOURCE);
+        assertTrue(Files.isRegularFile(resource), "Run LookupTables to generate " + resource);
+        long[][] loaded = LookupTables.read(Files.readAllBytes(resource));
+        assertNotNull(loaded, "Resource is from another version; regenerate it");
+        long[][] computed = LookupTables.compute();
+        assertEquals(computed.length, loaded.length);
+        for (int t = 0; t < computed.length; t++) {
+            assertArrayEquals(computed[t], loaded[t]);
+        }
+        assertArrayEquals(computed[0], LookupTables.rays());
+    }
+
+    @Test
+    @DisplayName("Test tables round-trip and truncated or foreign files are rejected")
+    void testReadWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LookupTables.write(LookupTables.compute(), out);
+        byte[] bytes = out.toByteArray();
+        assertArrayEquals(LookupTables.computeRays(), LookupTables.read(bytes)[0]);
+        assertNull(LookupTables.read(java.util.Arrays.copyOf(bytes, bytes.length - 1)));
+        assertNull(LookupTables.read(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}));
+    }
+
+    @Test
+    @DisplayName("Test ray flips agree with walking every direction square by square")
+    void testRayFlips() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 20_000; i++) {
+            long occupied = random.nextLong() & random.nextLong() | random.nextLong() & random.nextLong();
+            long own = occupied & random.nextLong();
+            long opp = occupied & ~own;
+            int sq = random.nextInt(Bitboard.SQUARES);
+            assertEquals(walkFlips(sq, own, opp), Bitboard.flips(sq, own, opp));
+        }
+    }
+
+    private static long walkFlips(int sq, long own, long opp) {
+        if (((own | opp) & (1L << sq)) != 0) {
+            return 0L;
+        }
+        long flipped = 0L;
+        for (int dir = 0; dir < Bitboard.NUM_DIRECTIONS; dir++) {
+            long line = 0L;
+            long x = Bitboard.shift(1L << sq, dir);
+            while ((x & opp) != 0) {
+                line |= x;
+                x = Bitboard.shift(x, dir);
+            }
+            if ((x & own) != 0) {
+                flipped |= line;
+            }
+        }
+        return flipped;
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class MctsEngineTest {
+
+    private MctsEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MctsEngine(2, MctsEngine.DEFAULT_EXPLORATION);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    @DisplayName("Test MCTS returns a legal move")
+    void testChooseMoveIsLegal() {
+        OthelloModel model = new OthelloModel();
+        model.makeMove(2, 3, OthelloModel.BLACK);
+
+        int[] move = engine.chooseMove(model, 50);
+        assertNotNull(move);
+
+        List<int[]> validMoves = model.getValidMoves(OthelloModel.WHITE);
+        boolean isValidMove = false;
+        for (int[] validMove : validMoves) {
+            if (validMove[0] == move[0] && validMove[1] == move[1]) {
+                isValidMove = true;
+                break;
+            }
+        }
+        assertTrue(isValidMove, "MCTS move should be a valid move");
+    }
+
+    @Test
+    @DisplayName("Test playout budget and statistics")
+    void testPlayoutBudget() {
+        MctsEngine.Result result = engine.search(Bitboard.START_BLACK, Bitboard.START_WHITE,
+                OthelloModel.BLACK, 10_000, 2_000);
+        assertEquals(2_000, result.playouts);
+        assertTrue(result.playoutsPerSecond() > 0);
+        assertTrue(result.winRate >= 0.0 && result.winRate <= 1.0);
+    }
+
+    @Test
+    @DisplayName("Test subtree is reused after our move and the reply")
+    void testTreeReuse() {
+        OthelloModel model = new OthelloModel();
+        MctsEngine.Result first = engine.search(model.getBitboard(OthelloModel.BLACK),
+                model.getBitboard(OthelloModel.WHITE), OthelloModel.BLACK, 10_000, 20_000);
+        int[] move = first.toMove();
+        model.makeMove(move[0], move[1], OthelloModel.BLACK);
+        int[] reply = model.getValidMoves(OthelloModel.WHITE).get(0);
+        model.makeMove(reply[0], reply[1], OthelloModel.WHITE);
+
+        MctsEngine.Result second = engine.search(model.getBitboard(OthelloModel.BLACK),
+                model.getBitboard(OthelloModel.WHITE), OthelloModel.BLACK, 10_000, 100);
+        assertTrue(second.reusedVisits > 0, "Previous search statistics should carry over");
+    }
+
+    @Test
+    @DisplayName("Test MCTS passes when there is no move")
+    void testNoMoveReturnsPass() {
+        // Black owns every square, so nobody can move
+        MctsEngine.Result result = engine.search(-1L, 0L, OthelloModel.WHITE, 50, 100);
+        assertEquals(MctsEngine.PASS, result.square);
+        assertNull(result.toMove());
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class ModelProfilerTest {
+
+    @Test
+    @DisplayName("Test nothing is counted when profiling is off")
+    void testOffByDefault() {
+        assertFalse(ModelProfiler.ENABLED);
+        OthelloModel model = new OthelloModel();
+        model.makeMove(2, 3, OthelloModel.BLACK);
+        model.getValidMoves(OthelloModel.WHITE);
+        model.currentPlayerHasNoValidMoves();
+        for (ModelProfiler.Op op : ModelProfiler.Op.values()) {
+            assertEquals(0, ModelProfiler.calls(op));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ModelProfiler.report(new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("-Dothello.profile=true"));
+    }
+
+    @Test
+    @DisplayName("Test a profiled run reports every operation and a row per ply")
+    void testProfiledRun() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-Dothello.profile=true", "-cp",
+                System.getProperty("java.class.path"), "ModelProfiler", "3", "1", "6")
+                .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+
+        for (ModelProfiler.Op op : ModelProfiler.Op.values()) {
+            assertTrue(output.contains(op.label), op.label + " missing from\n" + output);
+        }
+        List<String> lines = output.lines().toList();
+        long makeMoves = Long.parseLong(lines.stream().filter(l -> l.startsWith("makeMove "))
+                .findFirst().orElseThrow().trim().split("\\s+")[1]);
+        // Every move of the three games is charged to the ply it was played from
+        long perPly = lines.stream().filter(l -> l.matches("\\s*\\d+ .*"))
+                .mapToLong(l -> Long.parseLong(l.trim().split("\\s+")[1])).sum();
+        assertEquals(makeMoves, perPly);
+        assertTrue(makeMoves >= 3 * 20);
+    }
+}
@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class NnueTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test incremental accumulators give the same scores as evaluating from scratch")
+    void testIncrementalMatchesScratch() {
+        NnueNetwork network = NnueNetwork.random(16, 3L);
+        NnueEvaluator nnue = new NnueEvaluator(network, 2 * Bitboard.SQUARES);
+        for (long[] line : NnueBenchmark.randomGames(50, 5L)) {
+            for (int i = 0; i < line.length; i += 2) {
+                nnue.enter(i / 2, line[i], line[i + 1]);
+                // Evaluate only some plies, so several moves are caught up at once
+                if (i % 6 == 4 || i == line.length - 2) {
+                    assertEquals(network.evaluate(line[i], line[i + 1]), nnue.evaluate(i / 2));
+                }
+            }
+        }
+        // A position that does not follow from its parent is recomputed
+        nnue.enter(0, Bitboard.START_BLACK, Bitboard.START_WHITE);
+        nnue.enter(1, 0x0000000000FF0000L, 0x00000000FF000000L);
+        assertEquals(network.evaluate(0x0000000000FF0000L, 0x00000000FF000000L), nnue.evaluate(1));
+    }
+
+    @Test
+    @DisplayName("Test the network built from the evaluator scores its square-by-square terms")
+    void testFromEvaluator() {
+        int[][] weights = Evaluator.defaultWeights();
+        weights[1][4] = 0; // no mobility, which the network cannot express
+        Evaluator evaluator = new Evaluator(weights);
+        NnueNetwork network = NnueNetwork.fromEvaluator(evaluator, 1);
+        for (long[] line : NnueBenchmark.randomGames(20, 9L)) {
+            for (int i = 0; i < line.length; i += 2) {
+                if (Evaluator.phase(line[i] | line[i + 1]) == 1) {
+                    int expected = evaluator.evaluate(line[i], line[i + 1]);
+                    int actual = network.evaluate(line[i], line[i + 1]);
+                    // Corners count 31 apiece before the clip at 127, so only rounding separates them
+                    assertTrue(Math.abs(expected - actual) <= 8, expected + " vs " + actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test networks round-trip through their file format and bad files are refused")
+    void testSaveAndLoad() throws IOException {
+        NnueNetwork network = NnueNetwork.random(8, 1L);
+        Path file = tempDir.resolve("net.bin");
+        network.save(file);
+        NnueNetwork loaded = NnueNetwork.load(file);
+        assertEquals(network.hidden, loaded.hidden);
+        assertArrayEquals(network.inputWeights, loaded.inputWeights);
+        assertArrayEquals(network.outputWeights, loaded.outputWeights);
+        Position position = SearchBenchmark.positions(1, 2L)[0];
+        assertEquals(network.evaluate(position.own(), position.opp()), loaded.evaluate(position.own(), position.opp()));
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertThrows(IOException.class, () -> NnueNetwork.read(new ByteArrayInputStream(
+                java.util.Arrays.copyOf(bytes, bytes.length - 3))));
+        bytes[0] = 'X';
+        assertThrows(IOException.class, () -> NnueNetwork.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    @DisplayName("Test search with the network agrees with scoring every leaf from scratch")
+    void testSearchWithNnue() {
+        NnueNetwork network = NnueNetwork.random(16, 7L);
+        Position position = SearchBenchmark.positions(1, 4L)[0];
+        SearchEngine engine = new SearchEngine(new Evaluator());
+        engine.setNnue(network);
+        SearchEngine.Result result = engine.search(position.own(), position.opp(), 4);
+        assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << result.square)) != 0);
+        assertEquals(minimax(network, position.own(), position.opp(), 4), result.score);
+    }
+
+    // Plain minimax with every leaf scored from scratch
+    private static int minimax(NnueNetwork network, long own, long opp, int depth) {
+        long moves = Bitboard.moves(own, opp);
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        if (depth == 0 || (moves == 0 && Bitboard.moves(opp, own) == 0)) {
+            if (empties == 0 || moves == 0 && Bitboard.moves(opp, own) == 0) {
+                return SearchEngine.finalScore(own, opp);
+            }
+            return network.evaluate(own, opp);
+        }
+        if (moves == 0) {
+            return -minimax(network, opp, own, depth);
+        }
+        int best = -SearchEngine.INFINITY;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(sq, own, opp);
+            best = Math.max(best, -minimax(network, opp & ~flipped, own | flipped | (1L << sq), depth - 1));
+        }
+        return best;
+    }
+}
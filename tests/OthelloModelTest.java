@@ -4,6 +4,8 @@ import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 // import java.io.File;
 // import java.io.IOException;
 // import java.nio.file.Files;
@@ -728,4 +730,200 @@ class OthelloModelTest {
         // If we didn't find a "no valid moves" situation, that's also valid
         // The test passes as long as the method works correctly
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test configurable board sizes")
+    void testConfigurableBoardSizes() {
+        for (int size : new int[]{4, 6, 10, 16}) {
+            OthelloModel sized = new OthelloModel(size);
+            int[][] board = sized.getBoard();
+            assertEquals(size, sized.getBoardSize());
+            assertEquals(size, board.length);
+
+            // Starting discs sit around the centre of the board
+            int c = size / 2;
+            assertEquals(OthelloModel.WHITE, board[c - 1][c - 1]);
+            assertEquals(OthelloModel.BLACK, board[c - 1][c]);
+            assertEquals(OthelloModel.BLACK, board[c][c - 1]);
+            assertEquals(OthelloModel.WHITE, board[c][c]);
+            assertEquals(4, sized.getValidMoves(OthelloModel.BLACK).size());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new OthelloModel(7));
+        assertThrows(IllegalArgumentException.class, () -> new OthelloModel(2));
+        assertThrows(IllegalArgumentException.class, () -> new OthelloModel(18));
+    }
+
+    @Test
+    @DisplayName("Test bitboard engine matches array engine on 8x8")
+    void testBitboardEngineMatchesArrayEngine() {
+        java.util.Random random = new java.util.Random(42);
+        for (int game = 0; game < 50; game++) {
+            BoardEngine bits = new BitboardEngine();
+            BoardEngine array = new ArrayBoardEngine(8);
+            for (BoardEngine engine : new BoardEngine[]{bits, array}) {
+                engine.set(3, 3, OthelloModel.WHITE);
+                engine.set(3, 4, OthelloModel.BLACK);
+                engine.set(4, 3, OthelloModel.BLACK);
+                engine.set(4, 4, OthelloModel.WHITE);
+            }
+
+            int player = OthelloModel.BLACK;
+            for (int passes = 0; passes < 2; ) {
+                List<int[]> bitMoves = new java.util.ArrayList<>();
+                List<int[]> arrayMoves = new java.util.ArrayList<>();
+                bits.collectValidMoves(player, bitMoves);
+                array.collectValidMoves(player, arrayMoves);
+                assertEquals(arrayMoves.size(), bitMoves.size());
+                for (int i = 0; i < bitMoves.size(); i++) {
+                    assertArrayEquals(arrayMoves.get(i), bitMoves.get(i));
+                }
+
+                if (bitMoves.isEmpty()) {
+                    passes++;
+                } else {
+                    passes = 0;
+                    int[] move = bitMoves.get(random.nextInt(bitMoves.size()));
+                    assertEquals(array.countFlips(move[0], move[1], player),
+                            bits.countFlips(move[0], move[1], player));
+                    bits.applyMove(move[0], move[1], player);
+                    array.applyMove(move[0], move[1], player);
+                }
+                player = OthelloModel.opponentOf(player);
+            }
+
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    assertEquals(array.get(row, col), bits.get(row, col));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test undo and redo restore positions")
+    void testUndoRedo() {
+        assertFalse(model.canUndo());
+        Position start = model.getPosition();
+        assertEquals(Position.START, start);
+
+        model.makeMove(2, 3, OthelloModel.BLACK);
+        Position afterBlack = model.getPosition();
+        model.makeMove(2, 2, OthelloModel.WHITE);
+        assertEquals(2, model.getPly());
+
+        assertTrue(model.undo());
+        assertEquals(afterBlack, model.getPosition());
+        assertEquals(OthelloModel.WHITE, model.getCurrentPlayer());
+        assertTrue(model.undo());
+        assertEquals(start, model.getPosition());
+        assertFalse(model.undo());
+
+        assertTrue(model.redo());
+        assertTrue(model.redo());
+        assertFalse(model.redo());
+        assertEquals(2, model.getPly());
+        assertEquals(OthelloModel.WHITE, model.getBoard()[2][2]);
+    }
+
+    @Test
+    @DisplayName("Test jump to ply and branching variations")
+    void testJumpToPlyAndVariations() {
+        model.makeMove(2, 3, OthelloModel.BLACK);
+        model.makeMove(2, 2, OthelloModel.WHITE);
+        model.makeMove(3, 2, OthelloModel.BLACK);
+        assertEquals(3, model.getHistoryLength());
+
+        model.jumpToPly(1);
+        assertEquals(OthelloModel.WHITE, model.getCurrentPlayer());
+        assertEquals(3, model.getHistoryLength(), "Jumping back keeps the redo line");
+
+        // A different reply starts a new variation and drops the old redo line
+        model.makeMove(4, 2, OthelloModel.WHITE);
+        assertEquals(2, model.getHistoryLength());
+        model.undo();
+        assertEquals(2, model.getVariations().size());
+
+        // Replaying the original reply restores its continuation
+        model.makeMove(2, 2, OthelloModel.WHITE);
+        assertEquals(3, model.getHistoryLength());
+        assertTrue(model.canRedo());
+        assertEquals(2, model.getMoveHistory().size());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> model.jumpToPly(4));
+    }
+
+    @Test
+    @DisplayName("Test snapshots stay unchanged after later moves")
+    void testSnapshotIsImmutable() {
+        BoardSnapshot before = model.snapshot();
+        assertTrue(model.makeMove(2, 3, OthelloModel.BLACK));
+        assertArrayEquals(new int[]{2, 2}, before.getScore());
+        assertEquals(OthelloModel.BLACK, before.getCurrentPlayer());
+        assertEquals(OthelloModel.EMPTY, before.get(2, 3));
+        assertEquals(4, before.getValidMoves(OthelloModel.BLACK).size());
+
+        BoardSnapshot after = model.snapshot();
+        assertNotSame(before, after);
+        assertArrayEquals(new int[]{4, 1}, after.getScore());
+        assertEquals(OthelloModel.WHITE, after.getCurrentPlayer());
+
+        // Callers cannot corrupt the snapshot's cached moves
+        after.getValidMoves(OthelloModel.WHITE).get(0)[0] = -1;
+        assertTrue(after.getValidMoves(OthelloModel.WHITE).get(0)[0] >= 0);
+    }
+
+    @Test
+    @DisplayName("Test readers on other threads always see a consistent board while the game is played")
+    void testConcurrentReaders() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    BoardSnapshot snapshot = model.snapshot();
+                    int[][] board = snapshot.getBoard();
+                    int[] counts = new int[3];
+                    for (int[] row : board) {
+                        for (int cell : row) {
+                            counts[cell]++;
+                        }
+                    }
+                    int[] score = snapshot.getScore();
+                    if (counts[OthelloModel.BLACK] != score[0] || counts[OthelloModel.WHITE] != score[1]) {
+                        failure.set("Score " + score[0] + "-" + score[1] + " does not match the board");
+                    }
+                    for (int[] move : snapshot.getValidMoves(snapshot.getCurrentPlayer())) {
+                        if (board[move[0]][move[1]] != OthelloModel.EMPTY) {
+                            failure.set("Legal move on an occupied square");
+                        }
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        try {
+            // Play greedy games, stepping back and forth through each one
+            for (int game = 0; game < 20 && failure.get() == null; game++) {
+                while (!model.isGameOver()) {
+                    int[] move = model.getGreedyMove(model.getCurrentPlayer());
+                    assertTrue(model.makeMove(move[0], move[1], model.getCurrentPlayer()));
+                }
+                while (model.undo()) {
+                    assertTrue(model.getPly() >= 0);
+                }
+                while (model.redo()) {
+                    assertTrue(model.getPly() <= model.getHistoryLength());
+                }
+                model.jumpToPly(0);
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        assertNull(failure.get(), failure.get());
+    }
+}
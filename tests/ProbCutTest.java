@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+class ProbCutTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test check depths keep parity and stay below the deep depth")
+    void testCheckDepths() {
+        assertEquals(0, ProbCut.checkDepths(2).length);
+        for (int d = ProbCut.MIN_DEPTH; d <= ProbCut.MAX_DEPTH + 4; d++) {
+            int[] checks = ProbCut.checkDepths(d);
+            assertTrue(checks.length > 0);
+            for (int s : checks) {
+                assertTrue(s < d);
+                assertEquals(0, (d - s) & 1, "Shallow depth " + s + " for " + d + " changes parity");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test deep checks past the fitted range reuse fitted parameters of the same parity")
+    void testParametersPastFittedRange() {
+        ProbCut probCut = ProbCut.defaultProbCut();
+        for (int phase = 0; phase < Evaluator.PHASES; phase++) {
+            for (int d = ProbCut.MIN_DEPTH; d < Bitboard.SQUARES; d++) {
+                for (int s : ProbCut.checkDepths(d)) {
+                    double[] p = probCut.parameters(phase, d, s);
+                    assertNotNull(p, "no parameters for depth " + d + " checked at " + s);
+                    assertEquals(3, p.length);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test selective search returns a legal move and visits fewer nodes")
+    void testSelectiveSearch() {
+        Position position = SearchBenchmark.positions(1, 3L)[0];
+        SearchEngine plain = new SearchEngine(new Evaluator());
+        SearchEngine selective = new SearchEngine(new Evaluator());
+        selective.setProbCut(new ProbCut().withConfidence(1.0));
+
+        SearchEngine.Result full = plain.search(position.own(), position.opp(), 7);
+        SearchEngine.Result cut = selective.search(position.own(), position.opp(), 7);
+        assertEquals(7, cut.depth);
+        assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << cut.square)) != 0);
+        assertTrue(cut.nodes < full.nodes, cut.nodes + " selective nodes vs " + full.nodes);
+    }
+
+    @Test
+    @DisplayName("Test ProbCut never changes endgame solving")
+    void testEndgameUnpruned() {
+        // Fill everything but the first and last rows to get a small endgame
+        Position midgame = SearchBenchmark.positions(1, 9L)[0];
+        long empty = ~(midgame.own() | midgame.opp());
+        long own = midgame.own() | (empty & 0x00FFFFFFFFFFFF00L);
+        long opp = midgame.opp();
+        int empties = Bitboard.SQUARES - Long.bitCount(own | opp);
+        assertTrue(empties <= 16);
+
+        SearchEngine plain = new SearchEngine(new Evaluator());
+        SearchEngine selective = new SearchEngine(new Evaluator());
+        selective.setProbCut(new ProbCut().withConfidence(0.5));
+        assertEquals(plain.search(opp, own, empties).score, selective.search(opp, own, empties).score);
+    }
+
+    @Test
+    @DisplayName("Test fitted parameters round-trip through the parameters file")
+    void testFitAndLoad() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SelfPlayGenerator(1, 8, 2).generate(40, 13L, out);
+
+        ProbCutTrainer.Fit fit = new ProbCutTrainer(4, 4, 2, new Evaluator())
+                .fit(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(fit.samples > 0);
+        double[] params = fit.probCut.parameters(1, 4, 2);
+        assertNotNull(params);
+        assertTrue(params[0] > 0 && params[2] >= 0);
+
+        Path file = tempDir.resolve("probcut.properties");
+        fit.probCut.withConfidence(2.0).save(file, "test");
+        ProbCut loaded = ProbCut.load(file);
+        assertEquals(2.0, loaded.getConfidence());
+        assertArrayEquals(params, loaded.parameters(1, 4, 2));
+    }
+}
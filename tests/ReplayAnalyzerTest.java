@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ReplayAnalyzerTest {
+
+    private static final String OPENING = "f5 d6 c3 d3 c4 f4 f6 f3 e6 e7";
+
+    @Test
+    @DisplayName("Test game record keeps every ply")
+    void testGameRecordParse() {
+        GameRecord record = GameRecord.parse(OPENING);
+        assertEquals(10, record.plies());
+        assertEquals(11, record.getPositions().size());
+        assertEquals(Position.START, record.getPositions().get(0));
+        assertEquals("f5d6c3d3c4f4f6f3e6e7", record.toString());
+
+        OthelloModel model = record.toModel();
+        assertEquals(10, model.getPly());
+        assertEquals(record.getPositions().get(10), model.getPosition());
+        assertEquals(record.toString(), GameRecord.of(model).toString());
+    }
+
+    @Test
+    @DisplayName("Test illegal transcripts are rejected")
+    void testGameRecordRejectsIllegalMoves() {
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.parse("a1"));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.parse("f5z9"));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.parse("f5d"));
+    }
+
+    @Test
+    @DisplayName("Test every ply gets analysed")
+    void testAllPliesAnalysed() throws InterruptedException {
+        GameRecord record = GameRecord.parse(OPENING);
+        CountDownLatch latch = new CountDownLatch(record.getPositions().size());
+        try (ReplayAnalyzer analyzer = new ReplayAnalyzer(record.getPositions(), 3, 2)) {
+            analyzer.start((ply, score) -> latch.countDown());
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertTrue(analyzer.isDone());
+            for (int ply = 0; ply <= record.plies(); ply++) {
+                assertNotEquals(ReplayAnalyzer.UNKNOWN, analyzer.getScore(ply));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class SearchEngineTest {
+
+    private SearchEngine engine;
+    private Position position;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SearchEngine(new Evaluator());
+        position = GameRecord.parse("f5d6c3d3c4f4f6f3e6e7").getPositions().get(10);
+    }
+
+    @Test
+    @DisplayName("Test search returns a legal move at the requested depth")
+    void testSearchReturnsLegalMove() {
+        SearchEngine.Result result = engine.search(position.own(), position.opp(), 5);
+        assertEquals(5, result.depth);
+        assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << result.square)) != 0);
+        assertTrue(result.nodes > 0);
+    }
+
+    @Test
+    @DisplayName("Test multi-PV top move agrees with single-PV search")
+    void testMultiPvMatchesSearch() {
+        SearchEngine.Result single = engine.search(position.own(), position.opp(), 5);
+        List<SearchEngine.RootMove> top = engine.searchMultiPv(position.own(), position.opp(), 5, 3, null);
+
+        assertEquals(Long.bitCount(Bitboard.moves(position.own(), position.opp())), top.size());
+        assertEquals(single.score, top.get(0).score);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(top.get(i).exact, "Top three should be exact");
+        }
+        for (int i = 1; i < top.size(); i++) {
+            if (top.get(i).exact) {
+                assertTrue(top.get(i - 1).score >= top.get(i).score, "Exact moves are sorted best first");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test multi-PV scores every move exactly when k covers all moves")
+    void testMultiPvAllMovesExact() {
+        int count = Long.bitCount(Bitboard.moves(position.own(), position.opp()));
+        List<Integer> depths = new ArrayList<>();
+        List<SearchEngine.RootMove> all = engine.searchMultiPv(position.own(), position.opp(), 4, count,
+                (depth, moves) -> depths.add(depth));
+
+        assertEquals(List.of(1, 2, 3, 4), depths, "Listener fires once per completed depth");
+        List<SearchEngine.RootMove> top1 = engine.searchMultiPv(position.own(), position.opp(), 4, 1, null);
+        for (SearchEngine.RootMove move : all) {
+            assertTrue(move.exact);
+        }
+        assertEquals(all.get(0).score, top1.get(0).score);
+    }
+
+    @Test
+    @DisplayName("Test a stopped search keeps its last completed depth")
+    void testStop() throws InterruptedException {
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            engine.stop();
+        });
+        stopper.start();
+        SearchEngine.Result result = engine.search(position.own(), position.opp(), 40);
+        stopper.join();
+        assertTrue(result.depth < 40);
+        assertTrue(result.square >= 0);
+    }
+
+    @Test
+    @DisplayName("Test PVS with aspiration windows matches full-window scores with fewer nodes")
+    void testPvsMatchesFullWindow() {
+        SearchEngine fullWindow = new SearchEngine(new Evaluator());
+        fullWindow.setPrincipalVariationSearch(false);
+        long fullNodes = 0;
+        long pvsNodes = 0;
+        for (Position suitePosition : SearchBenchmark.positions(6, 21L)) {
+            SearchEngine.Result full = fullWindow.search(suitePosition.own(), suitePosition.opp(), 6);
+            SearchEngine.Result pvs = engine.search(suitePosition.own(), suitePosition.opp(), 6);
+            assertEquals(full.score, pvs.score);
+            fullNodes += full.nodes;
+            pvsNodes += pvs.nodes;
+        }
+        assertTrue(pvsNodes < fullNodes, pvsNodes + " PVS nodes vs " + fullNodes);
+    }
+
+    @Test
+    @DisplayName("Test principal variation is a legal line starting with the best move")
+    void testPrincipalVariation() {
+        SearchEngine.Result result = engine.search(position.own(), position.opp(), 6);
+        int[] pv = result.getPrincipalVariation();
+        assertEquals(result.square, pv[0]);
+        assertTrue(pv.length >= 6);
+
+        long own = position.own();
+        long opp = position.opp();
+        for (int sq : pv) {
+            if (sq == SearchEngine.PASS) {
+                assertEquals(0L, Bitboard.moves(own, opp));
+            } else {
+                assertTrue((Bitboard.moves(own, opp) & (1L << sq)) != 0, "Illegal PV move " + Bitboard.squareName(sq));
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+            }
+            long tmp = own;
+            own = opp;
+            opp = tmp;
+        }
+        // Playing out the line and evaluating reproduces the score
+        int sign = pv.length % 2 == 0 ? 1 : -1;
+        assertEquals(result.score, sign * new Evaluator().evaluate(own, opp));
+        assertEquals(pv.length, result.principalVariation().split(" ").length);
+    }
+
+    @Test
+    @DisplayName("Test node budgets give the same move every time")
+    void testNodeBudget() {
+        engine.setLimits(100_000, 0);
+        SearchEngine.Result first = engine.search(position.own(), position.opp(), Bitboard.SQUARES);
+        SearchEngine.Result second = engine.search(position.own(), position.opp(), Bitboard.SQUARES);
+        assertTrue(first.nodes <= 100_000);
+        assertTrue(first.depth > 2 && first.depth < Bitboard.SQUARES);
+        assertEquals(first.square, second.square);
+        assertEquals(first.depth, second.depth);
+        assertEquals(first.nodes, second.nodes);
+
+        engine.setLimits(1_000, 0);
+        assertTrue(engine.search(position.own(), position.opp(), Bitboard.SQUARES).depth < first.depth);
+    }
+
+    @Test
+    @DisplayName("Test time budgets stop the search on time")
+    void testTimeBudget() {
+        engine.setLimits(0, 200);
+        long start = System.nanoTime();
+        SearchEngine.Result result = engine.search(position.own(), position.opp(), Bitboard.SQUARES);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 1000, "Took " + millis + " ms");
+        assertTrue(result.square >= 0);
+        assertThrows(IllegalArgumentException.class, () -> engine.setLimits(-1, 0));
+    }
+
+    @Test
+    @DisplayName("Test difficulty names parse")
+    void testDifficultyParse() {
+        assertEquals(Difficulty.MONTE_CARLO, Difficulty.parse("monte-carlo"));
+        assertEquals(Difficulty.HARD, Difficulty.parse(" Hard "));
+        assertThrows(IllegalArgumentException.class, () -> Difficulty.parse("impossible"));
+        assertEquals(10_000_000, Difficulty.HARD.getNodes());
+    }
+}
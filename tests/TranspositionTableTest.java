@@ -0,0 +1,250 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TranspositionTableTest {
+
+    /** Maps a table in a child JVM: exits 0 if it opened, else prints why and exits 1. */
+    static class MapInChild {
+        public static void main(String[] args) {
+            try {
+                TranspositionTable.map(Paths.get(args[0]), Long.parseLong(args[1]), Long.parseLong(args[2])).close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test stored entries read back with every field intact")
+    void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1 << 16, true);
+        assertEquals(4096, table.capacity());
+        assertTrue(table.isOffHeap());
+        table.newSearch();
+
+        table.store(Bitboard.START_BLACK, Bitboard.START_WHITE, 7, -1234, TranspositionTable.UPPER, 37);
+        long entry = table.probe(Bitboard.START_BLACK, Bitboard.START_WHITE);
+        assertNotEquals(0L, entry);
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+        assertEquals(37, TranspositionTable.move(entry));
+
+        assertEquals(0L, table.probe(Bitboard.START_WHITE, Bitboard.START_BLACK), "Side to move is part of the key");
+        table.clear();
+        assertEquals(0L, table.probe(Bitboard.START_BLACK, Bitboard.START_WHITE));
+    }
+
+    @Test
+    @DisplayName("Test a shallower entry does not replace a deeper one from the same search")
+    void testReplacement() {
+        TranspositionTable table = new TranspositionTable(TranspositionTable.ENTRY_BYTES, false);
+        assertEquals(1, table.capacity());
+        table.store(1L, 2L, 9, 50, TranspositionTable.EXACT, 10);
+        table.store(3L, 4L, 2, 60, TranspositionTable.EXACT, 11);
+        assertEquals(9, TranspositionTable.depth(table.probe(1L, 2L)));
+        assertEquals(0L, table.probe(3L, 4L));
+
+        table.newSearch();
+        table.store(3L, 4L, 2, 60, TranspositionTable.EXACT, 11);
+        assertEquals(60, TranspositionTable.score(table.probe(3L, 4L)));
+        assertEquals(0L, table.probe(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Test concurrent writers never produce an entry for the wrong position")
+    void testConcurrentWrites() throws InterruptedException {
+        // A tiny table so that threads keep overwriting the same slots
+        TranspositionTable table = new TranspositionTable(64 * TranspositionTable.ENTRY_BYTES, true);
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    // The score is a function of the position, so any hit can be checked
+                    long own = random.nextInt(1024);
+                    long opp = 1L << 40 | random.nextInt(1024);
+                    int expected = (int) (own * 31 + opp);
+                    if (random.nextBoolean()) {
+                        table.store(own, opp, (int) (own & 15), expected, TranspositionTable.EXACT, (int) (opp & 63));
+                    } else {
+                        long entry = table.probe(own, opp);
+                        if (entry != 0 && (TranspositionTable.score(entry) != expected
+                                || TranspositionTable.move(entry) != (opp & 63))) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    @DisplayName("Test fixed-depth search gives the same score in fewer nodes with a table")
+    void testSearchWithTable() {
+        Position[] suite = SearchBenchmark.positions(4, 5L);
+        SearchEngine plain = new SearchEngine(new Evaluator());
+        SearchEngine hashed = new SearchEngine(new Evaluator());
+        hashed.setTranspositionTable(TranspositionTable.ofMegabytes(4));
+        long plainNodes = 0;
+        long hashedNodes = 0;
+        for (Position position : suite) {
+            hashed.clearTranspositionTable();
+            SearchEngine.Result expected = plain.search(position.own(), position.opp(), 6);
+            SearchEngine.Result result = hashed.search(position.own(), position.opp(), 6);
+            assertEquals(expected.score, result.score, position.toString());
+            assertTrue((Bitboard.moves(position.own(), position.opp()) & (1L << result.square)) != 0);
+            assertEquals(result.square, result.getPrincipalVariation()[0]);
+            plainNodes += expected.nodes;
+            hashedNodes += result.nodes;
+        }
+        assertTrue(hashedNodes < plainNodes, hashedNodes + " nodes with a table vs " + plainNodes);
+    }
+
+    @Test
+    @DisplayName("Test a mapped table keeps its entries across reopening and shares them between mappings")
+    void testMappedTable() throws IOException {
+        Path file = tempDir.resolve("cache.tt");
+        TranspositionTable first = TranspositionTable.map(file, 1 << 16, 42L);
+        assertTrue(first.isPersistent());
+        first.store(5L, 6L, 12, 300, TranspositionTable.LOWER, 19);
+
+        TranspositionTable second = TranspositionTable.map(file, 1 << 16, 42L);
+        assertEquals(300, TranspositionTable.score(second.probe(5L, 6L)), "Same file, same version");
+        second.store(7L, 8L, 3, -20, TranspositionTable.EXACT, 1);
+        assertEquals(-20, TranspositionTable.score(first.probe(7L, 8L)), "Writes are seen by other mappings");
+        first.flush();
+        assertEquals(64 + (1 << 16), Files.size(file));
+
+        first.close();
+        second.close();
+
+        TranspositionTable otherVersion = TranspositionTable.map(file, 1 << 16, 43L);
+        assertEquals(0L, otherVersion.probe(5L, 6L), "A new version starts empty");
+        otherVersion.close();
+        TranspositionTable otherSize = TranspositionTable.map(file, 1 << 17, 43L);
+        assertEquals(0L, otherSize.probe(7L, 8L));
+        assertEquals(64 + (1 << 17), Files.size(file));
+        otherSize.close();
+    }
+
+    @Test
+    @DisplayName("Test a mapped file in use is never emptied for another size or version")
+    void testMappedFileInUse() throws IOException {
+        Path file = tempDir.resolve("busy.tt");
+        TranspositionTable table = TranspositionTable.map(file, 1 << 16, 42L);
+        table.store(5L, 6L, 12, 300, TranspositionTable.LOWER, 19);
+        assertThrows(IOException.class, () -> TranspositionTable.map(file, 1 << 17, 42L));
+        assertThrows(IOException.class, () -> TranspositionTable.map(file, 1 << 16, 43L));
+        assertEquals(64 + (1 << 16), Files.size(file));
+        assertEquals(300, TranspositionTable.score(table.probe(5L, 6L)), "The live mapping is untouched");
+        table.close();
+        table.close(); // closing twice is harmless
+        TranspositionTable.map(file, 1 << 17, 42L).close();
+        assertEquals(64 + (1 << 17), Files.size(file));
+    }
+
+    @Test
+    @DisplayName("Test another process with the cache mapped keeps it from being emptied")
+    void testMappedFileInUseByAnotherProcess() throws Exception {
+        Path file = tempDir.resolve("shared.tt");
+        TranspositionTable table = TranspositionTable.map(file, 1 << 16, 42L);
+        table.store(5L, 6L, 12, 300, TranspositionTable.LOWER, 19);
+        table.flush();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MapInChild.class.getName(), file.toString(), String.valueOf(1 << 17), "42")
+                .redirectErrorStream(true).start();
+        String output = new String(child.getInputStream().readAllBytes());
+        assertEquals(1, child.waitFor(), output);
+        assertTrue(output.contains("in use"), output);
+        assertEquals(64 + (1 << 16), Files.size(file));
+        assertEquals(300, TranspositionTable.score(table.probe(5L, 6L)));
+        table.close();
+    }
+
+    @Test
+    @DisplayName("Test a mapped table evicts shallow entries first, even from earlier searches")
+    void testPersistentReplacement() throws IOException {
+        TranspositionTable table = TranspositionTable.map(tempDir.resolve("one.tt"), TranspositionTable.ENTRY_BYTES, 1L);
+        table.store(1L, 2L, 9, 50, TranspositionTable.EXACT, 10);
+        table.newSearch();
+        table.store(3L, 4L, 2, 60, TranspositionTable.EXACT, 11);
+        assertEquals(9, TranspositionTable.depth(table.probe(1L, 2L)));
+        table.store(3L, 4L, 9, 70, TranspositionTable.EXACT, 11);
+        assertEquals(70, TranspositionTable.score(table.probe(3L, 4L)));
+        table.newSearch();
+        table.store(3L, 4L, 1, 80, TranspositionTable.EXACT, 12);
+        assertEquals(70, TranspositionTable.score(table.probe(3L, 4L)), "A shallower result for the same position");
+    }
+
+    @Test
+    @DisplayName("Test engines sharing a table leave its age to the owner, so they keep each other's entries")
+    void testSharedTableAge() {
+        Position position = SearchBenchmark.positions(1, 3L)[0];
+        TranspositionTable table = new TranspositionTable(TranspositionTable.ENTRY_BYTES, true);
+        table.store(1L, 2L, 9, 50, TranspositionTable.EXACT, 10);
+        SearchEngine sharing = new SearchEngine(new Evaluator());
+        sharing.shareTranspositionTable(table);
+        sharing.search(position.own(), position.opp(), 2);
+        assertEquals(9, TranspositionTable.depth(table.probe(1L, 2L)), "a sibling's deep entry survives");
+
+        SearchEngine owning = new SearchEngine(new Evaluator());
+        owning.setTranspositionTable(table);
+        owning.search(position.own(), position.opp(), 2);
+        assertEquals(0L, table.probe(1L, 2L), "an owner's new search ages it out");
+    }
+
+    @Test
+    @DisplayName("Test a cache written by ProbCut searches is kept apart from full-width ones")
+    void testProbCutCacheVersion() throws IOException {
+        Path file = tempDir.resolve("probcut.tt");
+        TranspositionTable pruned = TranspositionTable.mapCache(file, 1, ProbCut.defaultProbCut());
+        pruned.store(5L, 6L, 12, 300, TranspositionTable.EXACT, 19);
+        pruned.close();
+        TranspositionTable fullWidth = TranspositionTable.mapCache(file, 1);
+        assertEquals(0L, fullWidth.probe(5L, 6L));
+        fullWidth.close();
+        assertNotEquals(ProbCut.defaultProbCut().fingerprint(),
+                ProbCut.defaultProbCut().withConfidence(2.0).fingerprint());
+    }
+
+    @Test
+    @DisplayName("Test a reopened cache makes the same search cheaper")
+    void testWarmStart() throws IOException {
+        Path file = tempDir.resolve("warm.tt");
+        Position position = SearchBenchmark.positions(1, 7L)[0];
+        long version = new Evaluator().fingerprint();
+
+        SearchEngine cold = new SearchEngine(new Evaluator());
+        cold.setTranspositionTable(TranspositionTable.map(file, 1 << 22, version));
+        SearchEngine.Result first = cold.search(position.own(), position.opp(), 7);
+
+        SearchEngine warm = new SearchEngine(new Evaluator());
+        warm.setTranspositionTable(TranspositionTable.map(file, 1 << 22, version));
+        assertTrue(warm.hasPersistentTable());
+        SearchEngine.Result second = warm.search(position.own(), position.opp(), 7);
+        assertEquals(first.score, second.score);
+        assertTrue(second.nodes < first.nodes / 2, second.nodes + " warm nodes vs " + first.nodes);
+    }
+}
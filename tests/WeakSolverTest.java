@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+class WeakSolverTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Plain minimax on the final disc difference, with no pruning or table. */
+    private static int minimax(long own, long opp, long mask) {
+        long moves = Bitboard.moves(own, opp) & mask;
+        if (moves == 0) {
+            if ((Bitboard.moves(opp, own) & mask) == 0) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -minimax(opp, own, mask);
+        }
+        int best = -Bitboard.SQUARES;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(sq, own, opp);
+            best = Math.max(best, -minimax(opp & ~flipped, own | flipped | (1L << sq), mask));
+        }
+        return best;
+    }
+
+    /** {own, opp} after random moves on the board until the given number of empties remain. */
+    private static long[] randomPosition(int size, int empties, SplittableRandom random) {
+        long mask = WeakSolver.mask(size);
+        long[] start = WeakSolver.start(size);
+        long own = start[0];
+        long opp = start[1];
+        while (Long.bitCount(mask & ~(own | opp)) > empties) {
+            long moves = Bitboard.moves(own, opp) & mask;
+            if (moves == 0) {
+                if ((Bitboard.moves(opp, own) & mask) == 0) {
+                    return randomPosition(size, empties, random); // ended early: try another game
+                }
+            } else {
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0; k--) {
+                    moves &= moves - 1;
+                }
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flipped = Bitboard.flips(sq, own, opp);
+                own |= flipped | (1L << sq);
+                opp &= ~flipped;
+            }
+            long swap = own;
+            own = opp;
+            opp = swap;
+        }
+        return new long[]{own, opp};
+    }
+
+    @Test
+    @DisplayName("Test the start position matches the model's for the same board size")
+    void testStartMatchesModel() {
+        for (int size = 4; size <= 8; size += 2) {
+            assertArrayEquals(WeakSolver.start(size), WeakSolver.fromModel(new OthelloModel(size)));
+        }
+        assertArrayEquals(new long[]{Bitboard.START_BLACK, Bitboard.START_WHITE}, WeakSolver.start(8));
+    }
+
+    @Test
+    @DisplayName("Test 4x4 Othello is a loss for Black, as full minimax shows")
+    void testSolves4x4() throws IOException {
+        long[] start = WeakSolver.start(4);
+        assertTrue(minimax(start[0], start[1], WeakSolver.mask(4)) < 0);
+        WeakSolver solver = new WeakSolver(4, TranspositionTable.ofMegabytes(1));
+        assertEquals(WeakSolver.LOSS, solver.solveRoot(start[0], start[1], null));
+        assertEquals(WeakSolver.LOSS, solver.solve(start[0], start[1]));
+    }
+
+    @Test
+    @DisplayName("Test 6x6 endgames get the win, draw or loss that full minimax gives")
+    void testMatchesMinimax() {
+        SplittableRandom random = new SplittableRandom(11);
+        long mask = WeakSolver.mask(6);
+        WeakSolver solver = new WeakSolver(6, TranspositionTable.ofMegabytes(4));
+        for (int i = 0; i < 20; i++) {
+            long[] position = randomPosition(6, 9, random);
+            int expected = Integer.signum(minimax(position[0], position[1], mask));
+            assertEquals(expected, solver.solve(position[0], position[1]));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a table mapped from a file keeps its proofs for the next run")
+    void testMappedTableResumes() throws IOException {
+        long[] position = randomPosition(6, 16, new SplittableRandom(4));
+        Path file = tempDir.resolve("weak.tt");
+        WeakSolver first = new WeakSolver(6, TranspositionTable.map(file, 1 << 20, 6));
+        int result = first.solve(position[0], position[1]);
+        WeakSolver second = new WeakSolver(6, TranspositionTable.map(file, 1 << 20, 6));
+        assertEquals(result, second.solve(position[0], position[1]));
+        assertTrue(second.getProvenNodes() < first.getProvenNodes());
+    }
+
+    @Test
+    @DisplayName("Test a rerun takes finished root moves from the checkpoint")
+    void testCheckpoint() throws IOException {
+        long[] start = WeakSolver.start(4);
+        Path checkpoint = tempDir.resolve("weak.ckpt");
+        WeakSolver solver = new WeakSolver(4, TranspositionTable.ofMegabytes(1));
+        assertEquals(WeakSolver.LOSS, solver.solveRoot(start[0], start[1], checkpoint));
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size()); // one root move; the other three mirror it
+
+        // A doctored result is trusted rather than proved again
+        String move = lines.get(1).split(" ")[0];
+        Files.write(checkpoint, List.of(lines.get(0), move + " win"), StandardCharsets.UTF_8);
+        assertEquals(WeakSolver.WIN, new WeakSolver(4, TranspositionTable.ofMegabytes(1))
+                .solveRoot(start[0], start[1], checkpoint));
+
+        long[] other = WeakSolver.start(6);
+        assertThrows(IOException.class, () -> new WeakSolver(4, TranspositionTable.ofMegabytes(1))
+                .solveRoot(other[0], other[1], checkpoint));
+    }
+}
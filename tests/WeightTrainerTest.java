@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+class WeightTrainerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test self-play writes fixed-size labelled records")
+    void testSelfPlayRecords() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long positions = new SelfPlayGenerator(1, 6, 2).generate(20, 7L, out);
+
+        assertTrue(positions > 20 * 30, "Each game should contribute most of its plies");
+        assertEquals(positions * SelfPlayGenerator.RECORD_BYTES, out.size());
+    }
+
+    @Test
+    @DisplayName("Test fitted weights round-trip through the weights file")
+    void testFitAndLoadWeights() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SelfPlayGenerator(1, 8, 2).generate(200, 11L, out);
+
+        WeightTrainer.Fit fit = new WeightTrainer(2).fit(new ByteArrayInputStream(out.toByteArray()), new Evaluator());
+        assertTrue(fit.samples > 0);
+        assertTrue(fit.rmsError > 0);
+
+        Path file = tempDir.resolve("weights.properties");
+        fit.evaluator.save(file, "test");
+        Evaluator loaded = Evaluator.load(file);
+        assertArrayEquals(fit.evaluator.getWeights(), loaded.getWeights());
+
+        // Stable discs should end up worth something late in the game
+        int[][] weights = loaded.getWeights();
+        assertTrue(weights[Evaluator.PHASES - 1][6] > 0);
+    }
+
+    @Test
+    @DisplayName("Test default weights keep the old heuristic ordering")
+    void testDefaultWeights() {
+        Evaluator evaluator = new Evaluator();
+        // Owning a corner beats owning an ordinary edge square
+        long corner = 1L;
+        long edge = 1L << 3;
+        assertTrue(evaluator.evaluate(corner, 0L) > evaluator.evaluate(edge, 0L));
+        assertEquals(0, evaluator.evaluate(Bitboard.START_BLACK, Bitboard.START_WHITE));
+    }
+}
@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+class WorkloadTraceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test recorded calls decode with their arguments and replay against fresh models")
+    void testRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WorkloadTrace trace = new WorkloadTrace(bytes);
+        int first = trace.newModel(8);
+        trace.recordMove(first, 2, 3, OthelloModel.BLACK, true);
+        trace.recordMove(first, 2, 3, OthelloModel.WHITE, false); // square taken
+        trace.record(first, WorkloadTrace.GET_VALID_MOVES, OthelloModel.WHITE);
+        trace.record(first, WorkloadTrace.UNDO);
+        trace.record(first, WorkloadTrace.JUMP_TO_PLY, 1);
+        int second = trace.newModel(8);
+        trace.recordBitboards(second, Bitboard.START_BLACK, Bitboard.START_WHITE, OthelloModel.WHITE);
+        trace.record(second, WorkloadTrace.GET_CURRENT_PLAYER);
+        trace.record(second, WorkloadTrace.JUMP_TO_PLY, 300); // out of range: threw when recorded too
+        trace.close();
+        assertEquals(10, trace.getRecords());
+
+        WorkloadTrace.Calls calls = WorkloadTrace.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(10, calls.count);
+        assertEquals(WorkloadTrace.MAKE_MOVE, calls.ops[1]);
+        assertEquals(2, calls.args[1]);
+        assertEquals(3, calls.args2[1]);
+        assertEquals(OthelloModel.BLACK, calls.args3[1]);
+        assertTrue(calls.accepted[1]);
+        assertFalse(calls.accepted[2]);
+        assertEquals(WorkloadTrace.FROM_BITBOARDS, calls.ops[7]);
+        assertEquals(1, calls.models[7]);
+        assertEquals(Bitboard.START_BLACK, calls.blacks[7]);
+        assertEquals(300, calls.args[9]);
+
+        WorkloadTrace.Replay replay = WorkloadTrace.replay(calls);
+        assertEquals(0, replay.mismatches);
+        assertEquals(1, replay.exceptions);
+    }
+
+    @Test
+    @DisplayName("Test a cut-off trace keeps its whole records and a foreign file is refused")
+    void testTruncatedAndForeign() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WorkloadTrace trace = new WorkloadTrace(bytes);
+        int model = trace.newModel(6);
+        trace.recordMove(model, 1, 2, OthelloModel.BLACK, true);
+        trace.close();
+        byte[] whole = bytes.toByteArray();
+        byte[] cut = Arrays.copyOf(whole, whole.length - 2);
+        assertEquals(1, WorkloadTrace.read(new ByteArrayInputStream(cut)).count);
+        assertThrows(IOException.class, () -> WorkloadTrace.read(
+                new ByteArrayInputStream("not a trace".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    @DisplayName("Test a session traced through the model replays with every move accepted as before")
+    void testCaptureFromModel() throws Exception {
+        Path file = tempDir.resolve("session.trace");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // ModelProfiler's driver plays random games through the public API
+        Process process = new ProcessBuilder(java, "-Dothello.trace=" + file, "-cp",
+                System.getProperty("java.class.path"), "ModelProfiler", "5", "3")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue());
+
+        WorkloadTrace.Calls calls;
+        try (InputStream in = Files.newInputStream(file)) {
+            calls = WorkloadTrace.read(in);
+        }
+        long models = 0;
+        long moves = 0;
+        for (int i = 0; i < calls.count; i++) {
+            models += calls.ops[i] == WorkloadTrace.NEW_MODEL ? 1 : 0;
+            moves += calls.ops[i] == WorkloadTrace.MAKE_MOVE ? 1 : 0;
+        }
+        assertEquals(5, models);
+        assertTrue(moves >= 5 * 20);
+        WorkloadTrace.Replay replay = WorkloadTrace.replay(calls);
+        assertEquals(0, replay.mismatches);
+        assertEquals(0, replay.exceptions);
+    }
+}